@@ -0,0 +1,159 @@
+package benchmark;
+
+import dao.ColaEscritura;
+import dao.CuentaDAO;
+import dao.ResultadoMovimiento;
+import dao.ResumenCategorias;
+import dao.TransaccionDAO;
+import dao.UsuarioDAO;
+import modelo.BilleteraDigital;
+import modelo.CuentaFinanciera;
+import modelo.MovimientoRegistro;
+import modelo.Usuario;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import util.DatabaseConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Rutas calientes de {@link TransaccionDAO} y {@link CuentaDAO} sobre una {@code finanzas.db}
+ * temporal, usando el pool y los PRAGMA reales de {@link DatabaseConnection}.
+ *
+ * Se mide en dos modos: Throughput (ops/s) y SampleTime, que reporta percentiles de latencia
+ * (p50, p90, p99, p99.9...). Para ver bytes asignados por operacion agregar {@code -prof gc}:
+ * <pre>
+ *   java -cp target/ChatFinance-1.0-SNAPSHOT.jar org.openjdk.jmh.Main Dao -prof gc
+ *   java -cp ... org.openjdk.jmh.Main Dao -p usuarios=1000 -p movimientosPorCuenta=2000 -t 4
+ * </pre>
+ * El volumen sembrado se controla con los @Param; cada fork genera su propia base.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoBenchmark {
+
+    @Param({"100"})
+    public int usuarios;
+
+    @Param({"3"})
+    public int cuentasPorUsuario;
+
+    @Param({"200"})
+    public int movimientosPorCuenta;
+
+    private Path directorio;
+    private int[] idsUsuarios;
+    private int[][] idsCuentas;
+
+    private final TransaccionDAO transaccionDAO = new TransaccionDAO();
+    private final CuentaDAO      cuentaDAO      = new CuentaDAO();
+
+    /** Seleccion aleatoria independiente por hilo de medicion. */
+    @State(Scope.Thread)
+    public static class Azar {
+        final SplittableRandom random = new SplittableRandom(42);
+    }
+
+    @Setup(Level.Trial)
+    public void sembrar() throws IOException {
+        directorio = Files.createTempDirectory("chatfinance-bench");
+        // Debe fijarse antes del primer uso de DatabaseConnection, que lee la URL al cargar la clase.
+        System.setProperty("chatfinance.db.url", "jdbc:sqlite:" + directorio.resolve("finanzas.db"));
+
+        UsuarioDAO usuarioDAO = new UsuarioDAO();
+        SplittableRandom random = new SplittableRandom(7);
+        idsUsuarios = new int[usuarios];
+        idsCuentas  = new int[usuarios][cuentasPorUsuario];
+        List<MovimientoRegistro> movimientos = new ArrayList<>();
+
+        for (int u = 0; u < usuarios; u++) {
+            Usuario usuario = usuarioDAO.crearUsuario(new Usuario("9" + (10_000_000 + u), "Usuario " + u));
+            idsUsuarios[u] = usuario.getId();
+
+            for (int c = 0; c < cuentasPorUsuario; c++) {
+                CuentaFinanciera cuenta = cuentaDAO.guardar(new BilleteraDigital(
+                        usuario.getId(), "9" + u + "-" + c, 100_000_000L, "Billetera " + c, "Banco"));
+                idsCuentas[u][c] = cuenta.getId();
+
+                for (int m = 0; m < movimientosPorCuenta; m++) {
+                    boolean gasto = random.nextInt(4) != 0;
+                    String[] categorias = gasto ? MovimientoRegistro.CATEGORIAS_GASTO : MovimientoRegistro.CATEGORIAS_INGRESO;
+                    movimientos.add(new MovimientoRegistro(cuenta.getId(), null,
+                            gasto ? MovimientoRegistro.Tipo.GASTO : MovimientoRegistro.Tipo.INGRESO,
+                            1 + random.nextInt(50_000), "Semilla " + m,
+                            categorias[random.nextInt(categorias.length)]));
+                }
+            }
+        }
+        transaccionDAO.registrarLote(movimientos);
+    }
+
+    @TearDown(Level.Trial)
+    public void borrar() throws IOException {
+        ColaEscritura.detener();
+        DatabaseConnection.getInstance().cerrarConexion();
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path p : archivos.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private int usuario(Azar azar) {
+        return azar.random.nextInt(usuarios);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Escrituras
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Benchmark
+    public ResultadoMovimiento registrarGasto(Azar azar) {
+        int[] cuentas = idsCuentas[usuario(azar)];
+        return transaccionDAO.registrarGasto(cuentas[azar.random.nextInt(cuentas.length)],
+                1 + azar.random.nextInt(10_000), "Bench", "Alimentacion");
+    }
+
+    @Benchmark
+    public ResultadoMovimiento realizarTransferencia(Azar azar) {
+        int[] cuentas = idsCuentas[usuario(azar)];
+        int origen = azar.random.nextInt(cuentas.length);
+        int destino = (origen + 1) % cuentas.length;
+        return transaccionDAO.realizarTransferencia(cuentas[origen], cuentas[destino],
+                1 + azar.random.nextInt(10_000), "Bench");
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Lecturas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Benchmark
+    public List<MovimientoRegistro> listarUltimosMovimientos(Azar azar) {
+        return transaccionDAO.listarUltimosMovimientos(idsUsuarios[usuario(azar)], 10);
+    }
+
+    @Benchmark
+    public ResumenCategorias obtenerResumenGastos(Azar azar) {
+        return transaccionDAO.obtenerResumenGastos(idsUsuarios[usuario(azar)]);
+    }
+
+    @Benchmark
+    public void calcularPatrimonioTotal(Azar azar, Blackhole bh) {
+        bh.consume(cuentaDAO.calcularPatrimonioTotal(idsUsuarios[usuario(azar)]));
+    }
+
+    @Benchmark
+    public List<CuentaFinanciera> listarPorUsuario(Azar azar) {
+        return cuentaDAO.listarPorUsuario(idsUsuarios[usuario(azar)]);
+    }
+}
@@ -0,0 +1,145 @@
+package benchmark;
+
+import dao.MapeadorMovimientos;
+import modelo.MovimientoRegistro;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorrido completo de la tabla transacciones comparando el mapeo anterior (por nombre de
+ * columna + {@code LocalDateTime.parse}) contra {@link MapeadorMovimientos}.
+ *
+ * La base se genera en un archivo temporal con {@code filas} movimientos (1M por defecto);
+ * se puede reducir con {@code -p filas=100000}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapeoFilasBenchmark {
+
+    private static final String SQL_RECORRER =
+            "SELECT id, cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, " +
+            "       fecha, descripcion, categoria FROM transacciones ORDER BY id";
+
+    @Param({"1000000"})
+    public int filas;
+
+    private File archivo;
+    private Connection conn;
+
+    /** Muestra de fechas para medir solo el parseo, fuera del driver. */
+    private String[] fechas;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        archivo = File.createTempFile("chatfinance-bench", ".db");
+        conn = DriverManager.getConnection("jdbc:sqlite:" + archivo.getAbsolutePath());
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = OFF");
+            stmt.execute("CREATE TABLE transacciones (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT, cuenta_origen_id INTEGER NOT NULL, " +
+                    "cuenta_destino_id INTEGER, tipo TEXT NOT NULL, monto_centimos INTEGER NOT NULL, " +
+                    "fecha DATETIME DEFAULT CURRENT_TIMESTAMP, descripcion TEXT, categoria TEXT)");
+        }
+
+        String[] tipos = {"INGRESO", "GASTO", "TRANSFERENCIA"};
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO transacciones (cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, fecha, " +
+                "descripcion, categoria) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < filas; i++) {
+                String tipo = tipos[i % 3];
+                pstmt.setInt(1, 1 + i % 50);
+                if (tipo.equals("TRANSFERENCIA")) pstmt.setInt(2, 1 + (i + 1) % 50);
+                else pstmt.setNull(2, Types.INTEGER);
+                pstmt.setString(3, tipo);
+                pstmt.setLong(4, 1 + i % 10_000);
+                pstmt.setString(5, fechaSintetica(i));
+                pstmt.setString(6, "Movimiento " + i);
+                pstmt.setString(7, tipo.equals("GASTO") ? "Comida" : null);
+                pstmt.addBatch();
+                if (i % 10_000 == 9_999) pstmt.executeBatch();
+            }
+            pstmt.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+
+        fechas = new String[4096];
+        for (int i = 0; i < fechas.length; i++) fechas[i] = fechaSintetica(i * 7919);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+        archivo.delete();
+        new File(archivo.getPath() + "-wal").delete();
+        new File(archivo.getPath() + "-shm").delete();
+    }
+
+    @Benchmark
+    public void recorrerMapeoPorNombre(Blackhole bh) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_RECORRER);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) bh.consume(mapearPorNombre(rs));
+        }
+    }
+
+    @Benchmark
+    public void recorrerMapeoPorIndice(Blackhole bh) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_RECORRER);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) bh.consume(MapeadorMovimientos.mapear(rs));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void parsearFechaIso(Blackhole bh) {
+        for (String f : fechas) bh.consume(LocalDateTime.parse(f.replace(" ", "T")));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void parsearFechaManual(Blackhole bh) {
+        for (String f : fechas) bh.consume(MapeadorMovimientos.parsearFecha(f));
+    }
+
+    /** Copia del TransaccionDAO.mapearFila original, como linea base. */
+    private static MovimientoRegistro mapearPorNombre(ResultSet rs) throws SQLException {
+        int      id          = rs.getInt("id");
+        int      origenId    = rs.getInt("cuenta_origen_id");
+        Integer  destinoId   = rs.getObject("cuenta_destino_id") != null ? rs.getInt("cuenta_destino_id") : null;
+        String   tipoStr     = rs.getString("tipo");
+        long     monto       = rs.getLong("monto_centimos");
+        String   fechaStr    = rs.getString("fecha");
+        String   descripcion = rs.getString("descripcion");
+        String   categoria   = rs.getString("categoria");
+
+        MovimientoRegistro.Tipo tipo = MovimientoRegistro.Tipo.valueOf(tipoStr);
+
+        LocalDateTime fecha = (fechaStr != null)
+                ? LocalDateTime.parse(fechaStr.replace(" ", "T"))
+                : LocalDateTime.now();
+
+        return new MovimientoRegistro(id, origenId, destinoId, tipo, monto, fecha, descripcion, categoria);
+    }
+
+    /** Fechas con el formato de CURRENT_TIMESTAMP repartidas a lo largo de varios anos. */
+    private static String fechaSintetica(int i) {
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0, 0).plusMinutes(i * 3L);
+        return String.format("%04d-%02d-%02d %02d:%02d:%02d",
+                base.getYear(), base.getMonthValue(), base.getDayOfMonth(),
+                base.getHour(), base.getMinute(), base.getSecond());
+    }
+}
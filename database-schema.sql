@@ -20,7 +20,7 @@ CREATE TABLE IF NOT EXISTS cuentas (
     id INTEGER PRIMARY KEY AUTOINCREMENT,
     usuario_id INTEGER NOT NULL,
     numero_cuenta TEXT NOT NULL,
-    saldo REAL NOT NULL DEFAULT 0.0,
+    saldo_centimos INTEGER NOT NULL DEFAULT 0,   -- en centimos (S/ 12.34 = 1234), migracion v2
 
     -- Discriminador: indica el tipo de cuenta
     tipo_cuenta TEXT NOT NULL CHECK(tipo_cuenta IN ('BILLETERA', 'BANCO')),
@@ -55,6 +55,31 @@ ON cuentas(usuario_id);
 CREATE INDEX IF NOT EXISTS idx_cuentas_tipo
 ON cuentas(tipo_cuenta);
 
+-- Índices de transacciones (migración versionada v1, ver DatabaseConnection.MIGRACIONES)
+-- Historial por cuenta ordenado por fecha, lado origen y lado destino
+CREATE INDEX IF NOT EXISTS idx_transacciones_origen_fecha
+ON transacciones(cuenta_origen_id, fecha);
+
+CREATE INDEX IF NOT EXISTS idx_transacciones_destino_fecha
+ON transacciones(cuenta_destino_id, fecha);
+
+-- Agrupaciones por tipo y categoría
+CREATE INDEX IF NOT EXISTS idx_transacciones_tipo_categoria
+ON transacciones(tipo, categoria);
+
+-- Resumen mensual por categoria para reportes (migracion versionada v3).
+-- TransaccionDAO lo actualiza con un UPSERT en la misma transaccion de cada
+-- ingreso/gasto; Main --verificar-resumen / --reconstruir-resumen lo auditan.
+CREATE TABLE IF NOT EXISTS resumen_categorias (
+    usuario_id     INTEGER NOT NULL,
+    tipo           TEXT NOT NULL CHECK(tipo IN ('INGRESO', 'GASTO')),
+    categoria      TEXT NOT NULL,
+    mes            TEXT NOT NULL,          -- 'YYYY-MM'
+    total_centimos INTEGER NOT NULL,
+    cantidad       INTEGER NOT NULL,
+    PRIMARY KEY (usuario_id, tipo, categoria, mes)
+) WITHOUT ROWID;
+
 -- =========================================
 -- Datos de prueba (opcional)
 -- =========================================
@@ -64,12 +89,12 @@ ON cuentas(tipo_cuenta);
 -- VALUES ('987654321', 'Juan Pérez');
 
 -- Insertar una billetera digital de prueba
--- INSERT INTO cuentas (usuario_id, numero_cuenta, saldo, tipo_cuenta, alias, proveedor, banco, cci)
--- VALUES (1, '987654321', 50.00, 'BILLETERA', 'Yape Personal', 'BCP', NULL, NULL);
+-- INSERT INTO cuentas (usuario_id, numero_cuenta, saldo_centimos, tipo_cuenta, alias, proveedor, banco, cci)
+-- VALUES (1, '987654321', 5000, 'BILLETERA', 'Yape Personal', 'BCP', NULL, NULL);
 
 -- Insertar una cuenta bancaria de prueba
--- INSERT INTO cuentas (usuario_id, numero_cuenta, saldo, tipo_cuenta, alias, proveedor, banco, cci)
--- VALUES (1, '19312345678', 1500.00, 'BANCO', NULL, NULL, 'BCP', '00219300123456780123');
+-- INSERT INTO cuentas (usuario_id, numero_cuenta, saldo_centimos, tipo_cuenta, alias, proveedor, banco, cci)
+-- VALUES (1, '19312345678', 150000, 'BANCO', NULL, NULL, 'BCP', '00219300123456780123');
 
 -- =========================================
 -- Consultas útiles
@@ -79,7 +104,7 @@ ON cuentas(tipo_cuenta);
 -- SELECT * FROM cuentas WHERE usuario_id = 1;
 
 -- Calcular patrimonio total de un usuario
--- SELECT SUM(saldo) as patrimonio_total FROM cuentas WHERE usuario_id = 1;
+-- SELECT SUM(saldo_centimos) as patrimonio_total_centimos FROM cuentas WHERE usuario_id = 1;
 
 -- Ver solo billeteras digitales
 -- SELECT * FROM cuentas WHERE tipo_cuenta = 'BILLETERA';
@@ -1,12 +1,84 @@
 import controller.LoginController;
+import dao.CacheCuentas;
+import dao.ColaEscritura;
+import dao.MantenimientoResumen;
+import dao.VerificadorImportacion;
+import dao.VerificadorPlanConsultas;
+import service.AsistenteIAService;
+import service.CacheIntenciones;
+import service.ClasificadorReglas;
+import service.SaludOllama;
+import service.VerificadorClasificador;
+import servidor.ClienteCarga;
+import servidor.ServidorSesiones;
+import simulacion.ArnesAsistente;
+import simulacion.OllamaSimulado;
 import util.DatabaseConnection;
+import util.Metricas;
+
+import java.util.Arrays;
 
 /**
  * Punto de entrada de la aplicacion ChatFinance.
+ *
+ * Sin argumentos inicia la sesion interactiva; con {@code -Dchatfinance.metricas=true} imprime
+ * ademas los PRAGMA efectivos y las estadisticas internas (ver {@link Metricas}). Comandos de mantenimiento:
+ *   --verificar-planes     Falla (codigo 1) si alguna consulta de los DAOs recorre una tabla completa.
+ *   --reconstruir-resumen  Recalcula la tabla resumen_categorias desde el historial.
+ *   --verificar-resumen    Falla (codigo 1) si resumen_categorias no coincide con el historial.
+ *   --verificar-importacion
+ *                          Falla (codigo 1) si la importacion en bloque pierde las fechas del extracto.
+ *   --verificar-clasificador [archivo]
+ *                          Falla (codigo 1) si el clasificador por reglas no coincide con su corpus.
+ *   --servidor [puerto]    Atiende sesiones concurrentes por socket local, ver {@link ServidorSesiones}.
+ *   --carga [puerto] [sesiones] [rondas]
+ *                          Genera carga contra un servidor en marcha, ver {@link ClienteCarga}.
+ *   --ollama-simulado [puerto]
+ *                          Servidor que imita a Ollama (latencia y fallos configurables), ver {@link OllamaSimulado}.
+ *   --arnes-asistente [sesiones] [mensajes]
+ *                          Latencia por etapa del asistente contra el Ollama simulado, ver {@link ArnesAsistente}.
  */
 public class Main {
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            switch (args[0]) {
+                case "--verificar-planes" -> {
+                    VerificadorPlanConsultas.main(args);
+                    return;
+                }
+                case "--reconstruir-resumen", "--verificar-resumen" -> {
+                    MantenimientoResumen.main(args);
+                    return;
+                }
+                case "--verificar-importacion" -> {
+                    VerificadorImportacion.main(args);
+                    return;
+                }
+                case "--verificar-clasificador" -> {
+                    VerificadorClasificador.main(args);
+                    return;
+                }
+                case "--servidor" -> {
+                    ServidorSesiones.main(Arrays.copyOfRange(args, 1, args.length));
+                    return;
+                }
+                case "--carga" -> {
+                    ClienteCarga.main(Arrays.copyOfRange(args, 1, args.length));
+                    return;
+                }
+                case "--ollama-simulado" -> {
+                    OllamaSimulado.main(Arrays.copyOfRange(args, 1, args.length));
+                    return;
+                }
+                case "--arnes-asistente" -> {
+                    ArnesAsistente.main(Arrays.copyOfRange(args, 1, args.length));
+                    return;
+                }
+                default -> { }
+            }
+        }
+
         mostrarBanner();
         try {
             DatabaseConnection.getInstance();
@@ -15,6 +87,13 @@ public class Main {
             System.err.println("Error critico en la aplicacion:");
             e.printStackTrace();
         } finally {
+            CacheIntenciones.getInstance().guardar();
+            Metricas.imprimir(CacheCuentas.getInstance().getEstadisticas());
+            Metricas.imprimir(ClasificadorReglas.getInstance().getEstadisticas());
+            Metricas.imprimir(CacheIntenciones.getInstance().getEstadisticas());
+            Metricas.imprimir(AsistenteIAService.getEstadisticas());
+            if (SaludOllama.actual() != null) Metricas.imprimir(SaludOllama.actual().getEstadisticas());
+            ColaEscritura.detener();
             DatabaseConnection.getInstance().cerrarConexion();
         }
     }
@@ -1,24 +1,37 @@
 package controller;
 
 import dao.CuentaDAO;
+import dao.Granularidad;
+import dao.ResultadoMovimiento;
 import dao.TransaccionDAO;
 import modelo.BilleteraDigital;
 import modelo.CuentaBancaria;
 import modelo.CuentaFinanciera;
-import modelo.MovimientoRegistro;
+import modelo.Montos;
 import modelo.Usuario;
 import service.AsistenteIAService;
+import service.ClasificadorReglas;
 import service.IntencionOperacionDTO;
+import service.InterpretacionEnCurso;
 import view.ConsoleView;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ObjLongConsumer;
 import java.util.stream.Collectors;
 
 /**
  * Controlador del Asistente IA — Router de Intenciones Universal.
  *
- * Recibe texto libre del usuario, delega la clasificacion a {@link AsistenteIAService}
- * y enruta la accion al metodo correcto segun la intencion detectada:
+ * Recibe texto libre del usuario, lo clasifica con {@link ClasificadorReglas} o, si las reglas
+ * no lo resuelven con certeza, con {@link AsistenteIAService} (en streaming, mostrando progreso
+ * mientras el modelo genera) y enruta la accion al
+ * metodo correcto segun la intencion detectada:
  *   REGISTRAR_TRANSACCION → registrarTransaccion()
  *   CREAR_CUENTA          → crearCuenta()
  *   VER_REPORTE           → verReporte()
@@ -26,22 +39,42 @@ import java.util.stream.Collectors;
  */
 public class AsistenteController {
 
+    private static final long INTERVALO_PROGRESO_MS = 300;
+    private static final long ESPERA_MAXIMA_MS      = AsistenteIAService.PLAZO_MENSAJE_MS;
+
+    /**
+     * Etapas de cada mensaje que informa el medidor (ver {@link #setMedidor}):
+     *   REGLAS          Clasificacion por reglas (todos los mensajes)
+     *   INTENCION       Desde pedir la interpretacion hasta leer VER_SALDOS, que se atiende sin esperar el resto
+     *   INTERPRETACION  Desde pedir la interpretacion a la IA hasta tener el DTO (incluye cache y red)
+     *   ENRUTADO        Accion de la intencion: confirmacion, escritura en la BD o consulta
+     */
+    public enum Etapa { REGLAS, INTENCION, INTERPRETACION, ENRUTADO }
+
     private final ConsoleView            vista;
     private final AsistenteIAService     servicioIA;
+    private final ClasificadorReglas     clasificador;
     private final CuentaDAO              cuentaDAO;
     private final TransaccionDAO         transaccionDAO;
     private final OperacionesController  operacionesController;
     private final CuentaController       cuentaController;
+    private ObjLongConsumer<Etapa>       medidor = (etapa, nanos) -> { };
 
     public AsistenteController(ConsoleView vista) {
         this.vista                 = vista;
         this.servicioIA            = new AsistenteIAService();
+        this.clasificador          = ClasificadorReglas.getInstance();
         this.cuentaDAO             = new CuentaDAO();
         this.transaccionDAO        = new TransaccionDAO();
         this.operacionesController = new OperacionesController(vista);
         this.cuentaController      = new CuentaController(vista);
     }
 
+    /** Recibe la duracion en nanosegundos de cada etapa de cada mensaje (p. ej. el arnes de simulacion). */
+    public void setMedidor(ObjLongConsumer<Etapa> medidor) {
+        this.medidor = medidor;
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // Punto de entrada — bucle de chat
     // ─────────────────────────────────────────────────────────────────────────
@@ -54,22 +87,23 @@ public class AsistenteController {
         vista.mostrarCabecera("ASISTENTE INTELIGENTE - ROUTER DE INTENCIONES");
 
         vista.mostrarMensaje("Verificando conexion con Ollama...");
-        if (!servicioIA.verificarConexion()) {
-            vista.mostrarError("Ollama no esta disponible en http://localhost:11434");
-            vista.mostrarMensaje("  Asegurese de que Ollama este corriendo.");
-            vista.mostrarMensaje("  Comando: ollama run llama3.2");
-            vista.esperarEnter();
-            return;
+        if (servicioIA.verificarConexion()) {
+            vista.mostrarMensaje("Conexion con Ollama establecida.");
+        } else {
+            // Sin Ollama siguen funcionando las frases simples; el resto va al menu de operaciones.
+            vista.mostrarError("Ollama no esta disponible: " + servicioIA.getMotivoNoDisponible());
+            vista.mostrarMensaje("  URL: " + AsistenteIAService.getUrlOllama() + "  |  Comando: ollama run llama3.2");
+            vista.mostrarMensaje("  Solo se entenderan frases simples; para lo demas se abrira el menu de operaciones.");
         }
-        vista.mostrarMensaje("Conexion con Ollama establecida.");
         mostrarAyuda();
 
         while (true) {
             List<CuentaFinanciera> cuentas = cuentaDAO.listarPorUsuario(usuario.getId());
             String listaCuentas = construirListaCuentas(cuentas);
 
-            vista.mostrarMensaje("\nCuentas: " + (listaCuentas.isBlank() ? "(ninguna aun)" : listaCuentas));
-            System.out.print("Tu: ");
+            vista.mostrarMensaje("\nCuentas: " + (cuentas.isEmpty() ? "(ninguna aun)" : cuentas.stream()
+                    .map(CuentaFinanciera::obtenerDetalleImprimible).collect(Collectors.joining(", "))));
+            vista.mostrarPregunta("Tu: ");
             String texto = vista.leerLinea();
 
             if (texto.equalsIgnoreCase("salir") || texto.isBlank()) {
@@ -77,19 +111,66 @@ public class AsistenteController {
                 break;
             }
 
-            vista.mostrarMensaje("Analizando... (puede tardar unos segundos)");
-            IntencionOperacionDTO dto = servicioIA.interpretarTexto(texto, listaCuentas);
+            // Las frases frecuentes y sin ambiguedad no necesitan al modelo.
+            long inicio = System.nanoTime();
+            IntencionOperacionDTO directo = clasificador.clasificar(texto, cuentas);
+            medidor.accept(Etapa.REGLAS, System.nanoTime() - inicio);
+            if (directo != null) {
+                mostrarResumenInterpretado(directo);
+                medir(Etapa.ENRUTADO, () -> enrutarIntencion(directo, cuentas, usuario));
+                continue;
+            }
+
+            if (servicioIA.circuitoAbierto() || !servicioIA.verificarConexion()) {
+                derivarAMenu(usuario);
+                continue;
+            }
+
+            vista.mostrarPregunta("Analizando");
+            inicio = System.nanoTime();
+            InterpretacionEnCurso enCurso = servicioIA.interpretarTextoStreaming(texto, listaCuentas);
+            // Un solo plazo por mensaje, compartido por la espera de la intencion y la del resultado.
+            long limite = inicio + TimeUnit.MILLISECONDS.toNanos(ESPERA_MAXIMA_MS);
+
+            // VER_SALDOS no lleva parametros: se atiende en cuanto el modelo escribe la intencion.
+            if ("VER_SALDOS".equals(esperarConProgreso(enCurso, enCurso.intencion(), limite))) {
+                enCurso.cancelar();
+                medidor.accept(Etapa.INTENCION, System.nanoTime() - inicio);
+                vista.mostrarMensaje("\n--- Interpretacion ---\n  Intencion    : VER_SALDOS\n" + "-".repeat(50));
+                medir(Etapa.ENRUTADO, () -> verSaldos(usuario));
+                continue;
+            }
+            IntencionOperacionDTO dto = esperarConProgreso(enCurso, enCurso.resultado(), limite);
+            medidor.accept(Etapa.INTERPRETACION, System.nanoTime() - inicio);
 
+            // Sin respuesta dentro del plazo, o con el circuito abierto: la peticion sigue por los menus.
+            if (dto == null && (servicioIA.circuitoAbierto() || System.nanoTime() - limite > 0)) {
+                derivarAMenu(usuario);
+                continue;
+            }
             if (dto == null || !dto.tieneIntencionValida()) {
                 vista.mostrarError("No se pudo interpretar la solicitud. Intente de nuevo con mas detalle.");
                 continue;
             }
 
             mostrarResumenInterpretado(dto);
-            enrutarIntencion(dto, cuentas, usuario);
+            medir(Etapa.ENRUTADO, () -> enrutarIntencion(dto, cuentas, usuario));
         }
     }
 
+    private void medir(Etapa etapa, Runnable accion) {
+        long inicio = System.nanoTime();
+        accion.run();
+        medidor.accept(etapa, System.nanoTime() - inicio);
+    }
+
+    /** Ollama no responde: la peticion se resuelve con el menu de operaciones de siempre. */
+    private void derivarAMenu(Usuario usuario) {
+        vista.mostrarError("El asistente IA no esta disponible (" + servicioIA.getMotivoNoDisponible()
+                + "). Abriendo el menu de operaciones.");
+        operacionesController.mostrarMenuOperaciones(usuario);
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // Router principal
     // ─────────────────────────────────────────────────────────────────────────
@@ -100,7 +181,7 @@ public class AsistenteController {
         switch (dto.getIntencion()) {
             case "REGISTRAR_TRANSACCION" -> registrarTransaccion(dto, cuentas);
             case "CREAR_CUENTA"          -> crearCuenta(dto, usuario);
-            case "VER_REPORTE"           -> verReporte(usuario);
+            case "VER_REPORTE"           -> verReporte(usuario, dto.getPeriodo());
             case "VER_SALDOS"            -> verSaldos(usuario);
             default -> vista.mostrarError("Intencion no reconocida: " + dto.getIntencion());
         }
@@ -123,40 +204,34 @@ public class AsistenteController {
         }
 
         String tipo       = dto.getTipoTransaccion();
-        double monto      = dto.getMonto();
+        long   monto      = dto.getMontoCentimos();
         String categoria  = dto.getCategoria() != null ? dto.getCategoria() : "Otros";
         String descripcion = dto.getDescripcion() != null ? dto.getDescripcion() : "Registro via Asistente IA";
 
-        if ("GASTO".equals(tipo) && cuenta.getSaldo() < monto) {
-            vista.mostrarError(String.format(
-                "Saldo insuficiente en %s. Disponible: S/ %.2f | Solicitado: S/ %.2f",
-                cuenta.obtenerDetalleImprimible(), cuenta.getSaldo(), monto));
-            return;
-        }
-
-        System.out.print("Confirmar " + tipo + " de S/ " + String.format("%.2f", monto) + "? (s/n): ");
+        vista.mostrarPregunta("Confirmar " + tipo + " de S/ " + Montos.formatear(monto) + "? (s/n): ");
         if (!vista.leerLinea().equalsIgnoreCase("s")) {
             vista.mostrarOperacionCancelada();
             return;
         }
 
-        MovimientoRegistro resultado = "INGRESO".equals(tipo)
+        ResultadoMovimiento resultado = "INGRESO".equals(tipo)
                 ? transaccionDAO.registrarIngreso(cuenta.getId(), monto, descripcion, categoria)
                 : transaccionDAO.registrarGasto(cuenta.getId(), monto, descripcion, categoria);
 
-        if (resultado != null) {
-            CuentaFinanciera actualizada = cuentaDAO.buscarPorId(cuenta.getId());
-            double nuevoSaldo = actualizada != null ? actualizada.getSaldo()
-                    : cuenta.getSaldo() + ("INGRESO".equals(tipo) ? monto : -monto);
-            vista.mostrarExitoOperacion(
+        // El saldo de la lista puede ser anterior a la confirmacion: la BD decide si alcanza.
+        switch (resultado.getEstado()) {
+            case EXITO -> vista.mostrarExitoOperacion(
                 tipo + " REGISTRADO",
-                String.format("%s S/ %.2f en %s  [%s]",
-                    "INGRESO".equals(tipo) ? "+" : "-", monto,
+                String.format("%s S/ %s en %s  [%s]",
+                    "INGRESO".equals(tipo) ? "+" : "-", Montos.formatear(monto),
                     cuenta.obtenerDetalleImprimible(), categoria),
-                "Nuevo saldo: S/ " + String.format("%.2f", nuevoSaldo)
+                "Nuevo saldo: S/ " + Montos.formatear(resultado.getSaldoOrigenCentimos())
             );
-        } else {
-            vista.mostrarError("No se pudo registrar. Cambios revertidos.");
+            case SALDO_INSUFICIENTE -> vista.mostrarError(String.format(
+                "Saldo insuficiente en %s. Disponible: S/ %s | Solicitado: S/ %s",
+                cuenta.obtenerDetalleImprimible(), Montos.formatear(resultado.getSaldoDisponibleCentimos()),
+                Montos.formatear(monto)));
+            case ERROR -> vista.mostrarError("No se pudo registrar. Cambios revertidos.");
         }
     }
 
@@ -173,10 +248,10 @@ public class AsistenteController {
 
         String nombre = dto.getNombreCuenta();
         String tipo   = dto.getTipoCuentaNueva();
-        double saldo  = dto.getMonto() != null ? dto.getMonto() : 0.0;
+        long   saldo  = dto.getMontoCentimos() != null ? dto.getMontoCentimos() : 0L;
 
-        System.out.printf("Crear cuenta %s '%s' con S/ %.2f de saldo inicial? (s/n): ",
-                tipo, nombre, saldo);
+        vista.mostrarFormato("Crear cuenta %s '%s' con S/ %s de saldo inicial? (s/n): ",
+                tipo, nombre, Montos.formatear(saldo));
         if (!vista.leerLinea().equalsIgnoreCase("s")) {
             vista.mostrarOperacionCancelada();
             return;
@@ -198,7 +273,7 @@ public class AsistenteController {
             vista.mostrarExitoOperacion(
                 "CUENTA CREADA",
                 guardada.obtenerDetalleImprimible(),
-                "Saldo inicial: S/ " + String.format("%.2f", saldo)
+                "Saldo inicial: S/ " + Montos.formatear(saldo)
             );
         } else {
             vista.mostrarError("No se pudo crear la cuenta.");
@@ -209,8 +284,16 @@ public class AsistenteController {
     // Caso: VER_REPORTE
     // ─────────────────────────────────────────────────────────────────────────
 
-    private void verReporte(Usuario usuario) {
-        operacionesController.verReporteAnalitico(usuario);
+    private void verReporte(Usuario usuario, String periodo) {
+        Granularidad granularidad = null;
+        if (periodo != null) {
+            try {
+                granularidad = Granularidad.valueOf(periodo);
+            } catch (IllegalArgumentException ignorada) { }
+        }
+
+        if (granularidad != null) operacionesController.verReportePeriodo(usuario, granularidad);
+        else                      operacionesController.verReporteAnalitico(usuario);
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -225,13 +308,51 @@ public class AsistenteController {
     // Helpers
     // ─────────────────────────────────────────────────────────────────────────
 
+    /**
+     * Espera un futuro de la interpretacion mostrando un punto cada {@link #INTERVALO_PROGRESO_MS}
+     * mientras llegan tokens. Si se alcanza {@code limite} cancela la generacion.
+     *
+     * @param limite Plazo del mensaje en {@link System#nanoTime()}, comun a todas sus esperas
+     * @return El valor del futuro, o null si fallo, se cancelo o vencio la espera
+     */
+    private <T> T esperarConProgreso(InterpretacionEnCurso enCurso, CompletableFuture<T> futuro, long limite) {
+        int fragmentosMostrados = 0;
+        try {
+            while (true) {
+                try {
+                    T valor = futuro.get(INTERVALO_PROGRESO_MS, TimeUnit.MILLISECONDS);
+                    vista.mostrarMensaje("");
+                    return valor;
+                } catch (TimeoutException e) {
+                    if (System.nanoTime() - limite > 0) {
+                        enCurso.cancelar();
+                        vista.mostrarMensaje("");
+                        vista.mostrarError("El asistente tardo demasiado en responder.");
+                        return null;
+                    }
+                    if (enCurso.getFragmentos() > fragmentosMostrados) {
+                        fragmentosMostrados = enCurso.getFragmentos();
+                        vista.mostrarPregunta(".");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            enCurso.cancelar();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            vista.mostrarMensaje("");
+            return null;
+        }
+    }
+
     private void mostrarResumenInterpretado(IntencionOperacionDTO dto) {
         vista.mostrarMensaje("\n--- Interpretacion ---");
         vista.mostrarMensaje("  Intencion    : " + dto.getIntencion());
         if (dto.getTipoTransaccion() != null)
             vista.mostrarMensaje("  Tipo         : " + dto.getTipoTransaccion());
-        if (dto.getMonto() != null)
-            vista.mostrarMensaje("  Monto        : S/ " + String.format("%.2f", dto.getMonto()));
+        if (dto.getMontoCentimos() != null)
+            vista.mostrarMensaje("  Monto        : S/ " + Montos.formatear(dto.getMontoCentimos()));
         if (dto.getCategoria() != null)
             vista.mostrarMensaje("  Categoria    : " + dto.getCategoria());
         if (dto.getNombreCuenta() != null)
@@ -254,12 +375,17 @@ public class AsistenteController {
     }
 
     /**
-     * Resuelve la cuenta buscando primero coincidencia exacta, luego parcial.
+     * Resuelve la cuenta buscando primero la etiqueta exacta que vio el modelo, luego
+     * coincidencia parcial con el detalle.
      */
     private CuentaFinanciera resolverCuenta(String nombreIA, List<CuentaFinanciera> cuentas) {
         if (nombreIA == null || nombreIA.isBlank()) return null;
         String norm = nombreIA.toLowerCase().trim();
 
+        List<String> etiquetas = etiquetas(cuentas);
+        for (int i = 0; i < cuentas.size(); i++)
+            if (etiquetas.get(i).equalsIgnoreCase(norm)) return cuentas.get(i);
+
         for (CuentaFinanciera c : cuentas)
             if (c.obtenerDetalleImprimible().toLowerCase().contains(norm)) return c;
 
@@ -271,10 +397,23 @@ public class AsistenteController {
         return null;
     }
 
+    /**
+     * Lista de cuentas para el prompt: solo el nombre corto de cada una. El detalle completo
+     * (numero, CCI) no ayuda a elegir la cuenta y alarga el mensaje en cada llamada.
+     */
     private String construirListaCuentas(List<CuentaFinanciera> cuentas) {
-        if (cuentas.isEmpty()) return "";
-        return cuentas.stream()
-                .map(CuentaFinanciera::obtenerDetalleImprimible)
-                .collect(Collectors.joining(", "));
+        return String.join(", ", etiquetas(cuentas));
+    }
+
+    /** Nombre corto de cada cuenta; si dos coinciden, se distinguen por los ultimos digitos del numero. */
+    private static List<String> etiquetas(List<CuentaFinanciera> cuentas) {
+        Map<String, Long> repetidos = cuentas.stream()
+                .collect(Collectors.groupingBy(c -> c.obtenerNombreCorto().toLowerCase(), Collectors.counting()));
+        return cuentas.stream().map(c -> {
+            String nombre = c.obtenerNombreCorto();
+            if (repetidos.get(nombre.toLowerCase()) == 1) return nombre;
+            String numero = c.getNumeroCuenta() != null ? c.getNumeroCuenta() : String.valueOf(c.getId());
+            return nombre + " " + numero.substring(Math.max(0, numero.length() - 4));
+        }).collect(Collectors.toList());
     }
 }
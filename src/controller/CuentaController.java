@@ -4,6 +4,7 @@ import dao.CuentaDAO;
 import modelo.BilleteraDigital;
 import modelo.CuentaBancaria;
 import modelo.CuentaFinanciera;
+import modelo.Montos;
 import modelo.Usuario;
 import view.ConsoleView;
 
@@ -21,48 +22,48 @@ public class CuentaController {
     }
 
     public void verSaldos(Usuario usuario) {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("MIS CUENTAS Y SALDOS");
-        System.out.println("=".repeat(60));
+        vista.mostrarMensaje("\n" + "=".repeat(60));
+        vista.mostrarMensaje("MIS CUENTAS Y SALDOS");
+        vista.mostrarMensaje("=".repeat(60));
 
         List<CuentaFinanciera> cuentas = cuentaDAO.listarPorUsuario(usuario.getId());
 
         if (cuentas.isEmpty()) {
-            System.out.println("\nNo tienes cuentas registradas aun.");
-            System.out.println("Tip: Usa la opcion 99 para agregar cuentas de prueba.");
+            vista.mostrarMensaje("\nNo tienes cuentas registradas aun.");
+            vista.mostrarMensaje("Tip: Usa la opcion 99 para agregar cuentas de prueba.");
         } else {
-            System.out.println();
+            vista.mostrarMensaje("");
             int contador = 1;
             for (CuentaFinanciera cuenta : cuentas) {
-                System.out.printf("%d. %s%n", contador++, cuenta.obtenerDetalleImprimible());
-                System.out.printf("   Saldo: S/ %.2f%n%n", cuenta.getSaldo());
+                vista.mostrarFormato("%d. %s%n", contador++, cuenta.obtenerDetalleImprimible());
+                vista.mostrarFormato("   Saldo: S/ %s%n%n", Montos.formatear(cuenta.getSaldoCentimos()));
             }
 
-            Double patrimonioTotal = cuentaDAO.calcularPatrimonioTotal(usuario.getId());
-            System.out.println("-".repeat(60));
-            System.out.printf("PATRIMONIO TOTAL: S/ %.2f%n", patrimonioTotal);
-            System.out.println("=".repeat(60));
+            long patrimonioTotal = cuentaDAO.calcularPatrimonioTotal(usuario.getId());
+            vista.mostrarMensaje("-".repeat(60));
+            vista.mostrarFormato("PATRIMONIO TOTAL: S/ %s%n", Montos.formatear(patrimonioTotal));
+            vista.mostrarMensaje("=".repeat(60));
         }
 
         vista.esperarEnter();
     }
 
     public void crearCuentasDePrueba(Usuario usuario) {
-        System.out.println("\nModo Desarrollador: Creando cuentas de prueba...\n");
+        vista.mostrarMensaje("\nModo Desarrollador: Creando cuentas de prueba...\n");
 
         BilleteraDigital yape = new BilleteraDigital(
-            usuario.getId(), "987654321", 50.00, "Yape Personal", "BCP");
-        if (cuentaDAO.crear(yape) != null) System.out.println("Yape creada: S/ 50.00");
+            usuario.getId(), "987654321", 5_000L, "Yape Personal", "BCP");
+        if (cuentaDAO.crear(yape) != null) vista.mostrarMensaje("Yape creada: S/ 50.00");
 
         CuentaBancaria bcp = new CuentaBancaria(
-            usuario.getId(), "19312345678", 1500.00, "BCP", "00219300123456780123");
-        if (cuentaDAO.crear(bcp) != null) System.out.println("Cuenta BCP creada: S/ 1500.00");
+            usuario.getId(), "19312345678", 150_000L, "BCP", "00219300123456780123");
+        if (cuentaDAO.crear(bcp) != null) vista.mostrarMensaje("Cuenta BCP creada: S/ 1500.00");
 
         BilleteraDigital plin = new BilleteraDigital(
-            usuario.getId(), "987123456", 120.50, "Plin Personal", "Interbank");
-        if (cuentaDAO.crear(plin) != null) System.out.println("Plin creada: S/ 120.50");
+            usuario.getId(), "987123456", 12_050L, "Plin Personal", "Interbank");
+        if (cuentaDAO.crear(plin) != null) vista.mostrarMensaje("Plin creada: S/ 120.50");
 
-        System.out.println("\nCuentas de prueba creadas exitosamente.");
+        vista.mostrarMensaje("\nCuentas de prueba creadas exitosamente.");
         vista.esperarEnter();
     }
 
@@ -96,7 +97,7 @@ public class CuentaController {
                 vista.mostrarError("Todos los campos son obligatorios.");
                 return null;
             }
-            double saldo = Double.parseDouble(datos[3]);
+            long saldo = Montos.parsear(datos[3]);
             return new BilleteraDigital(usuario.getId(), datos[2], saldo, datos[0], datos[1]);
         } catch (NumberFormatException e) {
             vista.mostrarError("Error al procesar el saldo.");
@@ -111,7 +112,7 @@ public class CuentaController {
                 vista.mostrarError("El banco y numero de cuenta son obligatorios.");
                 return null;
             }
-            double saldo = Double.parseDouble(datos[3]);
+            long saldo = Montos.parsear(datos[3]);
             return new CuentaBancaria(usuario.getId(), datos[2], saldo, datos[0], datos[1]);
         } catch (NumberFormatException e) {
             vista.mostrarError("Error al procesar el saldo.");
@@ -15,7 +15,12 @@ public class LoginController {
     private Usuario usuarioActual;
 
     public LoginController() {
-        this.vista                 = new ConsoleView();
+        this(new ConsoleView());
+    }
+
+    /** Sesion sobre una vista ya construida (p. ej. una por conexion en el modo servidor). */
+    public LoginController(ConsoleView vista) {
+        this.vista                 = vista;
         this.usuarioDAO            = new UsuarioDAO();
         this.cuentaController      = new CuentaController(vista);
         this.operacionesController = new OperacionesController(vista);
@@ -1,23 +1,34 @@
 package controller;
 
 import dao.CuentaDAO;
+import dao.Granularidad;
+import dao.MotorReportes;
+import dao.PaginaMovimientos;
+import dao.ReporteTemporal;
+import dao.ResultadoMovimiento;
 import dao.TransaccionDAO;
+import dao.ResumenCategorias;
 import modelo.CuentaFinanciera;
+import modelo.Montos;
 import modelo.MovimientoRegistro;
 import modelo.Usuario;
 import view.ConsoleView;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 public class OperacionesController {
 
     private static final int CAPACIDAD_HISTORIAL = 5;
+    private static final int TAMANO_PAGINA       = 10;
+    private static final int PERIODOS_EVOLUCION  = 6;
 
     private final ConsoleView vista;
     private final TransaccionDAO transaccionDAO;
     private final CuentaDAO cuentaDAO;
+    private final MotorReportes motorReportes;
 
     private final LinkedList<MovimientoRegistro> historialSesion;
 
@@ -25,6 +36,7 @@ public class OperacionesController {
         this.vista           = vista;
         this.transaccionDAO  = new TransaccionDAO();
         this.cuentaDAO       = new CuentaDAO();
+        this.motorReportes   = new MotorReportes();
         this.historialSesion = new LinkedList<>();
     }
 
@@ -65,19 +77,17 @@ public class OperacionesController {
         if (cuentaIdx == -1) { vista.mostrarOperacionCancelada(); vista.esperarEnter(); return; }
 
         CuentaFinanciera cuenta = cuentas.get(cuentaIdx);
-        double monto = vista.solicitarMonto("Monto a ingresar");
+        long monto = vista.solicitarMonto("Monto a ingresar");
         String categoria  = vista.seleccionarCategoria(MovimientoRegistro.CATEGORIAS_INGRESO, "Categoria del ingreso");
         String descripcion = vista.solicitarDescripcion("Descripcion breve");
 
-        MovimientoRegistro resultado = transaccionDAO.registrarIngreso(cuenta.getId(), monto, descripcion, categoria);
+        ResultadoMovimiento resultado = transaccionDAO.registrarIngreso(cuenta.getId(), monto, descripcion, categoria);
 
-        if (resultado != null) {
-            agregarAlHistorial(resultado);
-            CuentaFinanciera actualizada = cuentaDAO.buscarPorId(cuenta.getId());
-            double nuevoSaldo = (actualizada != null) ? actualizada.getSaldo() : cuenta.getSaldo() + monto;
+        if (resultado.esExitoso()) {
+            agregarAlHistorial(resultado.getMovimiento());
             vista.mostrarExitoOperacion("INGRESO REGISTRADO",
-                String.format("+ S/ %.2f en %s  [%s]", monto, cuenta.obtenerDetalleImprimible(), categoria),
-                String.format("Nuevo saldo: S/ %.2f", nuevoSaldo));
+                String.format("+ S/ %s en %s  [%s]", Montos.formatear(monto), cuenta.obtenerDetalleImprimible(), categoria),
+                "Nuevo saldo: S/ " + Montos.formatear(resultado.getSaldoOrigenCentimos()));
         } else {
             vista.mostrarError("No se pudo registrar el ingreso. Cambios revertidos.");
         }
@@ -101,29 +111,24 @@ public class OperacionesController {
         if (cuentaIdx == -1) { vista.mostrarOperacionCancelada(); vista.esperarEnter(); return; }
 
         CuentaFinanciera cuenta = cuentas.get(cuentaIdx);
-        double monto = vista.solicitarMonto("Monto del gasto");
-
-        if (cuenta.getSaldo() < monto) {
-            vista.mostrarError(String.format(
-                "Saldo insuficiente. Disponible: S/ %.2f | Solicitado: S/ %.2f", cuenta.getSaldo(), monto));
-            vista.esperarEnter();
-            return;
-        }
+        long monto = vista.solicitarMonto("Monto del gasto");
 
         String categoria  = vista.seleccionarCategoria(MovimientoRegistro.CATEGORIAS_GASTO, "Categoria del gasto");
         String descripcion = vista.solicitarDescripcion("Descripcion breve");
 
-        MovimientoRegistro resultado = transaccionDAO.registrarGasto(cuenta.getId(), monto, descripcion, categoria);
+        ResultadoMovimiento resultado = transaccionDAO.registrarGasto(cuenta.getId(), monto, descripcion, categoria);
 
-        if (resultado != null) {
-            agregarAlHistorial(resultado);
-            CuentaFinanciera actualizada = cuentaDAO.buscarPorId(cuenta.getId());
-            double nuevoSaldo = (actualizada != null) ? actualizada.getSaldo() : cuenta.getSaldo() - monto;
-            vista.mostrarExitoOperacion("GASTO REGISTRADO",
-                String.format("- S/ %.2f en %s  [%s]", monto, cuenta.obtenerDetalleImprimible(), categoria),
-                String.format("Nuevo saldo: S/ %.2f", nuevoSaldo));
-        } else {
-            vista.mostrarError("No se pudo registrar el gasto. Cambios revertidos.");
+        switch (resultado.getEstado()) {
+            case EXITO -> {
+                agregarAlHistorial(resultado.getMovimiento());
+                vista.mostrarExitoOperacion("GASTO REGISTRADO",
+                    String.format("- S/ %s en %s  [%s]", Montos.formatear(monto), cuenta.obtenerDetalleImprimible(), categoria),
+                    "Nuevo saldo: S/ " + Montos.formatear(resultado.getSaldoOrigenCentimos()));
+            }
+            case SALDO_INSUFICIENTE -> vista.mostrarError(String.format(
+                "Saldo insuficiente. Disponible: S/ %s | Solicitado: S/ %s",
+                Montos.formatear(resultado.getSaldoDisponibleCentimos()), Montos.formatear(monto)));
+            case ERROR -> vista.mostrarError("No se pudo registrar el gasto. Cambios revertidos.");
         }
         vista.esperarEnter();
     }
@@ -156,15 +161,7 @@ public class OperacionesController {
             return;
         }
 
-        double monto = vista.solicitarMonto("Monto a transferir");
-
-        if (origen.getSaldo() < monto) {
-            vista.mostrarError(String.format(
-                "Saldo insuficiente en cuenta origen. Disponible: S/ %.2f | Solicitado: S/ %.2f",
-                origen.getSaldo(), monto));
-            vista.esperarEnter();
-            return;
-        }
+        long monto = vista.solicitarMonto("Monto a transferir");
 
         String descripcion = vista.solicitarDescripcion("Descripcion (Enter para omitir)");
         if (descripcion.isEmpty()) {
@@ -172,21 +169,23 @@ public class OperacionesController {
                 origen.obtenerDetalleImprimible(), destino.obtenerDetalleImprimible());
         }
 
-        MovimientoRegistro resultado = transaccionDAO.realizarTransferencia(
+        ResultadoMovimiento resultado = transaccionDAO.realizarTransferencia(
             origen.getId(), destino.getId(), monto, descripcion);
 
-        if (resultado != null) {
-            agregarAlHistorial(resultado);
-            CuentaFinanciera origenAct  = cuentaDAO.buscarPorId(origen.getId());
-            CuentaFinanciera destinoAct = cuentaDAO.buscarPorId(destino.getId());
-            double saldoOrigen  = (origenAct  != null) ? origenAct.getSaldo()  : origen.getSaldo()  - monto;
-            double saldoDestino = (destinoAct != null) ? destinoAct.getSaldo() : destino.getSaldo() + monto;
-            vista.mostrarExitoOperacion("TRANSFERENCIA REALIZADA",
-                String.format("S/ %.2f  %s  ->  %s", monto,
-                    origen.obtenerDetalleImprimible(), destino.obtenerDetalleImprimible()),
-                String.format("Saldo origen: S/ %.2f | Saldo destino: S/ %.2f", saldoOrigen, saldoDestino));
-        } else {
-            vista.mostrarError("No se pudo realizar la transferencia. Cambios revertidos.");
+        switch (resultado.getEstado()) {
+            case EXITO -> {
+                agregarAlHistorial(resultado.getMovimiento());
+                vista.mostrarExitoOperacion("TRANSFERENCIA REALIZADA",
+                    String.format("S/ %s  %s  ->  %s", Montos.formatear(monto),
+                        origen.obtenerDetalleImprimible(), destino.obtenerDetalleImprimible()),
+                    String.format("Saldo origen: S/ %s | Saldo destino: S/ %s",
+                        Montos.formatear(resultado.getSaldoOrigenCentimos()),
+                        Montos.formatear(resultado.getSaldoDestinoCentimos())));
+            }
+            case SALDO_INSUFICIENTE -> vista.mostrarError(String.format(
+                "Saldo insuficiente en cuenta origen. Disponible: S/ %s | Solicitado: S/ %s",
+                Montos.formatear(resultado.getSaldoDisponibleCentimos()), Montos.formatear(monto)));
+            case ERROR -> vista.mostrarError("No se pudo realizar la transferencia. Cambios revertidos.");
         }
         vista.esperarEnter();
     }
@@ -208,7 +207,7 @@ public class OperacionesController {
 
     /**
      * Muestra los ultimos movimientos. Prioriza el historial en memoria de la sesion actual;
-     * si esta vacio, consulta la base de datos como respaldo.
+     * si esta vacio, consulta la base de datos como respaldo, de a una pagina por vez.
      */
     private void verUltimosMovimientos(Usuario usuario) {
         vista.mostrarCabecera("ULTIMOS MOVIMIENTOS");
@@ -217,11 +216,19 @@ public class OperacionesController {
             vista.mostrarMensaje("(Historial de la sesion actual)");
             vista.mostrarListaMovimientos(historialSesion);
         } else {
-            List<MovimientoRegistro> movimientos = transaccionDAO.listarUltimosMovimientos(usuario.getId(), 10);
-            if (movimientos.isEmpty()) {
+            PaginaMovimientos pagina = transaccionDAO.listarMovimientosPaginados(usuario.getId(), null, TAMANO_PAGINA);
+            if (pagina.getMovimientos().isEmpty()) {
                 vista.mostrarMensaje("Aun no tienes movimientos registrados.");
-            } else {
-                vista.mostrarListaMovimientos(movimientos);
+                vista.esperarEnter();
+                return;
+            }
+            vista.mostrarListaMovimientos(pagina.getMovimientos());
+
+            while (pagina.hayMas()) {
+                vista.mostrarPregunta("Ver movimientos mas antiguos? (s/n): ");
+                if (!vista.leerLinea().equalsIgnoreCase("s")) return;
+                pagina = transaccionDAO.listarMovimientosPaginados(usuario.getId(), pagina.getSiguiente(), TAMANO_PAGINA);
+                vista.mostrarListaMovimientos(pagina.getMovimientos());
             }
         }
         vista.esperarEnter();
@@ -232,8 +239,27 @@ public class OperacionesController {
     // ─────────────────────────────────────────────────────────────────────────
 
     public void verReporteAnalitico(Usuario usuario) {
-        Map<String, Double> resumenGastos   = transaccionDAO.obtenerResumenGastos(usuario.getId());
-        Map<String, Double> resumenIngresos = transaccionDAO.obtenerResumenIngresos(usuario.getId());
+        ResumenCategorias resumenGastos   = transaccionDAO.obtenerResumenGastos(usuario.getId());
+        ResumenCategorias resumenIngresos = transaccionDAO.obtenerResumenIngresos(usuario.getId());
         vista.mostrarReporteAnalitico(resumenGastos, resumenIngresos);
     }
+
+    /**
+     * Reporte del periodo en curso (hoy, esta semana, este mes o este anio) y la evolucion
+     * del gasto en los ultimos periodos. Los periodos se cortan en UTC, igual que las fechas guardadas.
+     */
+    public void verReportePeriodo(Usuario usuario, Granularidad granularidad) {
+        LocalDate inicio    = granularidad.inicioPeriodo(LocalDate.now(ZoneOffset.UTC));
+        LocalDate siguiente = granularidad.siguiente(inicio);
+
+        ResumenCategorias gastos   = motorReportes.resumenPorCategoria(usuario.getId(), MovimientoRegistro.Tipo.GASTO, inicio, siguiente);
+        ResumenCategorias ingresos = motorReportes.resumenPorCategoria(usuario.getId(), MovimientoRegistro.Tipo.INGRESO, inicio, siguiente);
+        vista.mostrarReporteAnalitico("REPORTE " + granularidad + " " + granularidad.etiqueta(inicio), gastos, ingresos);
+
+        LocalDate desde = inicio;
+        for (int i = 1; i < PERIODOS_EVOLUCION; i++) desde = granularidad.inicioPeriodo(desde.minusDays(1));
+        ReporteTemporal evolucion = motorReportes.serie(usuario.getId(), MovimientoRegistro.Tipo.GASTO,
+                desde, siguiente, granularidad, MotorReportes.Desglose.NINGUNO);
+        if (evolucion != null) vista.mostrarEvolucion("EVOLUCION DEL GASTO", evolucion);
+    }
 }
@@ -0,0 +1,249 @@
+package dao;
+
+import modelo.CuentaFinanciera;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache en memoria de las cuentas de cada usuario, con escritura directa (write-through).
+ *
+ * {@link CuentaDAO} la consulta antes de ir a la BD, y los DAOs que modifican cuentas le
+ * aplican el saldo resultante justo despues del commit, mientras aun tienen la conexion
+ * escritora; como esa conexion es unica, la cache recibe los saldos en el orden de los commits.
+ *
+ * Concurrencia: toda escritura incrementa una generacion global. Quien llena la cache tras
+ * un fallo lee la generacion ANTES de consultar la BD y la entrega en {@link #poner}; si entre
+ * tanto hubo una escritura, la lectura puede estar vieja y se descarta. El costo de un conflicto
+ * es solo no cachear esa lectura.
+ *
+ * Desalojo LRU por usuario ({@code chatfinance.cache.cuentas.usuarios}, 1024 por defecto; 0 la
+ * desactiva) y expiracion por antiguedad ({@code chatfinance.cache.cuentas.ttlSeg}, 300 s), que
+ * acota cuanto tiempo se ve un cambio hecho fuera de los DAOs. Quien modifique cuentas por otra
+ * via debe llamar a {@link #limpiar()}.
+ *
+ * Entrega siempre copias: los llamadores pueden modificar las cuentas recibidas sin afectarla.
+ */
+public final class CacheCuentas {
+
+    private static final int  CAPACIDAD = Integer.getInteger("chatfinance.cache.cuentas.usuarios", 1024);
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("chatfinance.cache.cuentas.ttlSeg", 300L));
+
+    private static final CacheCuentas INSTANCIA = new CacheCuentas(CAPACIDAD, TTL_NANOS);
+
+    /** Cuentas de un usuario (copias propias, mas recientes primero) y su vencimiento. */
+    private static final class Entrada {
+        final List<CuentaFinanciera> cuentas;
+        final long expiraNanos;
+
+        Entrada(List<CuentaFinanciera> cuentas, long expiraNanos) {
+            this.cuentas     = cuentas;
+            this.expiraNanos = expiraNanos;
+        }
+    }
+
+    private final long ttlNanos;
+    private final Map<Integer, Entrada> porUsuario;
+    private final Map<Integer, Integer> usuarioPorCuenta = new HashMap<>();
+    private long generacion;
+
+    private final LongAdder aciertos    = new LongAdder();
+    private final LongAdder fallos      = new LongAdder();
+    private final LongAdder expiradas   = new LongAdder();
+    private final LongAdder desalojos   = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder escrituras  = new LongAdder();
+
+    private CacheCuentas(int capacidad, long ttlNanos) {
+        this.ttlNanos   = ttlNanos;
+        this.porUsuario = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entrada> eldest) {
+                if (size() <= capacidad) return false;
+                desalojos.increment();
+                desindexar(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public static CacheCuentas getInstance() {
+        return INSTANCIA;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Lectura
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Generacion actual; se lee antes de consultar la BD y se pasa a {@link #poner}. */
+    synchronized long generacion() {
+        return generacion;
+    }
+
+    /** Copias de las cuentas del usuario, o null si no estan en cache o expiraron. */
+    synchronized List<CuentaFinanciera> listar(int usuarioId) {
+        Entrada entrada = vigente(usuarioId);
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        List<CuentaFinanciera> copias = new ArrayList<>(entrada.cuentas.size());
+        for (CuentaFinanciera cuenta : entrada.cuentas) copias.add(cuenta.copiar());
+        return copias;
+    }
+
+    /** Copia de la cuenta si su usuario esta en cache, o null. */
+    synchronized CuentaFinanciera buscar(int cuentaId) {
+        Integer usuarioId = usuarioPorCuenta.get(cuentaId);
+        Entrada entrada = (usuarioId != null) ? vigente(usuarioId) : null;
+        if (entrada != null) {
+            for (CuentaFinanciera cuenta : entrada.cuentas) {
+                if (cuenta.getId() == cuentaId) {
+                    aciertos.increment();
+                    return cuenta.copiar();
+                }
+            }
+        }
+        fallos.increment();
+        return null;
+    }
+
+    /**
+     * Guarda las cuentas leidas de la BD, salvo que haya habido una escritura despues de
+     * {@code generacionLeida}.
+     *
+     * @return true si se guardaron
+     */
+    synchronized boolean poner(int usuarioId, List<CuentaFinanciera> cuentas, long generacionLeida) {
+        if (generacionLeida != generacion) {
+            descartadas.increment();
+            return false;
+        }
+        Entrada anterior = porUsuario.remove(usuarioId);
+        if (anterior != null) desindexar(anterior);
+
+        List<CuentaFinanciera> copias = new ArrayList<>(cuentas.size());
+        for (CuentaFinanciera cuenta : cuentas) {
+            copias.add(cuenta.copiar());
+            usuarioPorCuenta.put(cuenta.getId(), usuarioId);
+        }
+        porUsuario.put(usuarioId, new Entrada(copias, System.nanoTime() + ttlNanos));
+        return true;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Escritura directa (se invocan tras el commit, con la conexion escritora prestada)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Fija el saldo confirmado de una cuenta. */
+    synchronized void actualizarSaldo(int usuarioId, int cuentaId, long saldoCentimos) {
+        generacion++;
+        escrituras.increment();
+        Entrada entrada = porUsuario.get(usuarioId);
+        if (entrada == null) return;
+
+        for (CuentaFinanciera cuenta : entrada.cuentas) {
+            if (cuenta.getId() == cuentaId) {
+                cuenta.setSaldoCentimos(saldoCentimos);
+                return;
+            }
+        }
+        // La cuenta no estaba en la entrada: se descarta en lugar de adivinar su posicion.
+        invalidarSinContar(usuarioId);
+    }
+
+    /** Agrega una cuenta recien creada al inicio de la lista de su usuario. */
+    synchronized void agregar(CuentaFinanciera cuenta) {
+        generacion++;
+        escrituras.increment();
+        Entrada entrada = porUsuario.get(cuenta.getUsuarioId());
+        if (entrada == null) return;
+
+        entrada.cuentas.add(0, cuenta.copiar());
+        usuarioPorCuenta.put(cuenta.getId(), cuenta.getUsuarioId());
+    }
+
+    /** Descarta las cuentas cacheadas del usuario. */
+    public synchronized void invalidar(int usuarioId) {
+        generacion++;
+        invalidarSinContar(usuarioId);
+    }
+
+    /** Descarta toda la cache. */
+    public synchronized void limpiar() {
+        generacion++;
+        porUsuario.clear();
+        usuarioPorCuenta.clear();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Instantanea de las metricas de la cache.
+     *
+     * @param usuarios    Usuarios con cuentas en cache
+     * @param aciertos    Lecturas servidas desde la cache
+     * @param fallos      Lecturas que tuvieron que ir a la BD
+     * @param expiradas   Entradas descartadas por TTL al leerlas
+     * @param desalojos   Entradas descartadas por LRU
+     * @param descartadas Lecturas de BD no cacheadas por una escritura concurrente
+     * @param escrituras  Saldos y cuentas nuevas aplicados por escritura directa
+     */
+    public record Estadisticas(int usuarios, long aciertos, long fallos, long expiradas,
+                               long desalojos, long descartadas, long escrituras) {
+
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0.0 : (double) aciertos / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "CacheCuentas{usuarios=%d, aciertos=%d, fallos=%d, tasa=%.1f%%, expiradas=%d, desalojos=%d, " +
+                "descartadas=%d, escrituras=%d}",
+                usuarios, aciertos, fallos, tasaAciertos() * 100, expiradas, desalojos, descartadas, escrituras);
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        int usuarios;
+        synchronized (this) {
+            usuarios = porUsuario.size();
+        }
+        return new Estadisticas(usuarios, aciertos.sum(), fallos.sum(), expiradas.sum(),
+                desalojos.sum(), descartadas.sum(), escrituras.sum());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Internos (llamados con el monitor tomado)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private Entrada vigente(int usuarioId) {
+        Entrada entrada = porUsuario.get(usuarioId);
+        if (entrada == null) return null;
+        if (System.nanoTime() - entrada.expiraNanos > 0) {
+            expiradas.increment();
+            invalidarSinContar(usuarioId);
+            return null;
+        }
+        return entrada;
+    }
+
+    private void invalidarSinContar(int usuarioId) {
+        Entrada entrada = porUsuario.remove(usuarioId);
+        if (entrada != null) desindexar(entrada);
+    }
+
+    private void desindexar(Entrada entrada) {
+        for (CuentaFinanciera cuenta : entrada.cuentas) usuarioPorCuenta.remove(cuenta.getId());
+    }
+}
@@ -0,0 +1,270 @@
+package dao;
+
+import util.ConexionPrestada;
+import util.DatabaseConnection;
+import util.Hilos;
+import util.Metricas;
+import util.UnidadDeTrabajo;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cola de un unico hilo escritor para los ingresos, gastos y transferencias (group commit).
+ *
+ * Los llamadores encolan operaciones y reciben un {@link CompletableFuture}. El hilo escritor
+ * toma la primera operacion pendiente, junta las que llegan dentro de una ventana corta
+ * ({@code chatfinance.escritura.ventanaMicros}, 500 us por defecto) hasta
+ * {@code chatfinance.escritura.maxLote} (64) y las aplica en una sola transaccion: un solo
+ * commit, y un solo fsync, por lote.
+ *
+ * Cada operacion corre dentro de su propio SAVEPOINT: si falla o su debito es rechazado se
+ * deshace solo ella y las demas del lote siguen. Si el commit falla, todas las operaciones del
+ * lote terminan en {@link ResultadoMovimiento.Estado#ERROR}. Los saldos se publican en
+ * {@link CacheCuentas} tras el commit, en el orden en que se aplicaron.
+ *
+ * La cola es acotada ({@code chatfinance.escritura.cola}, 1024): si se llena, {@link #enviar}
+ * bloquea al llamador hasta que haya lugar.
+ */
+public final class ColaEscritura {
+
+    private static final int  CAPACIDAD      = Integer.getInteger("chatfinance.escritura.cola", 1024);
+    private static final int  MAX_LOTE       = Integer.getInteger("chatfinance.escritura.maxLote", 64);
+    private static final long VENTANA_NANOS  = TimeUnit.MICROSECONDS.toNanos(Long.getLong("chatfinance.escritura.ventanaMicros", 500L));
+
+    private static ColaEscritura instancia;
+
+    /**
+     * Operacion que se aplica dentro de la transaccion del lote. No confirma ni revierte: la
+     * cola se encarga. Agrega a {@code saldos} los saldos que modifico, para publicarlos tras el commit.
+     */
+    @FunctionalInterface
+    interface Operacion {
+        ResultadoMovimiento aplicar(ConexionPrestada prestamo, List<TransaccionDAO.SaldoActualizado> saldos)
+                throws SQLException;
+    }
+
+    private record Pendiente(Operacion operacion, CompletableFuture<ResultadoMovimiento> futuro, long encolada) { }
+
+    /** Marca de fin: el escritor termina al encontrarla. */
+    private static final Pendiente FIN = new Pendiente(null, null, 0L);
+
+    private final BlockingQueue<Pendiente> cola = new ArrayBlockingQueue<>(CAPACIDAD);
+    private final Thread escritor;
+    private volatile boolean cerrada;
+
+    private final LongAdder lotes          = new LongAdder();
+    private final LongAdder operaciones    = new LongAdder();
+    private final LongAdder fallidas       = new LongAdder();
+    private final LongAdder esperaNanos    = new LongAdder();
+    private final LongAdder commitNanos    = new LongAdder();
+    private volatile int    loteMaximo;
+
+    private ColaEscritura() {
+        escritor = Hilos.fabrica("escritor-bd").newThread(this::ejecutar);
+        escritor.start();
+    }
+
+    public static synchronized ColaEscritura getInstance() {
+        if (instancia == null) instancia = new ColaEscritura();
+        return instancia;
+    }
+
+    /**
+     * Encola una operacion.
+     *
+     * @return Futuro que se completa con el resultado de la operacion tras el commit de su lote
+     *         (nunca excepcionalmente, salvo un error inesperado del escritor)
+     */
+    CompletableFuture<ResultadoMovimiento> enviar(Operacion operacion) {
+        CompletableFuture<ResultadoMovimiento> futuro = new CompletableFuture<>();
+        if (cerrada) {
+            futuro.complete(ResultadoMovimiento.error("La cola de escritura esta cerrada"));
+            return futuro;
+        }
+        try {
+            cola.put(new Pendiente(operacion, futuro, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.complete(ResultadoMovimiento.error("Interrumpido al encolar la escritura"));
+        }
+        return futuro;
+    }
+
+    /** Aplica lo que ya esta encolado y detiene el escritor. Para el cierre de la aplicacion. */
+    public static void detener() {
+        ColaEscritura actual;
+        synchronized (ColaEscritura.class) {
+            actual = instancia;
+            instancia = null;
+        }
+        if (actual == null) return;
+
+        actual.cerrada = true;
+        try {
+            actual.cola.put(FIN);
+            actual.escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Metricas.imprimir(actual.getEstadisticas());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Hilo escritor
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private void ejecutar() {
+        List<Pendiente> lote = new ArrayList<>(MAX_LOTE);
+        boolean fin = false;
+        while (!fin) {
+            try {
+                Pendiente primera = cola.take();
+                if (primera == FIN) break;
+                lote.add(primera);
+                fin = reunir(lote);
+            } catch (InterruptedException e) {
+                fin = true;
+            }
+            if (!lote.isEmpty()) {
+                confirmar(lote);
+                lote.clear();
+            }
+        }
+        // Lo que llego despues de la marca de fin no se aplica.
+        for (Pendiente p; (p = cola.poll()) != null; ) {
+            if (p != FIN) p.futuro().complete(ResultadoMovimiento.error("La cola de escritura esta cerrada"));
+        }
+    }
+
+    /** Agrega al lote lo que llegue dentro de la ventana; true si encontro la marca de fin. */
+    private boolean reunir(List<Pendiente> lote) throws InterruptedException {
+        long limite = System.nanoTime() + VENTANA_NANOS;
+        while (lote.size() < MAX_LOTE) {
+            Pendiente siguiente = cola.poll();
+            if (siguiente == null) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) break;
+                siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                if (siguiente == null) break;
+            }
+            if (siguiente == FIN) return true;
+            lote.add(siguiente);
+        }
+        return false;
+    }
+
+    private void confirmar(List<Pendiente> lote) {
+        long inicio = System.nanoTime();
+        for (Pendiente p : lote) esperaNanos.add(inicio - p.encolada());
+
+        ResultadoMovimiento[] resultados = new ResultadoMovimiento[lote.size()];
+        List<TransaccionDAO.SaldoActualizado> saldos = new ArrayList<>();
+
+        try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+            int primerId = Integer.MAX_VALUE;
+            int ultimoId = Integer.MIN_VALUE;
+            for (int i = 0; i < lote.size(); i++) {
+                resultados[i] = aplicar(unidad, lote.get(i).operacion(), saldos);
+                if (resultados[i].esExitoso()) {
+                    int id = resultados[i].getMovimiento().getId();
+                    primerId = Math.min(primerId, id);
+                    ultimoId = Math.max(ultimoId, id);
+                }
+            }
+            // Un solo agregado del resumen mensual para todo el lote: sus ids son los mas altos de la tabla.
+            if (primerId <= ultimoId) TransaccionDAO.acumularResumen(unidad.prestamo(), primerId, ultimoId);
+
+            unidad.alConfirmar(() -> saldos.forEach(TransaccionDAO::publicar));
+            unidad.confirmar();
+
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error al confirmar lote de " + lote.size() + " escrituras. ROLLBACK ejecutado: " + e.getMessage());
+            e.printStackTrace();
+            ResultadoMovimiento error = ResultadoMovimiento.error(e.getMessage());
+            Arrays.fill(resultados, error);
+        }
+
+        lotes.increment();
+        operaciones.add(lote.size());
+        commitNanos.add(System.nanoTime() - inicio);
+        if (lote.size() > loteMaximo) loteMaximo = lote.size();
+        for (int i = 0; i < lote.size(); i++) {
+            if (!resultados[i].esExitoso()) fallidas.increment();
+            lote.get(i).futuro().complete(resultados[i]);
+        }
+    }
+
+    /**
+     * Aplica una operacion en su propio SAVEPOINT; si no tuvo exito o lanzo una excepcion
+     * (SQLException o RuntimeException), la deshace sin tocar al resto del lote.
+     */
+    private static ResultadoMovimiento aplicar(UnidadDeTrabajo unidad, Operacion operacion,
+                                               List<TransaccionDAO.SaldoActualizado> saldos) throws SQLException {
+        Savepoint punto = unidad.marcar();
+        int saldosPrevios = saldos.size();
+        ResultadoMovimiento resultado;
+        try {
+            resultado = operacion.aplicar(unidad.prestamo(), saldos);
+        } catch (SQLException e) {
+            System.err.println("Escritura revertida dentro del lote: " + e.getMessage());
+            resultado = ResultadoMovimiento.error(e.getMessage());
+        } catch (RuntimeException e) {
+            // Un error de programacion en una operacion no debe arrastrar al resto del lote.
+            System.err.println("Escritura revertida dentro del lote por un error inesperado: " + e);
+            e.printStackTrace();
+            resultado = ResultadoMovimiento.error(e.toString());
+        }
+        if (resultado.esExitoso()) {
+            unidad.liberar(punto);
+        } else {
+            unidad.deshacerHasta(punto);
+            saldos.subList(saldosPrevios, saldos.size()).clear();
+        }
+        return resultado;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Instantanea de las metricas de la cola.
+     *
+     * @param lotes       Transacciones confirmadas (o revertidas) por el escritor
+     * @param operaciones Operaciones aplicadas
+     * @param fallidas    Operaciones que no terminaron en EXITO (saldo insuficiente o error)
+     * @param loteMaximo  Mayor cantidad de operaciones en un lote
+     * @param esperaNanos Tiempo total que las operaciones esperaron en la cola
+     * @param commitNanos Tiempo total aplicando y confirmando lotes
+     */
+    public record Estadisticas(long lotes, long operaciones, long fallidas, int loteMaximo,
+                               long esperaNanos, long commitNanos) {
+
+        public double operacionesPorLote() {
+            return lotes == 0 ? 0.0 : (double) operaciones / lotes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "ColaEscritura{lotes=%d, operaciones=%d, fallidas=%d, porLote=%.1f, loteMax=%d, esperaProm=%.3f ms, " +
+                "loteProm=%.3f ms}",
+                lotes, operaciones, fallidas, operacionesPorLote(), loteMaximo,
+                operaciones == 0 ? 0.0 : esperaNanos / 1e6 / operaciones, lotes == 0 ? 0.0 : commitNanos / 1e6 / lotes);
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(lotes.sum(), operaciones.sum(), fallidas.sum(), loteMaximo,
+                esperaNanos.sum(), commitNanos.sum());
+    }
+}
@@ -3,7 +3,9 @@ package dao;
 import modelo.BilleteraDigital;
 import modelo.CuentaBancaria;
 import modelo.CuentaFinanciera;
+import util.ConexionPrestada;
 import util.DatabaseConnection;
+import util.UnidadDeTrabajo;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -13,11 +15,32 @@ import java.util.List;
 /**
  * DAO para cuentas financieras. Implementa Single Table Inheritance.
  * Implementa {@link CrudRepository} exponiendo las operaciones CRUD estándar.
+ *
+ * Las lecturas por usuario y por id pasan primero por {@link CacheCuentas}; las escrituras
+ * la actualizan tras confirmar en la BD.
  */
 public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
 
-    private static final String SQL_SELECCIONAR =
-            "SELECT id, usuario_id, numero_cuenta, saldo, tipo_cuenta, alias, proveedor, banco, cci FROM cuentas";
+    static final String SQL_SELECCIONAR =
+            "SELECT id, usuario_id, numero_cuenta, saldo_centimos, tipo_cuenta, alias, proveedor, banco, cci FROM cuentas";
+
+    static final String SQL_INSERTAR =
+            "INSERT INTO cuentas (usuario_id, numero_cuenta, saldo_centimos, tipo_cuenta, alias, proveedor, banco, cci) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String SQL_BUSCAR_POR_ID =
+            SQL_SELECCIONAR + " WHERE id = ?";
+
+    static final String SQL_LISTAR_POR_USUARIO =
+            SQL_SELECCIONAR + " WHERE usuario_id = ? ORDER BY fecha_creacion DESC";
+
+    static final String SQL_PATRIMONIO_TOTAL =
+            "SELECT COALESCE(SUM(saldo_centimos), 0) AS total FROM cuentas WHERE usuario_id = ?";
+
+    static final String SQL_ACTUALIZAR_SALDO =
+            "UPDATE cuentas SET saldo_centimos = ? WHERE id = ? RETURNING usuario_id";
+
+    private final CacheCuentas cache = CacheCuentas.getInstance();
 
     // ─────────────────────────────────────────────────────────────────────────
     // CrudRepository
@@ -29,15 +52,12 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
      */
     @Override
     public CuentaFinanciera guardar(CuentaFinanciera cuenta) {
-        String sql = "INSERT INTO cuentas (usuario_id, numero_cuenta, saldo, tipo_cuenta, alias, proveedor, banco, cci) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+            PreparedStatement pstmt = unidad.preparar(SQL_INSERTAR, true);
 
             pstmt.setInt(1, cuenta.getUsuarioId());
             pstmt.setString(2, cuenta.getNumeroCuenta());
-            pstmt.setDouble(3, cuenta.getSaldo());
+            pstmt.setLong(3, cuenta.getSaldoCentimos());
             pstmt.setString(4, cuenta.getTipoCuenta());
 
             if (cuenta instanceof BilleteraDigital billetera) {
@@ -57,6 +77,8 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
                 try (ResultSet llaves = pstmt.getGeneratedKeys()) {
                     if (llaves.next()) cuenta.setId(llaves.getInt(1));
                 }
+                unidad.alConfirmar(() -> cache.agregar(cuenta));
+                unidad.confirmar();
                 return cuenta;
             }
 
@@ -74,10 +96,11 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
 
     @Override
     public CuentaFinanciera buscarPorId(Integer id) {
-        String sql = SQL_SELECCIONAR + " WHERE id = ?";
+        CuentaFinanciera cacheada = cache.buscar(id);
+        if (cacheada != null) return cacheada;
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(SQL_BUSCAR_POR_ID);
 
             pstmt.setInt(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -97,9 +120,8 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
     @Override
     public List<CuentaFinanciera> listarTodos() {
         List<CuentaFinanciera> cuentas = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_SELECCIONAR);
-             ResultSet rs = pstmt.executeQuery()) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura();
+             ResultSet rs = prestamo.preparar(SQL_SELECCIONAR).executeQuery()) {
 
             while (rs.next()) {
                 CuentaFinanciera cuenta = mapearFila(rs);
@@ -116,12 +138,16 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
     // Consultas específicas de dominio
     // ─────────────────────────────────────────────────────────────────────────
 
+    /** Cuentas del usuario, mas recientes primero. Servidas desde la cache si estan vigentes. */
     public List<CuentaFinanciera> listarPorUsuario(int usuarioId) {
+        List<CuentaFinanciera> cacheadas = cache.listar(usuarioId);
+        if (cacheadas != null) return cacheadas;
+
         List<CuentaFinanciera> cuentas = new ArrayList<>();
-        String sql = SQL_SELECCIONAR + " WHERE usuario_id = ? ORDER BY fecha_creacion DESC";
+        long generacion = cache.generacion();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(SQL_LISTAR_POR_USUARIO);
 
             pstmt.setInt(1, usuarioId);
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -130,6 +156,7 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
                     if (cuenta != null) cuentas.add(cuenta);
                 }
             }
+            cache.poner(usuarioId, cuentas, generacion);
         } catch (SQLException e) {
             System.err.println("Error al listar cuentas del usuario " + usuarioId + ": " + e.getMessage());
             e.printStackTrace();
@@ -137,32 +164,36 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
         return cuentas;
     }
 
-    public Double calcularPatrimonioTotal(int usuarioId) {
-        String sql = "SELECT SUM(saldo) AS total FROM cuentas WHERE usuario_id = ?";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /** Suma de los saldos del usuario, en centimos. */
+    public long calcularPatrimonioTotal(int usuarioId) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(SQL_PATRIMONIO_TOTAL);
 
             pstmt.setInt(1, usuarioId);
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) return rs.getDouble("total");
+                if (rs.next()) return rs.getLong("total");
             }
         } catch (SQLException e) {
             System.err.println("Error al calcular patrimonio total: " + e.getMessage());
             e.printStackTrace();
         }
-        return 0.0;
+        return 0L;
     }
 
-    public boolean actualizarSaldo(int id, double nuevoSaldo) {
-        String sql = "UPDATE cuentas SET saldo = ? WHERE id = ?";
+    public boolean actualizarSaldo(int id, long nuevoSaldoCentimos) {
+        try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+            PreparedStatement pstmt = unidad.preparar(SQL_ACTUALIZAR_SALDO);
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setDouble(1, nuevoSaldo);
+            pstmt.setLong(1, nuevoSaldoCentimos);
             pstmt.setInt(2, id);
-            return pstmt.executeUpdate() > 0;
+            int usuarioId;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return false;
+                usuarioId = rs.getInt(1);
+            }
+            unidad.alConfirmar(() -> cache.actualizarSaldo(usuarioId, id, nuevoSaldoCentimos));
+            unidad.confirmar();
+            return true;
 
         } catch (SQLException e) {
             System.err.println("Error al actualizar saldo de cuenta id=" + id + ": " + e.getMessage());
@@ -185,7 +216,7 @@ public class CuentaDAO implements CrudRepository<CuentaFinanciera, Integer> {
         int    id          = rs.getInt("id");
         int    usuarioId   = rs.getInt("usuario_id");
         String numero      = rs.getString("numero_cuenta");
-        double saldo       = rs.getDouble("saldo");
+        long   saldo       = rs.getLong("saldo_centimos");
         String tipo        = rs.getString("tipo_cuenta");
 
         return switch (tipo) {
@@ -0,0 +1,66 @@
+package dao;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Tamano de los periodos de un {@link ReporteTemporal}.
+ *
+ * Cada constante sabe agrupar en SQL (sobre {@code t.fecha} o sobre el {@code mes} del resumen)
+ * y enumerar en Java los mismos periodos con la misma etiqueta, para devolver series sin huecos.
+ * Las semanas empiezan el lunes y se etiquetan con la fecha de ese lunes.
+ */
+public enum Granularidad {
+
+    DIA   ("date(t.fecha)",                            null),
+    SEMANA("date(t.fecha, 'weekday 0', '-6 days')",    null),
+    MES   ("strftime('%Y-%m', t.fecha)",               "r.mes"),
+    ANIO  ("strftime('%Y', t.fecha)",                  "substr(r.mes, 1, 4)");
+
+    private final String sqlFecha;
+    private final String sqlMes;
+
+    Granularidad(String sqlFecha, String sqlMes) {
+        this.sqlFecha = sqlFecha;
+        this.sqlMes   = sqlMes;
+    }
+
+    /** Expresion SQL que lleva {@code t.fecha} a la etiqueta de su periodo. */
+    String sqlFecha() { return sqlFecha; }
+
+    /** Expresion SQL sobre {@code r.mes} de resumen_categorias, o null si el periodo es menor a un mes. */
+    String sqlMes() { return sqlMes; }
+
+    boolean admiteResumenMensual() { return sqlMes != null; }
+
+    /** Primer dia del periodo que contiene a {@code fecha}. */
+    public LocalDate inicioPeriodo(LocalDate fecha) {
+        return switch (this) {
+            case DIA    -> fecha;
+            case SEMANA -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES    -> fecha.withDayOfMonth(1);
+            case ANIO   -> fecha.withDayOfYear(1);
+        };
+    }
+
+    /** Inicio del periodo siguiente a uno que empieza en {@code inicio}. */
+    public LocalDate siguiente(LocalDate inicio) {
+        return switch (this) {
+            case DIA    -> inicio.plusDays(1);
+            case SEMANA -> inicio.plusWeeks(1);
+            case MES    -> inicio.plusMonths(1);
+            case ANIO   -> inicio.plusYears(1);
+        };
+    }
+
+    /** Etiqueta del periodo que empieza en {@code inicio}; coincide con la de {@link #sqlFecha()}. */
+    public String etiqueta(LocalDate inicio) {
+        String iso = inicio.toString();
+        return switch (this) {
+            case DIA, SEMANA -> iso;
+            case MES         -> iso.substring(0, 7);
+            case ANIO        -> iso.substring(0, 4);
+        };
+    }
+}
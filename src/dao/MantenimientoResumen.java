@@ -0,0 +1,109 @@
+package dao;
+
+import util.ConexionPrestada;
+import util.DatabaseConnection;
+import util.UnidadDeTrabajo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reconstruccion y verificacion de la tabla {@code resumen_categorias}.
+ *
+ * El resumen se mantiene de forma incremental en cada escritura de {@link TransaccionDAO};
+ * estos comandos sirven para repararlo (p. ej. tras editar transacciones a mano en la BD)
+ * y para comprobar que coincide con el historial.
+ *
+ * Uso: {@code Main --reconstruir-resumen} o {@code Main --verificar-resumen}
+ * (este ultimo termina con codigo 1 si hay diferencias).
+ */
+public final class MantenimientoResumen {
+
+    static final String SQL_VACIAR = "DELETE FROM resumen_categorias";
+
+    // Filas del agregado recalculado que no coinciden con el resumen, y filas del resumen que
+    // sobran. Cada fila sale como (origen, usuario_id, tipo, categoria, mes, total, cantidad).
+    static final String SQL_DIFERENCIAS =
+            "WITH esperado (usuario_id, tipo, categoria, mes, total_centimos, cantidad) AS (" +
+            TransaccionDAO.SQL_AGREGAR_MOVIMIENTOS + "), " +
+            "actual AS (SELECT usuario_id, tipo, categoria, mes, total_centimos, cantidad FROM resumen_categorias) " +
+            "SELECT 'esperado', * FROM (SELECT * FROM esperado EXCEPT SELECT * FROM actual) " +
+            "UNION ALL " +
+            "SELECT 'resumen', * FROM (SELECT * FROM actual EXCEPT SELECT * FROM esperado)";
+
+    private MantenimientoResumen() { }
+
+    /**
+     * Vacia el resumen y lo recalcula desde el historial completo en una sola transaccion.
+     *
+     * @return Filas del resumen resultante, o -1 si fallo (el resumen anterior queda intacto)
+     */
+    public static int reconstruir() {
+        try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+            unidad.preparar(SQL_VACIAR).executeUpdate();
+
+            PreparedStatement acumular = unidad.preparar(TransaccionDAO.SQL_ACUMULAR_RESUMEN);
+            acumular.setInt(1, 0);
+            acumular.setInt(2, Integer.MAX_VALUE);
+            int filas = acumular.executeUpdate();
+
+            unidad.confirmar();
+            return filas;
+
+        } catch (SQLException e) {
+            System.err.println("Error al reconstruir el resumen. ROLLBACK ejecutado: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Compara el resumen contra el agregado recalculado del historial.
+     *
+     * @return Descripcion de cada fila distinta; vacia si el resumen es consistente
+     */
+    public static List<String> verificar() {
+        List<String> diferencias = new ArrayList<>();
+
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(SQL_DIFERENCIAS);
+            pstmt.setInt(1, 0);
+            pstmt.setInt(2, Integer.MAX_VALUE);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    diferencias.add(String.format("%-8s usuario=%d %s %s %s total=%d cantidad=%d",
+                            rs.getString(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), rs.getLong(6), rs.getInt(7)));
+                }
+            }
+        } catch (SQLException e) {
+            diferencias.add("No se pudo verificar el resumen: " + e.getMessage());
+        }
+        return diferencias;
+    }
+
+    public static void main(String[] args) {
+        boolean reconstruir = args.length > 0 && "--reconstruir-resumen".equals(args[0]);
+        List<String> diferencias = List.of();
+
+        if (reconstruir) {
+            int filas = reconstruir();
+            if (filas >= 0) System.out.println("Resumen reconstruido: " + filas + " fila(s).");
+        } else {
+            diferencias = verificar();
+            if (diferencias.isEmpty()) {
+                System.out.println("El resumen por categoria coincide con el historial.");
+            } else {
+                System.err.println(diferencias.size() + " diferencia(s) entre el resumen y el historial:");
+                diferencias.forEach(d -> System.err.println("  " + d));
+                System.err.println("Ejecute --reconstruir-resumen para repararlo.");
+            }
+        }
+        DatabaseConnection.getInstance().cerrarConexion();
+        if (!diferencias.isEmpty()) System.exit(1);
+    }
+}
@@ -0,0 +1,108 @@
+package dao;
+
+import modelo.MovimientoRegistro;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Mapeo ResultSet -> {@link MovimientoRegistro} por posicion de columna.
+ *
+ * Todas las consultas de movimientos de {@link TransaccionDAO} seleccionan las columnas en
+ * este orden exacto, que es el contrato del mapeador:
+ *   1 id, 2 cuenta_origen_id, 3 cuenta_destino_id, 4 tipo, 5 monto_centimos, 6 fecha, 7 descripcion, 8 categoria
+ *
+ * Evita la busqueda de columnas por nombre, la doble lectura de cuenta_destino_id y el
+ * {@code LocalDateTime.parse(fecha.replace(" ", "T"))} por fila, que dominaban los perfiles
+ * de historial y exportacion.
+ */
+public final class MapeadorMovimientos {
+
+    static final int COL_ID          = 1;
+    static final int COL_ORIGEN      = 2;
+    static final int COL_DESTINO     = 3;
+    static final int COL_TIPO        = 4;
+    static final int COL_MONTO       = 5;
+    static final int COL_FECHA       = 6;
+    static final int COL_DESCRIPCION = 7;
+    static final int COL_CATEGORIA   = 8;
+
+    /** Formato de CURRENT_TIMESTAMP: el orden de texto es el orden cronologico. */
+    private static final DateTimeFormatter FORMATO_BD = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private MapeadorMovimientos() { }
+
+    public static MovimientoRegistro mapear(ResultSet rs) throws SQLException {
+        int    id        = rs.getInt(COL_ID);
+        int    origenId  = rs.getInt(COL_ORIGEN);
+        int    destino   = rs.getInt(COL_DESTINO);
+        Integer destinoId = rs.wasNull() ? null : destino;
+        MovimientoRegistro.Tipo tipo = parsearTipo(rs.getString(COL_TIPO));
+        long   monto     = rs.getLong(COL_MONTO);
+        String fechaStr  = rs.getString(COL_FECHA);
+
+        LocalDateTime fecha = (fechaStr != null) ? parsearFecha(fechaStr) : LocalDateTime.now();
+
+        return new MovimientoRegistro(id, origenId, destinoId, tipo, monto, fecha,
+                rs.getString(COL_DESCRIPCION), rs.getString(COL_CATEGORIA));
+    }
+
+    /** El CHECK de la tabla solo admite estos tres valores; basta la primera letra. */
+    static MovimientoRegistro.Tipo parsearTipo(String tipo) {
+        return switch (tipo.charAt(0)) {
+            case 'I' -> MovimientoRegistro.Tipo.INGRESO;
+            case 'G' -> MovimientoRegistro.Tipo.GASTO;
+            default  -> MovimientoRegistro.Tipo.TRANSFERENCIA;
+        };
+    }
+
+    /**
+     * Parsea el formato de CURRENT_TIMESTAMP de SQLite, {@code yyyy-MM-dd HH:mm:ss},
+     * aceptando tambien separador 'T' y fraccion de segundos opcional ({@code .SSS...}).
+     * Lee los digitos directamente sin crear Strings intermedios. Cualquier otro formato
+     * se delega a {@link LocalDateTime#parse}.
+     */
+    public static LocalDateTime parsearFecha(String s) {
+        int largo = s.length();
+        if (largo < 19 || s.charAt(4) != '-' || s.charAt(7) != '-'
+                || (s.charAt(10) != ' ' && s.charAt(10) != 'T')
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return LocalDateTime.parse(s.replace(' ', 'T'));
+        }
+
+        int nanos = 0;
+        if (largo > 19) {
+            if (s.charAt(19) != '.') return LocalDateTime.parse(s.replace(' ', 'T'));
+            int escala = 100_000_000;
+            for (int i = 20; i < largo && escala > 0; i++, escala /= 10) {
+                nanos += digito(s, i) * escala;
+            }
+        }
+
+        return LocalDateTime.of(
+                numero(s, 0, 4), numero(s, 5, 7), numero(s, 8, 10),
+                numero(s, 11, 13), numero(s, 14, 16), numero(s, 17, 19), nanos);
+    }
+
+    /**
+     * Fecha en el formato de CURRENT_TIMESTAMP, sin fraccion de segundos: el cursor del
+     * historial y strftime comparan el texto tal cual. null si no hay fecha.
+     */
+    public static String formatearFecha(LocalDateTime fecha) {
+        return fecha == null ? null : fecha.format(FORMATO_BD);
+    }
+
+    private static int numero(String s, int desde, int hasta) {
+        int valor = 0;
+        for (int i = desde; i < hasta; i++) valor = valor * 10 + digito(s, i);
+        return valor;
+    }
+
+    private static int digito(String s, int i) {
+        int d = s.charAt(i) - '0';
+        if (d < 0 || d > 9) throw new IllegalArgumentException("Fecha invalida: " + s);
+        return d;
+    }
+}
@@ -0,0 +1,206 @@
+package dao;
+
+import modelo.MovimientoRegistro;
+import util.ConexionPrestada;
+import util.DatabaseConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reportes por rango de fechas agrupados por dia, semana, mes o anio, con desglose opcional
+ * por categoria o por cuenta de origen.
+ *
+ * Cada consulta recorre las cuentas del usuario y, por cada una, solo el rango
+ * {@code [desde, hasta)} de idx_transacciones_origen_fecha; nunca lee el historial fuera del
+ * rango. Cuando el periodo es mensual o anual, el rango cae en limites de mes y no se desglosa
+ * por cuenta, se lee directamente el resumen mensual (resumen_categorias), cuyo costo no
+ * depende de la cantidad de movimientos.
+ *
+ * Las fechas de las transacciones se guardan en UTC (CURRENT_TIMESTAMP), asi que los periodos
+ * tambien se cortan en UTC.
+ */
+public class MotorReportes {
+
+    /** Dimension por la que se separan las series de un reporte. */
+    public enum Desglose {
+        NINGUNO  ("'Total'",                              "'Total'"),
+        CATEGORIA("COALESCE(t.categoria, 'Sin categoria')", "r.categoria"),
+        CUENTA   ("t.cuenta_origen_id",                   null);
+
+        private final String sqlMovimientos;
+        private final String sqlResumen;
+
+        Desglose(String sqlMovimientos, String sqlResumen) {
+            this.sqlMovimientos = sqlMovimientos;
+            this.sqlResumen     = sqlResumen;
+        }
+    }
+
+    /**
+     * Rango de indice por cuenta: el CROSS JOIN fija el orden (cuentas del usuario primero) y
+     * {@code +t.tipo} evita que SQLite prefiera idx_transacciones_tipo_categoria, que recorreria
+     * todos los movimientos de ese tipo de todos los usuarios.
+     */
+    private static final String SQL_SERIE_MOVIMIENTOS =
+            "SELECT %s AS periodo, %s AS clave, SUM(t.monto_centimos), COUNT(*) " +
+            "FROM cuentas c CROSS JOIN transacciones t ON t.cuenta_origen_id = c.id " +
+            "WHERE c.usuario_id = ? AND +t.tipo = ? AND t.fecha >= ? AND t.fecha < ? " +
+            "GROUP BY periodo, clave";
+
+    private static final String SQL_SERIE_RESUMEN =
+            "SELECT %s AS periodo, %s AS clave, SUM(r.total_centimos), SUM(r.cantidad) " +
+            "FROM resumen_categorias r " +
+            "WHERE r.usuario_id = ? AND r.tipo = ? AND r.mes >= ? AND r.mes < ? " +
+            "GROUP BY periodo, clave";
+
+    /** Sentencias ya construidas, indexadas por granularidad, desglose y origen de datos. */
+    private static final Map<String, String> SQL_SERIES = new ConcurrentHashMap<>();
+
+    /** Limite de periodos por reporte (p. ej. unos 27 anios por dia). */
+    public static final int MAX_PERIODOS = 10_000;
+
+    /**
+     * Serie de movimientos de un tipo del usuario en {@code [desde, hasta)}.
+     *
+     * @param tipo         INGRESO, GASTO o TRANSFERENCIA (por cuenta de origen)
+     * @param desde        Primer dia incluido
+     * @param hasta        Primer dia excluido
+     * @param granularidad Tamano de cada periodo; el primero puede empezar antes de {@code desde}
+     * @param desglose     Dimension de las series
+     * @return El reporte (vacio si no hay datos o si la consulta fallo), o null si el rango no es valido
+     */
+    public ReporteTemporal serie(int usuarioId, MovimientoRegistro.Tipo tipo, LocalDate desde, LocalDate hasta,
+                                 Granularidad granularidad, Desglose desglose) {
+        if (!desde.isBefore(hasta)) return null;
+
+        List<String> etiquetas = new ArrayList<>();
+        Map<String, Integer> indicePeriodo = new HashMap<>();
+        for (LocalDate inicio = granularidad.inicioPeriodo(desde); inicio.isBefore(hasta);
+             inicio = granularidad.siguiente(inicio)) {
+            if (etiquetas.size() == MAX_PERIODOS) {
+                System.err.println("Reporte con demasiados periodos (" + granularidad + " desde " + desde + ").");
+                return null;
+            }
+            String etiqueta = granularidad.etiqueta(inicio);
+            indicePeriodo.put(etiqueta, etiquetas.size());
+            etiquetas.add(etiqueta);
+        }
+        int periodos = etiquetas.size();
+
+        boolean desdeResumen = usaResumen(tipo, desde, hasta, granularidad, desglose);
+        Map<String, Integer> indiceClave = new HashMap<>();
+        List<String> claves = new ArrayList<>();
+        List<long[]> totales = new ArrayList<>();
+        List<int[]> cantidades = new ArrayList<>();
+
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(sqlSerie(granularidad, desglose, desdeResumen));
+            pstmt.setInt(1, usuarioId);
+            pstmt.setString(2, tipo.name());
+            if (desdeResumen) {
+                pstmt.setString(3, Granularidad.MES.etiqueta(desde));
+                pstmt.setString(4, Granularidad.MES.etiqueta(hasta));
+            } else {
+                // 'YYYY-MM-DD' ordena antes que cualquier 'YYYY-MM-DD HH:MM:SS' del mismo dia.
+                pstmt.setString(3, desde.toString());
+                pstmt.setString(4, hasta.toString());
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Integer p = indicePeriodo.get(rs.getString(1));
+                    if (p == null) continue;
+
+                    String clave = rs.getString(2);
+                    Integer k = indiceClave.get(clave);
+                    if (k == null) {
+                        k = claves.size();
+                        indiceClave.put(clave, k);
+                        claves.add(clave);
+                        totales.add(new long[periodos]);
+                        cantidades.add(new int[periodos]);
+                    }
+                    totales.get(k)[p]    += rs.getLong(3);
+                    cantidades.get(k)[p] += rs.getInt(4);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error al generar reporte de " + tipo + " del usuario " + usuarioId + ": " + e.getMessage());
+            e.printStackTrace();
+            claves.clear();
+            totales.clear();
+            cantidades.clear();
+        }
+
+        return ordenarPorTotal(granularidad, etiquetas.toArray(new String[0]), claves, totales, cantidades);
+    }
+
+    /**
+     * Totales por categoria de un tipo de movimiento en {@code [desde, hasta)}, de mayor a menor.
+     * Mismo formato que {@link TransaccionDAO#obtenerResumenGastos(int)}, acotado al rango.
+     */
+    public ResumenCategorias resumenPorCategoria(int usuarioId, MovimientoRegistro.Tipo tipo,
+                                                 LocalDate desde, LocalDate hasta) {
+        ResumenCategorias resumen = new ResumenCategorias();
+        ReporteTemporal reporte = serie(usuarioId, tipo, desde, hasta, Granularidad.ANIO, Desglose.CATEGORIA);
+        if (reporte == null) return resumen;
+
+        String[] claves = reporte.getClaves();
+        for (int k = 0; k < claves.length; k++) {
+            resumen.agregar(claves[k], reporte.getTotalClave(k));
+        }
+        return resumen;
+    }
+
+    /**
+     * El resumen mensual solo guarda ingresos y gastos por categoria y mes: sirve si los periodos
+     * son de un mes o mas, el rango empieza y termina en limite de mes y no se desglosa por cuenta.
+     */
+    static boolean usaResumen(MovimientoRegistro.Tipo tipo, LocalDate desde, LocalDate hasta,
+                              Granularidad granularidad, Desglose desglose) {
+        return tipo != MovimientoRegistro.Tipo.TRANSFERENCIA
+                && granularidad.admiteResumenMensual()
+                && desglose.sqlResumen != null
+                && desde.getDayOfMonth() == 1
+                && hasta.getDayOfMonth() == 1;
+    }
+
+    static String sqlSerie(Granularidad granularidad, Desglose desglose, boolean desdeResumen) {
+        return SQL_SERIES.computeIfAbsent(granularidad + "/" + desglose + "/" + desdeResumen, clave ->
+                desdeResumen
+                        ? String.format(SQL_SERIE_RESUMEN, granularidad.sqlMes(), desglose.sqlResumen)
+                        : String.format(SQL_SERIE_MOVIMIENTOS, granularidad.sqlFecha(), desglose.sqlMovimientos));
+    }
+
+    private static ReporteTemporal ordenarPorTotal(Granularidad granularidad, String[] periodos, List<String> claves,
+                                                   List<long[]> totales, List<int[]> cantidades) {
+        int n = claves.size();
+        long[] sumas = new long[n];
+        Integer[] orden = new Integer[n];
+        for (int k = 0; k < n; k++) {
+            orden[k] = k;
+            for (long v : totales.get(k)) sumas[k] += v;
+        }
+        Arrays.sort(orden, (a, b) -> Long.compare(sumas[b], sumas[a]));
+
+        String[] clavesOrdenadas = new String[n];
+        long[][] totalesOrdenados = new long[n][];
+        int[][] cantidadesOrdenadas = new int[n][];
+        for (int i = 0; i < n; i++) {
+            clavesOrdenadas[i]     = claves.get(orden[i]);
+            totalesOrdenados[i]    = totales.get(orden[i]);
+            cantidadesOrdenadas[i] = cantidades.get(orden[i]);
+        }
+        return new ReporteTemporal(granularidad, periodos, clavesOrdenadas, totalesOrdenados, cantidadesOrdenadas);
+    }
+}
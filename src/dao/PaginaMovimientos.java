@@ -0,0 +1,40 @@
+package dao;
+
+import modelo.MovimientoRegistro;
+
+import java.util.List;
+
+/**
+ * Pagina del historial de movimientos de un usuario, ordenada por fecha descendente.
+ *
+ * La paginacion es por keyset: {@link #getSiguiente()} apunta al ultimo movimiento
+ * entregado y la pagina siguiente empieza justo despues de el, por lo que el costo
+ * de pedir la pagina 1 o la 500 es el mismo.
+ */
+public class PaginaMovimientos {
+
+    /**
+     * Posicion en el historial: fecha tal como esta almacenada en la BD e id del movimiento.
+     * Se compara como la tupla {@code (fecha, id)}.
+     */
+    public record Cursor(String fecha, int id) {
+
+        /** Cursor anterior a cualquier movimiento existente; se usa para pedir la primera pagina. */
+        public static final Cursor INICIO = new Cursor("9999-12-31 23:59:59", Integer.MAX_VALUE);
+    }
+
+    private final List<MovimientoRegistro> movimientos;
+    private final Cursor siguiente;
+
+    public PaginaMovimientos(List<MovimientoRegistro> movimientos, Cursor siguiente) {
+        this.movimientos = movimientos;
+        this.siguiente   = siguiente;
+    }
+
+    public List<MovimientoRegistro> getMovimientos() { return movimientos; }
+
+    /** Cursor para pedir la pagina siguiente, o null si esta es la ultima. */
+    public Cursor getSiguiente() { return siguiente; }
+
+    public boolean hayMas() { return siguiente != null; }
+}
@@ -0,0 +1,69 @@
+package dao;
+
+/**
+ * Serie de totales por periodo, opcionalmente desglosada por categoria o por cuenta.
+ *
+ * Los periodos cubren todo el rango pedido en orden cronologico, incluidos los que no
+ * tienen movimientos (total 0). Las claves del desglose van de mayor a menor total.
+ * Los valores se guardan en matrices primitivas {@code [clave][periodo]} en centimos; los
+ * arreglos que devuelven los getters son los internos y no deben modificarse.
+ */
+public class ReporteTemporal {
+
+    private final Granularidad granularidad;
+    private final String[]     periodos;
+    private final String[]     claves;
+    private final long[][]     totales;
+    private final int[][]      cantidades;
+    private final long[]       totalPorPeriodo;
+    private final long[]       totalPorClave;
+    private final long         totalCentimos;
+
+    ReporteTemporal(Granularidad granularidad, String[] periodos, String[] claves,
+                    long[][] totales, int[][] cantidades) {
+        this.granularidad = granularidad;
+        this.periodos     = periodos;
+        this.claves       = claves;
+        this.totales      = totales;
+        this.cantidades   = cantidades;
+
+        this.totalPorPeriodo = new long[periodos.length];
+        this.totalPorClave   = new long[claves.length];
+        long total = 0;
+        for (int k = 0; k < claves.length; k++) {
+            for (int p = 0; p < periodos.length; p++) {
+                totalPorPeriodo[p] += totales[k][p];
+                totalPorClave[k]   += totales[k][p];
+            }
+            total += totalPorClave[k];
+        }
+        this.totalCentimos = total;
+    }
+
+    public Granularidad getGranularidad() { return granularidad; }
+
+    /** Etiquetas de los periodos ("2025-03-17", "2025-03", "2025"...). */
+    public String[] getPeriodos() { return periodos; }
+
+    /**
+     * Claves del desglose: nombre de categoria, id de cuenta como texto, o una unica
+     * clave "Total" si no se pidio desglose.
+     */
+    public String[] getClaves() { return claves; }
+
+    /** Serie de una clave, un total por periodo. */
+    public long[] getSerie(int clave) { return totales[clave]; }
+
+    public long getTotalCentimos(int clave, int periodo) { return totales[clave][periodo]; }
+
+    public int getCantidad(int clave, int periodo) { return cantidades[clave][periodo]; }
+
+    /** Total de todas las claves, un valor por periodo. */
+    public long[] getTotalPorPeriodo() { return totalPorPeriodo; }
+
+    public long getTotalClave(int clave) { return totalPorClave[clave]; }
+
+    public long getTotalCentimos() { return totalCentimos; }
+
+    public boolean estaVacio() { return totalCentimos == 0; }
+}
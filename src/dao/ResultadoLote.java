@@ -0,0 +1,48 @@
+package dao;
+
+/**
+ * Resultado de {@link TransaccionDAO#registrarLote}.
+ *
+ * Cada bloque se confirma en su propia transaccion; si uno falla, los anteriores quedan
+ * guardados y {@link #getError()} describe el fallo. {@link #getIds()} contiene solo los ids
+ * de los movimientos confirmados, en el mismo orden de la lista de entrada. Un lote con un
+ * movimiento invalido se rechaza antes del primer bloque: sin ids y con el motivo en el error.
+ */
+public class ResultadoLote {
+
+    private final int[]  ids;
+    private final int    bloquesConfirmados;
+    private final long   duracionNanos;
+    private final String error;
+
+    public ResultadoLote(int[] ids, int bloquesConfirmados, long duracionNanos, String error) {
+        this.ids                = ids;
+        this.bloquesConfirmados = bloquesConfirmados;
+        this.duracionNanos      = duracionNanos;
+        this.error              = error;
+    }
+
+    public int[] getIds() { return ids; }
+
+    public int getFilasConfirmadas() { return ids.length; }
+
+    public int getBloquesConfirmados() { return bloquesConfirmados; }
+
+    public long getDuracionNanos() { return duracionNanos; }
+
+    public double getFilasPorSegundo() {
+        return duracionNanos == 0 ? 0.0 : ids.length / (duracionNanos / 1_000_000_000.0);
+    }
+
+    /** Mensaje del bloque que fallo, o null si se confirmo todo el lote. */
+    public String getError() { return error; }
+
+    public boolean esCompleto() { return error == null; }
+
+    @Override
+    public String toString() {
+        return String.format("Lote{filas=%d, bloques=%d, duracion=%.1f ms, filas/s=%.0f%s}",
+                ids.length, bloquesConfirmados, duracionNanos / 1_000_000.0, getFilasPorSegundo(),
+                error == null ? "" : ", error='" + error + "'");
+    }
+}
@@ -0,0 +1,95 @@
+package dao;
+
+import modelo.MovimientoRegistro;
+
+/**
+ * Resultado de un ingreso, gasto o transferencia de {@link TransaccionDAO}.
+ *
+ * Si la operacion se confirmo lleva el movimiento y el saldo con que quedaron las cuentas
+ * tocadas, leido con {@code UPDATE ... RETURNING} dentro de la misma transaccion: quien muestra
+ * el nuevo saldo no necesita volver a consultar la cuenta.
+ *
+ * Si el debito fue rechazado por la BD ({@link Estado#SALDO_INSUFICIENTE}) lleva el saldo
+ * disponible en ese momento; en ese caso y ante un error no se escribio nada.
+ */
+public class ResultadoMovimiento {
+
+    public enum Estado { EXITO, SALDO_INSUFICIENTE, ERROR }
+
+    private final Estado estado;
+    private final MovimientoRegistro movimiento;
+    private final long saldoOrigenCentimos;
+    private final long saldoDestinoCentimos;
+    private final String error;
+
+    private ResultadoMovimiento(Estado estado, MovimientoRegistro movimiento,
+                                long saldoOrigenCentimos, long saldoDestinoCentimos, String error) {
+        this.estado               = estado;
+        this.movimiento           = movimiento;
+        this.saldoOrigenCentimos  = saldoOrigenCentimos;
+        this.saldoDestinoCentimos = saldoDestinoCentimos;
+        this.error                = error;
+    }
+
+    static ResultadoMovimiento exito(MovimientoRegistro movimiento, long saldoOrigenCentimos, long saldoDestinoCentimos) {
+        return new ResultadoMovimiento(Estado.EXITO, movimiento, saldoOrigenCentimos, saldoDestinoCentimos, null);
+    }
+
+    static ResultadoMovimiento saldoInsuficiente(long saldoDisponibleCentimos) {
+        return new ResultadoMovimiento(Estado.SALDO_INSUFICIENTE, null, saldoDisponibleCentimos, 0L, null);
+    }
+
+    static ResultadoMovimiento error(String mensaje) {
+        return new ResultadoMovimiento(Estado.ERROR, null, 0L, 0L, mensaje);
+    }
+
+    public Estado getEstado() { return estado; }
+
+    public boolean esExitoso() { return estado == Estado.EXITO; }
+
+    /** Movimiento confirmado, o null si la operacion no se confirmo. */
+    public MovimientoRegistro getMovimiento() { return movimiento; }
+
+    /** Saldo confirmado de la cuenta del ingreso o gasto, o de la cuenta origen de una transferencia. */
+    public long getSaldoOrigenCentimos() {
+        exigir(Estado.EXITO);
+        return saldoOrigenCentimos;
+    }
+
+    /**
+     * Saldo confirmado de la cuenta destino de una transferencia.
+     *
+     * @throws IllegalStateException si el movimiento no es una transferencia confirmada
+     */
+    public long getSaldoDestinoCentimos() {
+        exigir(Estado.EXITO);
+        if (movimiento.getTipo() != MovimientoRegistro.Tipo.TRANSFERENCIA) {
+            throw new IllegalStateException("Solo las transferencias tienen cuenta destino");
+        }
+        return saldoDestinoCentimos;
+    }
+
+    /** Saldo de la cuenta a debitar cuando la BD rechazo el debito. */
+    public long getSaldoDisponibleCentimos() {
+        exigir(Estado.SALDO_INSUFICIENTE);
+        return saldoOrigenCentimos;
+    }
+
+    /** Mensaje del error, o null si no hubo error. */
+    public String getError() { return error; }
+
+    private void exigir(Estado esperado) {
+        if (estado != esperado) throw new IllegalStateException("Resultado " + estado + ", se esperaba " + esperado);
+    }
+
+    @Override
+    public String toString() {
+        return switch (estado) {
+            case EXITO -> movimiento.getTipo() == MovimientoRegistro.Tipo.TRANSFERENCIA
+                    ? String.format("Resultado{%s, saldoOrigen=%d, saldoDestino=%d}", movimiento, saldoOrigenCentimos, saldoDestinoCentimos)
+                    : String.format("Resultado{%s, saldo=%d}", movimiento, saldoOrigenCentimos);
+            case SALDO_INSUFICIENTE -> "Resultado{SALDO_INSUFICIENTE, disponible=" + saldoOrigenCentimos + "}";
+            case ERROR -> "Resultado{ERROR, '" + error + "'}";
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package dao;
+
+import java.util.Arrays;
+
+/**
+ * Totales por categoria de un tipo de movimiento (GASTO o INGRESO), en centimos.
+ *
+ * Guarda las categorias y sus totales en arreglos paralelos, en el orden en que los
+ * entrega la consulta (mayor total primero), y acumula el total general al agregar cada
+ * fila, asi el reporte no vuelve a recorrer ni a boxear los montos.
+ */
+public class ResumenCategorias {
+
+    private String[] categorias = new String[8];
+    private long[]   totales    = new long[8];
+    private int      cantidad;
+    private long     totalCentimos;
+
+    void agregar(String categoria, long totalCategoriaCentimos) {
+        if (cantidad == categorias.length) {
+            categorias = Arrays.copyOf(categorias, cantidad * 2);
+            totales    = Arrays.copyOf(totales, cantidad * 2);
+        }
+        categorias[cantidad] = categoria;
+        totales[cantidad]    = totalCategoriaCentimos;
+        cantidad++;
+        totalCentimos += totalCategoriaCentimos;
+    }
+
+    public int getCantidad() { return cantidad; }
+
+    public boolean estaVacio() { return cantidad == 0; }
+
+    public String getCategoria(int i) { return categorias[i]; }
+
+    public long getTotalCentimos(int i) { return totales[i]; }
+
+    /** Suma de todas las categorias. */
+    public long getTotalCentimos() { return totalCentimos; }
+}
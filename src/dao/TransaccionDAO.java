@@ -1,32 +1,162 @@
 package dao;
 
 import modelo.MovimientoRegistro;
+import util.ConexionPrestada;
 import util.DatabaseConnection;
+import util.UnidadDeTrabajo;
 
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * DAO para movimientos financieros. Garantiza atomicidad mediante transacciones SQL explícitas.
  * Implementa {@link CrudRepository} con {@link MovimientoRegistro} como tipo de entidad.
  *
  * Patrón de atomicidad aplicado en cada operación de escritura:
- *   setAutoCommit(false) → operaciones → commit()  /  rollback() en caso de error.
+ *   transaccion() → operaciones → confirmar().
+ *   Si ocurre un error, al cerrar la {@link UnidadDeTrabajo} el pool ejecuta rollback() y restaura autocommit.
+ *
+ * Los ingresos, gastos y transferencias no abren su propia transaccion: se encolan en
+ * {@link ColaEscritura}, que aplica varias en un mismo commit, cada una en su SAVEPOINT.
+ *
+ * Los ajustes de saldo devuelven el saldo resultante ({@code RETURNING}); tras el commit se
+ * escriben en {@link CacheCuentas} sin volver a leer las cuentas.
  */
 public class TransaccionDAO implements CrudRepository<MovimientoRegistro, Integer> {
 
+    static final String SQL_INSERTAR =
+            "INSERT INTO transacciones " +
+            "(cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, descripcion, categoria) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Un extracto importado trae la fecha de cada movimiento; sin ella, la del momento de la carga.
+    static final String SQL_INSERTAR_LOTE =
+            "INSERT INTO transacciones " +
+            "(cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, descripcion, categoria, fecha) " +
+            "VALUES (?, ?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))";
+
+    static final String SQL_BUSCAR_POR_ID =
+            "SELECT id, cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, " +
+            "       fecha, descripcion, categoria FROM transacciones WHERE id = ?";
+
+    static final String SQL_LISTAR_TODOS =
+            "SELECT id, cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, " +
+            "       fecha, descripcion, categoria FROM transacciones ORDER BY fecha DESC";
+
+    // Orden por id (rowid): recorrido secuencial sin ordenamiento temporal, apto para streaming.
+    static final String SQL_RECORRER_TODOS =
+            "SELECT id, cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, " +
+            "       fecha, descripcion, categoria FROM transacciones ORDER BY id";
+
+    /** Filas que el driver trae por cada ida a la BD al recorrer en streaming. */
+    public static final int TAMANO_FETCH_POR_DEFECTO = 512;
+
+    static final String SQL_INSERTAR_INGRESO =
+            "INSERT INTO transacciones " +
+            "(cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, descripcion, categoria) " +
+            "VALUES (?, NULL, 'INGRESO', ?, ?, ?)";
+
+    static final String SQL_SUMAR_SALDO =
+            "UPDATE cuentas SET saldo_centimos = saldo_centimos + ? WHERE id = ? RETURNING usuario_id, saldo_centimos";
+
+    static final String SQL_INSERTAR_GASTO =
+            "INSERT INTO transacciones " +
+            "(cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, descripcion, categoria) " +
+            "VALUES (?, NULL, 'GASTO', ?, ?, ?)";
+
+    // Debito condicionado: la comprobacion de saldo y el descuento son una sola sentencia, asi
+    // dos sesiones que debitan la misma cuenta no pueden dejarla en negativo.
+    static final String SQL_RESTAR_SALDO =
+            "UPDATE cuentas SET saldo_centimos = saldo_centimos - ? " +
+            "WHERE id = ? AND saldo_centimos >= ? RETURNING usuario_id, saldo_centimos";
+
+    static final String SQL_SALDO_CUENTA =
+            "SELECT saldo_centimos FROM cuentas WHERE id = ?";
+
+    static final String SQL_INSERTAR_TRANSFERENCIA =
+            "INSERT INTO transacciones " +
+            "(cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, descripcion, categoria) " +
+            "VALUES (?, ?, 'TRANSFERENCIA', ?, ?, 'Transferencia')";
+
+    static final String SQL_ULTIMO_ID =
+            "SELECT last_insert_rowid()";
+
+    /** Movimientos por transaccion en {@link #registrarLote(List)}. */
+    public static final int TAMANO_BLOQUE_POR_DEFECTO = 1_000;
+
+    static final String SQL_IDS_CUENTAS_USUARIO =
+            "SELECT id FROM cuentas WHERE usuario_id = ?";
+
+    // Mismo orden que espera MapeadorMovimientos (lectura por posicion de columna).
+    private static final String COLUMNAS_MOVIMIENTO =
+            "id, cuenta_origen_id, cuenta_destino_id, tipo, monto_centimos, fecha, descripcion, categoria";
+
+    /**
+     * Cuentas por consulta de historial: dos sondas por cuenta, por debajo del limite de 500
+     * terminos de un SELECT compuesto en SQLite (SQLITE_MAX_COMPOUND_SELECT).
+     */
+    static final int CUENTAS_POR_CONSULTA = 100;
+
+    /** Sentencias de historial ya construidas, indexadas por cantidad de cuentas del usuario. */
+    private static final Map<Integer, String> SQL_HISTORIAL = new ConcurrentHashMap<>();
+
+    // Los reportes leen el resumen mensual ya agregado (migracion v3): el costo depende de la
+    // cantidad de categorias y meses del usuario, no del tamano de su historial.
+    static final String SQL_RESUMEN_GASTOS =
+            "SELECT categoria, SUM(total_centimos) AS total " +
+            "FROM resumen_categorias " +
+            "WHERE usuario_id = ? AND tipo = 'GASTO' " +
+            "GROUP BY categoria " +
+            "ORDER BY total DESC";
+
+    static final String SQL_RESUMEN_INGRESOS =
+            "SELECT categoria, SUM(total_centimos) AS total " +
+            "FROM resumen_categorias " +
+            "WHERE usuario_id = ? AND tipo = 'INGRESO' " +
+            "GROUP BY categoria " +
+            "ORDER BY total DESC";
+
+    /**
+     * Agregado (usuario, tipo, categoria, mes) de los ingresos y gastos con id en [?, ?].
+     * Lo comparten las escrituras, la reconstruccion y el verificador del resumen.
+     * El {@code +} en {@code +t.tipo} impide que SQLite resuelva el filtro con
+     * idx_transacciones_tipo_categoria: debe recorrer solo el rango de rowid recien insertado.
+     */
+    static final String SQL_AGREGAR_MOVIMIENTOS =
+            "SELECT c.usuario_id, t.tipo, COALESCE(t.categoria, 'Sin categoria'), " +
+            "       strftime('%Y-%m', t.fecha), SUM(t.monto_centimos), COUNT(*) " +
+            "FROM transacciones t JOIN cuentas c ON c.id = t.cuenta_origen_id " +
+            "WHERE t.id BETWEEN ? AND ? AND +t.tipo IN ('INGRESO', 'GASTO') " +
+            "GROUP BY 1, 2, 3, 4";
+
+    static final String SQL_ACUMULAR_RESUMEN =
+            "INSERT INTO resumen_categorias (usuario_id, tipo, categoria, mes, total_centimos, cantidad) " +
+            SQL_AGREGAR_MOVIMIENTOS + " " +
+            "ON CONFLICT (usuario_id, tipo, categoria, mes) DO UPDATE SET " +
+            "    total_centimos = total_centimos + excluded.total_centimos, " +
+            "    cantidad       = cantidad + excluded.cantidad";
+
     @Override
     public MovimientoRegistro guardar(MovimientoRegistro movimiento) {
-        String sql = "INSERT INTO transacciones " +
-                     "(cuenta_origen_id, cuenta_destino_id, tipo, monto, descripcion, categoria) " +
-                     "VALUES (?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+            PreparedStatement pstmt = unidad.preparar(SQL_INSERTAR, true);
 
             pstmt.setInt(1, movimiento.getCuentaOrigenId());
             if (movimiento.getCuentaDestinoId() != null) {
@@ -35,7 +165,7 @@ public class TransaccionDAO implements CrudRepository<MovimientoRegistro, Intege
                 pstmt.setNull(2, Types.INTEGER);
             }
             pstmt.setString(3, movimiento.getTipo().name());
-            pstmt.setDouble(4, movimiento.getMonto());
+            pstmt.setLong(4, movimiento.getMontoCentimos());
             pstmt.setString(5, movimiento.getDescripcion());
             pstmt.setString(6, movimiento.getCategoria());
             pstmt.executeUpdate();
@@ -43,6 +173,9 @@ public class TransaccionDAO implements CrudRepository<MovimientoRegistro, Intege
             try (ResultSet llaves = pstmt.getGeneratedKeys()) {
                 if (llaves.next()) movimiento.setId(llaves.getInt(1));
             }
+            acumularResumen(unidad.prestamo(), movimiento.getId(), movimiento.getId());
+
+            unidad.confirmar();
             return movimiento;
 
         } catch (SQLException e) {
@@ -54,15 +187,12 @@ public class TransaccionDAO implements CrudRepository<MovimientoRegistro, Intege
 
     @Override
     public MovimientoRegistro buscarPorId(Integer id) {
-        String sql = "SELECT id, cuenta_origen_id, cuenta_destino_id, tipo, monto, " +
-                     "       fecha, descripcion, categoria FROM transacciones WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(SQL_BUSCAR_POR_ID);
 
             pstmt.setInt(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) return mapearFila(rs);
+                if (rs.next()) return MapeadorMovimientos.mapear(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error al buscar movimiento id=" + id + ": " + e.getMessage());
@@ -74,14 +204,11 @@ public class TransaccionDAO implements CrudRepository<MovimientoRegistro, Intege
     @Override
     public List<MovimientoRegistro> listarTodos() {
         List<MovimientoRegistro> lista = new ArrayList<>();
-        String sql = "SELECT id, cuenta_origen_id, cuenta_destino_id, tipo, monto, " +
-                     "       fecha, descripcion, categoria FROM transacciones ORDER BY fecha DESC";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura();
+             ResultSet rs = prestamo.preparar(SQL_LISTAR_TODOS).executeQuery()) {
 
-            while (rs.next()) lista.add(mapearFila(rs));
+            while (rs.next()) lista.add(MapeadorMovimientos.mapear(rs));
 
         } catch (SQLException e) {
             System.err.println("Error al listar movimientos: " + e.getMessage());
@@ -90,265 +217,585 @@ public class TransaccionDAO implements CrudRepository<MovimientoRegistro, Intege
         return lista;
     }
 
-    public MovimientoRegistro registrarIngreso(int cuentaId, double monto,
-                                               String descripcion, String categoria) {
-        Connection conn = DatabaseConnection.getInstance().getConnection();
-
-        String sqlInsert = "INSERT INTO transacciones " +
-                           "(cuenta_origen_id, cuenta_destino_id, tipo, monto, descripcion, categoria) " +
-                           "VALUES (?, NULL, 'INGRESO', ?, ?, ?)";
-        String sqlUpdate = "UPDATE cuentas SET saldo = saldo + ? WHERE id = ?";
-
+    // ─────────────────────────────────────────────────────────────────────────
+    // Lectura en streaming (exportaciones y auditorias)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Recorre todos los movimientos en orden de id sin materializarlos en memoria.
+     *
+     * El Stream mantiene prestada una conexion de lectura y un ResultSet abierto hasta
+     * que se cierra, por lo que debe usarse siempre con try-with-resources, y recorrerse y
+     * cerrarse en el hilo que lo abrio (no admite {@code parallel()}):
+     * <pre>
+     *   try (Stream&lt;MovimientoRegistro&gt; movs = dao.streamTodos(1000)) { ... }
+     * </pre>
+     *
+     * @param tamanoFetch Filas por ida a la BD (sugerencia para el driver)
+     * @throws IllegalStateException si falla la lectura durante el recorrido
+     */
+    public Stream<MovimientoRegistro> streamTodos(int tamanoFetch) {
+        ConexionPrestada prestamo = null;
         try {
-            conn.setAutoCommit(false);
+            prestamo = DatabaseConnection.getInstance().prestarLectura();
+            PreparedStatement pstmt = prestamo.preparar(SQL_RECORRER_TODOS);
+            pstmt.setFetchSize(tamanoFetch);
+            ResultSet rs = pstmt.executeQuery();
+
+            ConexionPrestada prestada = prestamo;
+            return StreamSupport.stream(new RecorridoResultSet(rs), false)
+                    .onClose(() -> {
+                        cerrarSilencioso(rs);
+                        prestada.close();
+                    });
+        } catch (SQLException e) {
+            if (prestamo != null) prestamo.close();
+            throw new IllegalStateException("Error al abrir el recorrido de movimientos: " + e.getMessage(), e);
+        }
+    }
 
-            int nuevoId = -1;
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlInsert, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setInt(1, cuentaId);
-                pstmt.setDouble(2, monto);
-                pstmt.setString(3, descripcion);
-                pstmt.setString(4, categoria);
-                pstmt.executeUpdate();
-                try (ResultSet llaves = pstmt.getGeneratedKeys()) {
-                    if (llaves.next()) nuevoId = llaves.getInt(1);
-                }
+    /**
+     * Variante con callback de {@link #streamTodos(int)}: entrega cada movimiento a {@code consumidor}
+     * y libera la conexion al terminar, incluso si el consumidor lanza una excepcion.
+     *
+     * @return Cantidad de movimientos recorridos
+     */
+    public long recorrerTodos(int tamanoFetch, Consumer<MovimientoRegistro> consumidor) {
+        long cantidad = 0;
+        try (Stream<MovimientoRegistro> movimientos = streamTodos(tamanoFetch)) {
+            Iterator<MovimientoRegistro> it = movimientos.iterator();
+            while (it.hasNext()) {
+                consumidor.accept(it.next());
+                cantidad++;
             }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Historial completo de un usuario, de mas reciente a mas antiguo, pedido de a una
+     * pagina por keyset. Solo una pagina vive en memoria y no retiene ninguna conexion
+     * entre paginas.
+     */
+    public Stream<MovimientoRegistro> streamHistorial(int usuarioId, int tamanoPagina) {
+        PaginaMovimientos primera = listarMovimientosPaginados(usuarioId, null, tamanoPagina);
+        return Stream.iterate(primera, Objects::nonNull,
+                        pagina -> pagina.hayMas()
+                                ? listarMovimientosPaginados(usuarioId, pagina.getSiguiente(), tamanoPagina)
+                                : null)
+                .flatMap(pagina -> pagina.getMovimientos().stream());
+    }
+
+    /** Adapta un ResultSet abierto a Spliterator, mapeando una fila por avance. */
+    private final class RecorridoResultSet extends Spliterators.AbstractSpliterator<MovimientoRegistro> {
+
+        private final ResultSet rs;
+
+        RecorridoResultSet(ResultSet rs) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+        }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlUpdate)) {
-                pstmt.setDouble(1, monto);
-                pstmt.setInt(2, cuentaId);
-                pstmt.executeUpdate();
+        @Override
+        public boolean tryAdvance(Consumer<? super MovimientoRegistro> accion) {
+            try {
+                if (!rs.next()) return false;
+                accion.accept(MapeadorMovimientos.mapear(rs));
+                return true;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Error al leer movimientos en streaming: " + e.getMessage(), e);
             }
+        }
+    }
+
+    private static void cerrarSilencioso(ResultSet rs) {
+        try {
+            rs.close();
+        } catch (SQLException ignorada) { }
+    }
+
+    /**
+     * @return El ingreso y el saldo confirmado de la cuenta, o {@link ResultadoMovimiento.Estado#ERROR}
+     *         si fallo (se revierte todo)
+     */
+    public ResultadoMovimiento registrarIngreso(int cuentaId, long montoCentimos,
+                                               String descripcion, String categoria) {
+        return esperar(registrarIngresoAsync(cuentaId, montoCentimos, descripcion, categoria));
+    }
+
+    /**
+     * Debita primero, con la condicion de saldo en la misma sentencia ({@link #SQL_RESTAR_SALDO}),
+     * y solo si la BD lo acepta inserta el movimiento.
+     *
+     * @return El gasto y el saldo confirmado; {@link ResultadoMovimiento.Estado#SALDO_INSUFICIENTE}
+     *         con el saldo disponible si no alcanza; o ERROR si fallo. En los dos ultimos casos no
+     *         se escribe nada.
+     */
+    public ResultadoMovimiento registrarGasto(int cuentaId, long montoCentimos,
+                                             String descripcion, String categoria) {
+        return esperar(registrarGastoAsync(cuentaId, montoCentimos, descripcion, categoria));
+    }
+
+    /**
+     * Igual que {@link #registrarGasto}: el debito condicionado de la cuenta origen va primero.
+     *
+     * @return La transferencia y los saldos confirmados de ambas cuentas,
+     *         {@link ResultadoMovimiento.Estado#SALDO_INSUFICIENTE} o ERROR (sin escribir nada)
+     */
+    public ResultadoMovimiento realizarTransferencia(int origenId, int destinoId,
+                                                    long montoCentimos, String descripcion) {
+        return esperar(realizarTransferenciaAsync(origenId, destinoId, montoCentimos, descripcion));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Escrituras via ColaEscritura (group commit)
+    // ─────────────────────────────────────────────────────────────────────────
 
-            conn.commit();
-            conn.setAutoCommit(true);
+    /** Encola el ingreso; el futuro se completa tras el commit del lote en que se aplique. */
+    public CompletableFuture<ResultadoMovimiento> registrarIngresoAsync(int cuentaId, long montoCentimos,
+                                                                        String descripcion, String categoria) {
+        return ColaEscritura.getInstance().enviar((prestamo, saldos) -> {
+            int nuevoId = insertarMovimiento(prestamo, SQL_INSERTAR_INGRESO, cuentaId, montoCentimos, descripcion, categoria);
+            SaldoActualizado saldo = ajustarSaldo(prestamo, cuentaId, montoCentimos);
+            saldos.add(saldo);
 
             MovimientoRegistro mov = new MovimientoRegistro(
-                cuentaId, null, MovimientoRegistro.Tipo.INGRESO, monto, descripcion, categoria
+                cuentaId, null, MovimientoRegistro.Tipo.INGRESO, montoCentimos, descripcion, categoria
             );
             mov.setId(nuevoId);
-            return mov;
-
-        } catch (SQLException e) {
-            rollback(conn);
-            System.err.println("Error al registrar ingreso. ROLLBACK ejecutado: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+            return ResultadoMovimiento.exito(mov, saldo.saldoCentimos(), 0L);
+        });
     }
 
-    public MovimientoRegistro registrarGasto(int cuentaId, double monto,
-                                             String descripcion, String categoria) {
-        Connection conn = DatabaseConnection.getInstance().getConnection();
+    /** Version asincrona de {@link #registrarGasto}. */
+    public CompletableFuture<ResultadoMovimiento> registrarGastoAsync(int cuentaId, long montoCentimos,
+                                                                      String descripcion, String categoria) {
+        return ColaEscritura.getInstance().enviar((prestamo, saldos) -> {
+            SaldoActualizado saldo = debitar(prestamo, cuentaId, montoCentimos);
+            if (saldo == null) return rechazarDebito(prestamo, cuentaId);
+            saldos.add(saldo);
 
-        String sqlInsert = "INSERT INTO transacciones " +
-                           "(cuenta_origen_id, cuenta_destino_id, tipo, monto, descripcion, categoria) " +
-                           "VALUES (?, NULL, 'GASTO', ?, ?, ?)";
-        String sqlUpdate = "UPDATE cuentas SET saldo = saldo - ? WHERE id = ?";
+            int nuevoId = insertarMovimiento(prestamo, SQL_INSERTAR_GASTO, cuentaId, montoCentimos, descripcion, categoria);
 
-        try {
-            conn.setAutoCommit(false);
+            MovimientoRegistro mov = new MovimientoRegistro(
+                cuentaId, null, MovimientoRegistro.Tipo.GASTO, montoCentimos, descripcion, categoria
+            );
+            mov.setId(nuevoId);
+            return ResultadoMovimiento.exito(mov, saldo.saldoCentimos(), 0L);
+        });
+    }
 
-            int nuevoId = -1;
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlInsert, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setInt(1, cuentaId);
-                pstmt.setDouble(2, monto);
-                pstmt.setString(3, descripcion);
-                pstmt.setString(4, categoria);
-                pstmt.executeUpdate();
-                try (ResultSet llaves = pstmt.getGeneratedKeys()) {
-                    if (llaves.next()) nuevoId = llaves.getInt(1);
-                }
-            }
+    /** Version asincrona de {@link #realizarTransferencia}. */
+    public CompletableFuture<ResultadoMovimiento> realizarTransferenciaAsync(int origenId, int destinoId,
+                                                                             long montoCentimos, String descripcion) {
+        return ColaEscritura.getInstance().enviar((prestamo, saldos) -> {
+            SaldoActualizado saldoOrigen = debitar(prestamo, origenId, montoCentimos);
+            if (saldoOrigen == null) return rechazarDebito(prestamo, origenId);
+            SaldoActualizado saldoDestino = ajustarSaldo(prestamo, destinoId, montoCentimos);
+            saldos.add(saldoOrigen);
+            saldos.add(saldoDestino);
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlUpdate)) {
-                pstmt.setDouble(1, monto);
-                pstmt.setInt(2, cuentaId);
-                pstmt.executeUpdate();
+            int nuevoId = -1;
+            PreparedStatement insertar = prestamo.preparar(SQL_INSERTAR_TRANSFERENCIA, true);
+            insertar.setInt(1, origenId);
+            insertar.setInt(2, destinoId);
+            insertar.setLong(3, montoCentimos);
+            insertar.setString(4, descripcion);
+            insertar.executeUpdate();
+            try (ResultSet llaves = insertar.getGeneratedKeys()) {
+                if (llaves.next()) nuevoId = llaves.getInt(1);
             }
 
-            conn.commit();
-            conn.setAutoCommit(true);
-
             MovimientoRegistro mov = new MovimientoRegistro(
-                cuentaId, null, MovimientoRegistro.Tipo.GASTO, monto, descripcion, categoria
+                origenId, destinoId, MovimientoRegistro.Tipo.TRANSFERENCIA,
+                montoCentimos, descripcion, "Transferencia"
             );
             mov.setId(nuevoId);
-            return mov;
+            return ResultadoMovimiento.exito(mov, saldoOrigen.saldoCentimos(), saldoDestino.saldoCentimos());
+        });
+    }
 
-        } catch (SQLException e) {
-            rollback(conn);
-            System.err.println("Error al registrar gasto. ROLLBACK ejecutado: " + e.getMessage());
+    /** Inserta un ingreso o gasto ({@link #SQL_INSERTAR_INGRESO} o {@link #SQL_INSERTAR_GASTO}) y retorna su id. */
+    private static int insertarMovimiento(ConexionPrestada prestamo, String sql, int cuentaId, long montoCentimos,
+                                          String descripcion, String categoria) throws SQLException {
+        PreparedStatement insertar = prestamo.preparar(sql, true);
+        insertar.setInt(1, cuentaId);
+        insertar.setLong(2, montoCentimos);
+        insertar.setString(3, descripcion);
+        insertar.setString(4, categoria);
+        insertar.executeUpdate();
+        try (ResultSet llaves = insertar.getGeneratedKeys()) {
+            if (!llaves.next()) throw new SQLException("El INSERT no devolvio el id del movimiento");
+            return llaves.getInt(1);
+        }
+    }
+
+    /** Espera el resultado de una escritura encolada desde un metodo sincrono. */
+    private static ResultadoMovimiento esperar(CompletableFuture<ResultadoMovimiento> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException | CancellationException e) {
+            System.err.println("Error inesperado en la cola de escritura: " + e.getMessage());
             e.printStackTrace();
-            return null;
+            return ResultadoMovimiento.error(e.getMessage());
         }
     }
 
-    public MovimientoRegistro realizarTransferencia(int origenId, int destinoId,
-                                                    double monto, String descripcion) {
-        Connection conn = DatabaseConnection.getInstance().getConnection();
+    /** Igual que {@link #registrarLote(List, int)} con bloques de {@link #TAMANO_BLOQUE_POR_DEFECTO}. */
+    public ResultadoLote registrarLote(List<MovimientoRegistro> movimientos) {
+        return registrarLote(movimientos, TAMANO_BLOQUE_POR_DEFECTO);
+    }
 
-        String sqlInsert    = "INSERT INTO transacciones " +
-                              "(cuenta_origen_id, cuenta_destino_id, tipo, monto, descripcion, categoria) " +
-                              "VALUES (?, ?, 'TRANSFERENCIA', ?, ?, 'Transferencia')";
-        String sqlDescontar = "UPDATE cuentas SET saldo = saldo - ? WHERE id = ?";
-        String sqlAcreditar = "UPDATE cuentas SET saldo = saldo + ? WHERE id = ?";
+    /**
+     * Inserta movimientos en bloque (importacion de extractos bancarios).
+     *
+     * Cada bloque de {@code tamanoBloque} movimientos es una transaccion: los INSERT van en
+     * un unico executeBatch y el saldo de cada cuenta afectada se ajusta una sola vez con la
+     * suma de sus deltas del bloque. La conexion escritora se libera entre bloques para no
+     * bloquear a las sesiones interactivas durante toda la importacion.
+     *
+     * Los ids se derivan de last_insert_rowid(): con la escritora en exclusiva, los rowid
+     * asignados dentro de una transaccion son consecutivos. A cada movimiento confirmado se
+     * le asigna su id con setId.
+     *
+     * Cada fila conserva la fecha del movimiento (la del extracto), truncada al segundo; con
+     * {@code setFecha(null)} la asigna la BD. El resumen por categoria se acumula sobre esa
+     * misma fecha, asi que un extracto de meses anteriores cae en sus propios meses.
+     *
+     * Antes del primer bloque se validan el tamano de bloque y todos los movimientos: un lote
+     * invalido no confirma nada y el motivo queda en {@link ResultadoLote#getError()}.
+     */
+    public ResultadoLote registrarLote(List<MovimientoRegistro> movimientos, int tamanoBloque) {
+        long inicio = System.nanoTime();
+        String invalido = tamanoBloque > 0 ? validarLote(movimientos) : "Tamano de bloque invalido: " + tamanoBloque;
+        if (invalido != null) {
+            System.err.println("Lote rechazado. " + invalido);
+            return new ResultadoLote(new int[0], 0, System.nanoTime() - inicio, invalido);
+        }
+        int[] ids = new int[movimientos.size()];
+        int confirmados = 0;
+        int bloques = 0;
+
+        for (int desde = 0; desde < movimientos.size(); desde += tamanoBloque) {
+            List<MovimientoRegistro> bloque =
+                    movimientos.subList(desde, Math.min(movimientos.size(), desde + tamanoBloque));
+            try {
+                int ultimoId = insertarBloque(bloque);
+                int primerId = ultimoId - bloque.size() + 1;
+                for (int i = 0; i < bloque.size(); i++) {
+                    ids[desde + i] = primerId + i;
+                    bloque.get(i).setId(primerId + i);
+                }
+                confirmados += bloque.size();
+                bloques++;
+            } catch (SQLException e) {
+                String error = "Bloque desde la fila " + desde + " revertido: " + e.getMessage();
+                System.err.println("Error al registrar lote. " + error);
+                return new ResultadoLote(Arrays.copyOf(ids, confirmados), bloques, System.nanoTime() - inicio, error);
+            }
+        }
+        return new ResultadoLote(ids, bloques, System.nanoTime() - inicio, null);
+    }
 
-        try {
-            conn.setAutoCommit(false);
+    /** Motivo por el que el lote no se puede insertar, o null si todos los movimientos son validos. */
+    private static String validarLote(List<MovimientoRegistro> movimientos) {
+        for (int i = 0; i < movimientos.size(); i++) {
+            String motivo = motivoInvalido(movimientos.get(i));
+            if (motivo != null) return "Fila " + i + " invalida: " + motivo;
+        }
+        return null;
+    }
 
-            int nuevoId = -1;
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlInsert, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setInt(1, origenId);
-                pstmt.setInt(2, destinoId);
-                pstmt.setDouble(3, monto);
-                pstmt.setString(4, descripcion);
-                pstmt.executeUpdate();
-                try (ResultSet llaves = pstmt.getGeneratedKeys()) {
-                    if (llaves.next()) nuevoId = llaves.getInt(1);
+    private static String motivoInvalido(MovimientoRegistro mov) {
+        if (mov.getTipo() == null)                return "sin tipo";
+        if (mov.getCuentaOrigenId() == null)      return "sin cuenta de origen";
+        if (mov.getMontoCentimos() <= 0)          return "el monto debe ser mayor a cero";
+        if (mov.getTipo() != MovimientoRegistro.Tipo.TRANSFERENCIA) return null;
+        if (mov.getCuentaDestinoId() == null)     return "transferencia sin cuenta de destino";
+        if (mov.getCuentaDestinoId().equals(mov.getCuentaOrigenId())) return "transferencia a la misma cuenta";
+        return null;
+    }
+
+    /** Inserta un bloque en una sola transaccion y retorna el id del ultimo movimiento insertado. */
+    private int insertarBloque(List<MovimientoRegistro> bloque) throws SQLException {
+        try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+            ConexionPrestada prestamo = unidad.prestamo();
+
+            Map<Integer, long[]> deltas = new HashMap<>();
+            PreparedStatement insertar = prestamo.preparar(SQL_INSERTAR_LOTE);
+            for (MovimientoRegistro mov : bloque) {
+                insertar.setInt(1, mov.getCuentaOrigenId());
+                if (mov.getCuentaDestinoId() != null) {
+                    insertar.setInt(2, mov.getCuentaDestinoId());
+                } else {
+                    insertar.setNull(2, Types.INTEGER);
                 }
+                insertar.setString(3, mov.getTipo().name());
+                insertar.setLong(4, mov.getMontoCentimos());
+                insertar.setString(5, mov.getDescripcion());
+                insertar.setString(6, mov.getTipo() == MovimientoRegistro.Tipo.TRANSFERENCIA && mov.getCategoria() == null
+                        ? "Transferencia" : mov.getCategoria());
+                insertar.setString(7, MapeadorMovimientos.formatearFecha(mov.getFecha()));
+                insertar.addBatch();
+                acumularDelta(deltas, mov);
             }
+            insertar.executeBatch();
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlDescontar)) {
-                pstmt.setDouble(1, monto);
-                pstmt.setInt(2, origenId);
-                pstmt.executeUpdate();
+            int ultimoId;
+            try (ResultSet rs = prestamo.preparar(SQL_ULTIMO_ID).executeQuery()) {
+                rs.next();
+                ultimoId = rs.getInt(1);
             }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlAcreditar)) {
-                pstmt.setDouble(1, monto);
-                pstmt.setInt(2, destinoId);
-                pstmt.executeUpdate();
+            // Un UPDATE por cuenta afectada (no por movimiento); RETURNING no admite executeBatch.
+            // Un extracto importado refleja movimientos ya ocurridos: sin condicion de saldo.
+            for (Map.Entry<Integer, long[]> delta : deltas.entrySet()) {
+                SaldoActualizado saldo = ajustarSaldo(prestamo, delta.getKey(), delta.getValue()[0]);
+                unidad.alConfirmar(() -> publicar(saldo));
             }
 
-            conn.commit();
-            conn.setAutoCommit(true);
+            acumularResumen(prestamo, ultimoId - bloque.size() + 1, ultimoId);
 
-            MovimientoRegistro mov = new MovimientoRegistro(
-                origenId, destinoId, MovimientoRegistro.Tipo.TRANSFERENCIA,
-                monto, descripcion, "Transferencia"
-            );
-            mov.setId(nuevoId);
-            return mov;
+            unidad.confirmar();
+            return ultimoId;
+        }
+    }
 
-        } catch (SQLException e) {
-            rollback(conn);
-            System.err.println("Error en transferencia. ROLLBACK de las 3 operaciones: " + e.getMessage());
-            e.printStackTrace();
-            return null;
+    /** Saldo de una cuenta tal como quedo tras un ajuste, dentro de la transaccion en curso. */
+    record SaldoActualizado(int usuarioId, int cuentaId, long saldoCentimos) { }
+
+    /**
+     * Ejecuta {@link #SQL_SUMAR_SALDO} (monto positivo o negativo) y retorna el saldo resultante.
+     *
+     * @throws SQLException si la cuenta no existe, para revertir la transaccion en curso
+     */
+    private static SaldoActualizado ajustarSaldo(ConexionPrestada prestamo, int cuentaId, long montoCentimos)
+            throws SQLException {
+        PreparedStatement ajustar = prestamo.preparar(SQL_SUMAR_SALDO);
+        ajustar.setLong(1, montoCentimos);
+        ajustar.setInt(2, cuentaId);
+        try (ResultSet rs = ajustar.executeQuery()) {
+            if (!rs.next()) throw new SQLException("La cuenta id=" + cuentaId + " no existe");
+            return new SaldoActualizado(rs.getInt(1), cuentaId, rs.getLong(2));
+        }
+    }
+
+    /**
+     * Descuenta {@code montoCentimos} solo si el saldo alcanza.
+     *
+     * @return El saldo resultante, o null si la BD rechazo el debito (saldo insuficiente o
+     *         cuenta inexistente)
+     */
+    private static SaldoActualizado debitar(ConexionPrestada prestamo, int cuentaId, long montoCentimos) throws SQLException {
+        PreparedStatement debito = prestamo.preparar(SQL_RESTAR_SALDO);
+        debito.setLong(1, montoCentimos);
+        debito.setInt(2, cuentaId);
+        debito.setLong(3, montoCentimos);
+        try (ResultSet rs = debito.executeQuery()) {
+            return rs.next() ? new SaldoActualizado(rs.getInt(1), cuentaId, rs.getLong(2)) : null;
         }
     }
 
+    /**
+     * Consulta el saldo que impidio un debito. El debito rechazado no escribio nada; la cola
+     * deshace el resto de la operacion al ver que no fue exitosa.
+     */
+    private static ResultadoMovimiento rechazarDebito(ConexionPrestada prestamo, int cuentaId) throws SQLException {
+        PreparedStatement consultar = prestamo.preparar(SQL_SALDO_CUENTA);
+        consultar.setInt(1, cuentaId);
+        try (ResultSet rs = consultar.executeQuery()) {
+            if (!rs.next()) throw new SQLException("La cuenta id=" + cuentaId + " no existe");
+            return ResultadoMovimiento.saldoInsuficiente(rs.getLong(1));
+        }
+    }
+
+    /** Escribe en la cache un saldo ya confirmado. Debe llamarse con la escritora aun prestada. */
+    static void publicar(SaldoActualizado saldo) {
+        CacheCuentas.getInstance().actualizarSaldo(saldo.usuarioId(), saldo.cuentaId(), saldo.saldoCentimos());
+    }
+
+    /**
+     * Suma al resumen mensual los ingresos y gastos con id en [desdeId, hastaId]. Se ejecuta
+     * dentro de la misma transaccion que los inserta, asi el resumen nunca ve un movimiento
+     * sin confirmar ni pierde uno confirmado.
+     */
+    static void acumularResumen(ConexionPrestada prestamo, int desdeId, int hastaId) throws SQLException {
+        PreparedStatement resumir = prestamo.preparar(SQL_ACUMULAR_RESUMEN);
+        resumir.setInt(1, desdeId);
+        resumir.setInt(2, hastaId);
+        resumir.executeUpdate();
+    }
+
+    /** Acumula el delta de saldo del movimiento en centimos, sin boxear un Long por cada suma. */
+    private static void acumularDelta(Map<Integer, long[]> deltas, MovimientoRegistro mov) {
+        long monto = mov.getMontoCentimos();
+        switch (mov.getTipo()) {
+            case INGRESO -> sumarDelta(deltas, mov.getCuentaOrigenId(), monto);
+            case GASTO   -> sumarDelta(deltas, mov.getCuentaOrigenId(), -monto);
+            case TRANSFERENCIA -> {
+                sumarDelta(deltas, mov.getCuentaOrigenId(), -monto);
+                sumarDelta(deltas, mov.getCuentaDestinoId(), monto);
+            }
+        }
+    }
+
+    private static void sumarDelta(Map<Integer, long[]> deltas, int cuentaId, long delta) {
+        deltas.computeIfAbsent(cuentaId, id -> new long[1])[0] += delta;
+    }
+
+    /** Primera pagina del historial del usuario: sus {@code limite} movimientos mas recientes. */
     public List<MovimientoRegistro> listarUltimosMovimientos(int usuarioId, int limite) {
-        List<MovimientoRegistro> movimientos = new ArrayList<>();
+        if (limite <= 0) return new ArrayList<>();
+        return listarMovimientosPaginados(usuarioId, null, limite).getMovimientos();
+    }
 
-        String sql = "SELECT t.id, t.cuenta_origen_id, t.cuenta_destino_id, t.tipo, " +
-                     "       t.monto, t.fecha, t.descripcion, t.categoria " +
-                     "FROM transacciones t " +
-                     "INNER JOIN cuentas c ON (t.cuenta_origen_id = c.id OR t.cuenta_destino_id = c.id) " +
-                     "WHERE c.usuario_id = ? " +
-                     "GROUP BY t.id " +
-                     "ORDER BY t.fecha DESC " +
-                     "LIMIT ?";
+    /**
+     * Pagina del historial de movimientos del usuario (como origen o destino), de mas reciente
+     * a mas antiguo, empezando justo despues de {@code desde}.
+     *
+     * Por cada cuenta del usuario se hacen dos sondas por indice — lado origen sobre
+     * idx_transacciones_origen_fecha y lado destino sobre idx_transacciones_destino_fecha —,
+     * cada una limitada a {@code tamano + 1} filas posteriores al cursor. El UNION las mezcla
+     * por fecha y elimina las transferencias entre cuentas propias, que aparecen en ambos lados.
+     * Con mas de {@link #CUENTAS_POR_CONSULTA} cuentas se hace una consulta por tramo y los
+     * tramos se mezclan aqui, con el mismo orden y sin repetir transferencias.
+     *
+     * @param desde  Cursor devuelto por la pagina anterior, o null para la primera pagina
+     * @param tamano Cantidad maxima de movimientos de la pagina, mayor a cero
+     * @throws IllegalArgumentException si {@code tamano <= 0}: una pagina vacia con cursor
+     *         siguiente haria girar sin fin a quien recorre el historial
+     */
+    public PaginaMovimientos listarMovimientosPaginados(int usuarioId, PaginaMovimientos.Cursor desde, int tamano) {
+        if (tamano <= 0) throw new IllegalArgumentException("Tamano de pagina invalido: " + tamano);
+        PaginaMovimientos.Cursor cursor = (desde != null) ? desde : PaginaMovimientos.Cursor.INICIO;
+        List<MovimientoRegistro> movimientos = new ArrayList<>();
+        PaginaMovimientos.Cursor siguiente = null;
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            List<Integer> cuentas = listarIdsCuentas(prestamo, usuarioId);
+            if (cuentas.isEmpty()) return new PaginaMovimientos(movimientos, null);
 
-            pstmt.setInt(1, usuarioId);
-            pstmt.setInt(2, limite);
+            List<FilaHistorial> filas = new ArrayList<>();
+            for (int tramo = 0; tramo < cuentas.size(); tramo += CUENTAS_POR_CONSULTA) {
+                leerHistorial(prestamo, cuentas.subList(tramo, Math.min(cuentas.size(), tramo + CUENTAS_POR_CONSULTA)),
+                        cursor, tamano + 1, filas);
+            }
+            if (cuentas.size() > CUENTAS_POR_CONSULTA) filas = mezclarTramos(filas);
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) movimientos.add(mapearFila(rs));
+            for (FilaHistorial fila : filas) {
+                if (movimientos.size() == tamano) {
+                    FilaHistorial ultima = filas.get(tamano - 1);
+                    siguiente = new PaginaMovimientos.Cursor(ultima.fecha(), ultima.movimiento().getId());
+                    break;
+                }
+                movimientos.add(fila.movimiento());
             }
 
         } catch (SQLException e) {
             System.err.println("Error al listar movimientos del usuario " + usuarioId + ": " + e.getMessage());
             e.printStackTrace();
         }
-        return movimientos;
+        return new PaginaMovimientos(movimientos, siguiente);
     }
 
-    public Map<String, Double> obtenerResumenGastos(int usuarioId) {
-        Map<String, Double> resumen = new HashMap<>();
+    /** Movimiento del historial con su fecha tal como esta en la BD (la del cursor). */
+    private record FilaHistorial(String fecha, MovimientoRegistro movimiento) { }
+
+    /** Agrega a {@code filas} hasta {@code limite} movimientos de estas cuentas posteriores al cursor. */
+    private static void leerHistorial(ConexionPrestada prestamo, List<Integer> cuentas, PaginaMovimientos.Cursor cursor,
+                                      int limite, List<FilaHistorial> filas) throws SQLException {
+        PreparedStatement pstmt = prestamo.preparar(sqlHistorialPaginado(cuentas.size()));
+        int i = 1;
+        for (int cuentaId : cuentas) {
+            for (int lado = 0; lado < 2; lado++) {
+                pstmt.setInt(i++, cuentaId);
+                pstmt.setString(i++, cursor.fecha());
+                pstmt.setInt(i++, cursor.id());
+                pstmt.setInt(i++, limite);
+            }
+        }
+        pstmt.setInt(i, limite);
 
-        String sql = "SELECT COALESCE(t.categoria, 'Sin categoria') AS categoria, " +
-                     "       SUM(t.monto) AS total " +
-                     "FROM transacciones t " +
-                     "INNER JOIN cuentas c ON t.cuenta_origen_id = c.id " +
-                     "WHERE c.usuario_id = ? AND t.tipo = 'GASTO' " +
-                     "GROUP BY t.categoria " +
-                     "ORDER BY total DESC";
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                filas.add(new FilaHistorial(rs.getString(MapeadorMovimientos.COL_FECHA), MapeadorMovimientos.mapear(rs)));
+            }
+        }
+    }
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * Ordena los resultados de varios tramos por (fecha, id) descendente y quita las
+     * transferencias entre cuentas de tramos distintos, que llegan una vez por tramo.
+     */
+    private static List<FilaHistorial> mezclarTramos(List<FilaHistorial> filas) {
+        filas.sort(Comparator.comparing(FilaHistorial::fecha)
+                .thenComparingInt((FilaHistorial f) -> f.movimiento().getId())
+                .reversed());
+        List<FilaHistorial> unicas = new ArrayList<>(filas.size());
+        for (FilaHistorial fila : filas) {
+            if (!unicas.isEmpty() && unicas.get(unicas.size() - 1).movimiento().getId().equals(fila.movimiento().getId())) continue;
+            unicas.add(fila);
+        }
+        return unicas;
+    }
 
-            pstmt.setInt(1, usuarioId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    resumen.put(rs.getString("categoria"), rs.getDouble("total"));
-                }
+    private List<Integer> listarIdsCuentas(ConexionPrestada prestamo, int usuarioId) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        PreparedStatement pstmt = prestamo.preparar(SQL_IDS_CUENTAS_USUARIO);
+        pstmt.setInt(1, usuarioId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+        return ids;
+    }
+
+    /**
+     * UNION de dos sondas (origen y destino) por cada cuenta. Cada sonda filtra por
+     * {@code (fecha, id) < (?, ?)} sobre su indice (cuenta, fecha), que ya entrega las filas
+     * en orden descendente, asi que ninguna lee mas alla de su LIMIT.
+     */
+    static String sqlHistorialPaginado(int cantidadCuentas) {
+        return SQL_HISTORIAL.computeIfAbsent(cantidadCuentas, n -> {
+            String sonda = "SELECT * FROM (SELECT " + COLUMNAS_MOVIMIENTO + " FROM transacciones " +
+                           "WHERE %s = ? AND (fecha, id) < (?, ?) " +
+                           "ORDER BY fecha DESC, id DESC LIMIT ?)";
+            StringJoiner sondas = new StringJoiner(" UNION ");
+            for (int c = 0; c < n; c++) {
+                sondas.add(String.format(sonda, "cuenta_origen_id"));
+                sondas.add(String.format(sonda, "cuenta_destino_id"));
             }
+            return "SELECT " + COLUMNAS_MOVIMIENTO + " FROM (" + sondas + ") " +
+                   "ORDER BY fecha DESC, id DESC LIMIT ?";
+        });
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Error al obtener resumen de gastos: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return resumen;
+    /** Gastos del usuario agrupados por categoria, de mayor a menor total. */
+    public ResumenCategorias obtenerResumenGastos(int usuarioId) {
+        return leerResumen(SQL_RESUMEN_GASTOS, usuarioId, "gastos");
     }
 
-    public Map<String, Double> obtenerResumenIngresos(int usuarioId) {
-        Map<String, Double> resumen = new HashMap<>();
+    /** Ingresos del usuario agrupados por categoria, de mayor a menor total. */
+    public ResumenCategorias obtenerResumenIngresos(int usuarioId) {
+        return leerResumen(SQL_RESUMEN_INGRESOS, usuarioId, "ingresos");
+    }
 
-        String sql = "SELECT COALESCE(t.categoria, 'Sin categoria') AS categoria, " +
-                     "       SUM(t.monto) AS total " +
-                     "FROM transacciones t " +
-                     "INNER JOIN cuentas c ON t.cuenta_origen_id = c.id " +
-                     "WHERE c.usuario_id = ? AND t.tipo = 'INGRESO' " +
-                     "GROUP BY t.categoria " +
-                     "ORDER BY total DESC";
+    private ResumenCategorias leerResumen(String sql, int usuarioId, String etiqueta) {
+        ResumenCategorias resumen = new ResumenCategorias();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(sql);
 
             pstmt.setInt(1, usuarioId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    resumen.put(rs.getString("categoria"), rs.getDouble("total"));
+                    resumen.agregar(rs.getString(1), rs.getLong(2));
                 }
             }
 
         } catch (SQLException e) {
-            System.err.println("Error al obtener resumen de ingresos: " + e.getMessage());
+            System.err.println("Error al obtener resumen de " + etiqueta + ": " + e.getMessage());
             e.printStackTrace();
         }
         return resumen;
     }
-
-    private MovimientoRegistro mapearFila(ResultSet rs) throws SQLException {
-        int      id          = rs.getInt("id");
-        int      origenId    = rs.getInt("cuenta_origen_id");
-        Integer  destinoId   = rs.getObject("cuenta_destino_id") != null ? rs.getInt("cuenta_destino_id") : null;
-        String   tipoStr     = rs.getString("tipo");
-        double   monto       = rs.getDouble("monto");
-        String   fechaStr    = rs.getString("fecha");
-        String   descripcion = rs.getString("descripcion");
-        String   categoria   = rs.getString("categoria");
-
-        MovimientoRegistro.Tipo tipo = MovimientoRegistro.Tipo.valueOf(tipoStr);
-
-        LocalDateTime fecha = (fechaStr != null)
-                ? LocalDateTime.parse(fechaStr.replace(" ", "T"))
-                : LocalDateTime.now();
-
-        return new MovimientoRegistro(id, origenId, destinoId, tipo, monto, fecha, descripcion, categoria);
-    }
-
-    private void rollback(Connection conn) {
-        try {
-            conn.rollback();
-            conn.setAutoCommit(true);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-    }
 }
@@ -1,18 +1,24 @@
 package dao;
 
 import modelo.Usuario;
+import util.ConexionPrestada;
 import util.DatabaseConnection;
+import util.UnidadDeTrabajo;
 
 import java.sql.*;
 
 /** DAO para la entidad {@link Usuario}. */
 public class UsuarioDAO {
 
-    public Usuario buscarPorWhatsapp(String numeroWhatsApp) {
-        String sql = "SELECT id, numero_whatsapp, nombre FROM usuarios WHERE numero_whatsapp = ?";
+    static final String SQL_BUSCAR_POR_WHATSAPP =
+            "SELECT id, numero_whatsapp, nombre FROM usuarios WHERE numero_whatsapp = ?";
+
+    static final String SQL_INSERTAR =
+            "INSERT INTO usuarios (numero_whatsapp, nombre) VALUES (?, ?)";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    public Usuario buscarPorWhatsapp(String numeroWhatsApp) {
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(SQL_BUSCAR_POR_WHATSAPP);
 
             pstmt.setString(1, numeroWhatsApp);
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -28,10 +34,8 @@ public class UsuarioDAO {
     }
 
     public Usuario crearUsuario(Usuario usuario) {
-        String sql = "INSERT INTO usuarios (numero_whatsapp, nombre) VALUES (?, ?)";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+        try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+            PreparedStatement pstmt = unidad.preparar(SQL_INSERTAR, true);
 
             pstmt.setString(1, usuario.getNumeroWhatsApp());
             pstmt.setString(2, usuario.getNombre());
@@ -40,6 +44,7 @@ public class UsuarioDAO {
                 try (ResultSet rs = pstmt.getGeneratedKeys()) {
                     if (rs.next()) {
                         usuario.setId(rs.getInt(1));
+                        unidad.confirmar();
                         System.out.println("Usuario registrado con ID: " + usuario.getId());
                         return usuario;
                     }
@@ -0,0 +1,167 @@
+package dao;
+
+import modelo.CuentaBancaria;
+import modelo.CuentaFinanciera;
+import modelo.MovimientoRegistro;
+import modelo.Usuario;
+import util.ConexionPrestada;
+import util.DatabaseConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Chequeo de regresion de la importacion en bloque ({@link TransaccionDAO#registrarLote}).
+ *
+ * Importa un extracto con movimientos de un mes pasado y uno sin fecha, y comprueba que el
+ * historial los devuelve en el orden de sus fechas, que {@code resumen_categorias} los
+ * acumula en ese mes y que el resumen coincide con el recalculado desde el historial.
+ *
+ * Trabaja sobre una base temporal salvo que se indique {@code -Dchatfinance.db.url}.
+ * Uso: {@code java -cp ChatFinance.jar Main --verificar-importacion} (codigo de salida 1 si falla).
+ */
+public final class VerificadorImportacion {
+
+    private static final String MES = "2024-03";
+
+    static final String SQL_RESUMEN_MES =
+            "SELECT tipo, categoria, total_centimos, cantidad FROM resumen_categorias " +
+            "WHERE usuario_id = ? AND mes = ? ORDER BY tipo, categoria";
+
+    private VerificadorImportacion() { }
+
+    /**
+     * Importa el extracto de prueba para un usuario nuevo.
+     *
+     * @return Descripcion de cada discrepancia; vacia si la importacion es correcta
+     */
+    public static List<String> verificar() {
+        List<String> errores = new ArrayList<>();
+
+        Usuario usuario = new UsuarioDAO().crearUsuario(
+                new Usuario("8" + (System.nanoTime() % 100_000_000L), "Importacion"));
+        CuentaFinanciera cuenta = usuario == null ? null
+                : new CuentaDAO().guardar(new CuentaBancaria(usuario.getId(), "Extracto", 50_000, "BCP", null));
+        if (cuenta == null) {
+            errores.add("No se pudo crear el usuario o la cuenta de prueba.");
+            return errores;
+        }
+
+        // En el orden del extracto, que no es el cronologico.
+        List<MovimientoRegistro> extracto = List.of(
+                movimiento(cuenta, MovimientoRegistro.Tipo.GASTO,   1_000, "Comida",     LocalDateTime.of(2024, 3, 5, 12, 0)),
+                movimiento(cuenta, MovimientoRegistro.Tipo.INGRESO, 10_000, "Sueldo",    LocalDateTime.of(2024, 3, 1, 9, 0)),
+                movimiento(cuenta, MovimientoRegistro.Tipo.GASTO,   550, "Comida",       LocalDateTime.of(2024, 3, 20, 8, 30, 15, 999_000_000)),
+                movimiento(cuenta, MovimientoRegistro.Tipo.GASTO,   200, "Transporte",   null));
+
+        TransaccionDAO dao = new TransaccionDAO();
+        ResultadoLote resultado = dao.registrarLote(extracto, 2);
+        if (resultado.getFilasConfirmadas() != extracto.size()) {
+            errores.add("Se confirmaron " + resultado.getFilasConfirmadas() + " de " + extracto.size() + " movimientos.");
+            return errores;
+        }
+
+        // Historial: el movimiento sin fecha (la de hoy) primero y luego el mes pasado, del mas reciente al mas antiguo.
+        int[] ids = resultado.getIds();
+        int[] ordenEsperado = { ids[3], ids[2], ids[0], ids[1] };
+        String[] fechasEsperadas = { null, "2024-03-20T08:30:15", "2024-03-05T12:00", "2024-03-01T09:00" };
+        List<MovimientoRegistro> historial = dao.listarUltimosMovimientos(usuario.getId(), 10);
+        if (historial.size() != ordenEsperado.length) {
+            errores.add("El historial tiene " + historial.size() + " movimientos; se esperaban " + ordenEsperado.length + ".");
+        } else {
+            for (int i = 0; i < ordenEsperado.length; i++) {
+                MovimientoRegistro mov = historial.get(i);
+                if (mov.getId() != ordenEsperado[i]) {
+                    errores.add("Historial[" + i + "]: id " + mov.getId() + ", se esperaba " + ordenEsperado[i] + ".");
+                } else if (fechasEsperadas[i] != null && !fechasEsperadas[i].equals(mov.getFecha().toString())) {
+                    errores.add("Historial[" + i + "]: fecha " + mov.getFecha() + ", se esperaba " + fechasEsperadas[i] + ".");
+                }
+            }
+        }
+
+        List<String> resumen = resumenDelMes(usuario.getId());
+        List<String> resumenEsperado = List.of("GASTO Comida 1550 2", "INGRESO Sueldo 10000 1");
+        if (!resumenEsperado.equals(resumen)) {
+            errores.add("Resumen de " + MES + ": " + resumen + ", se esperaba " + resumenEsperado + ".");
+        }
+
+        for (String diferencia : MantenimientoResumen.verificar()) {
+            errores.add("Resumen distinto del historial: " + diferencia);
+        }
+        return errores;
+    }
+
+    private static MovimientoRegistro movimiento(CuentaFinanciera cuenta, MovimientoRegistro.Tipo tipo,
+                                                 long montoCentimos, String categoria, LocalDateTime fecha) {
+        MovimientoRegistro mov = new MovimientoRegistro(cuenta.getId(), null, tipo, montoCentimos,
+                "Extracto " + categoria, categoria);
+        mov.setFecha(fecha);
+        return mov;
+    }
+
+    private static List<String> resumenDelMes(int usuarioId) {
+        List<String> filas = new ArrayList<>();
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            PreparedStatement pstmt = prestamo.preparar(SQL_RESUMEN_MES);
+            pstmt.setInt(1, usuarioId);
+            pstmt.setString(2, MES);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    filas.add(rs.getString(1) + " " + rs.getString(2) + " " + rs.getLong(3) + " " + rs.getInt(4));
+                }
+            }
+        } catch (SQLException e) {
+            filas.add("No se pudo leer el resumen: " + e.getMessage());
+        }
+        return filas;
+    }
+
+    public static void main(String[] args) {
+        // Debe fijarse antes del primer uso de DatabaseConnection.
+        Path directorio = null;
+        try {
+            if (System.getProperty("chatfinance.db.url") == null) {
+                directorio = Files.createTempDirectory("chatfinance-importacion");
+                System.setProperty("chatfinance.db.url", "jdbc:sqlite:" + directorio.resolve("finanzas.db"));
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo crear la base temporal: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        List<String> errores;
+        try {
+            errores = verificar();
+        } finally {
+            ColaEscritura.detener();
+            DatabaseConnection.getInstance().cerrarConexion();
+            if (directorio != null) borrar(directorio);
+        }
+
+        if (errores.isEmpty()) {
+            System.out.println("La importacion conserva las fechas y el resumen por mes.");
+            return;
+        }
+        System.err.println(errores.size() + " error(es) en la importacion en bloque:");
+        errores.forEach(e -> System.err.println("  " + e));
+        System.exit(1);
+    }
+
+    private static void borrar(Path directorio) {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path p : archivos.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar " + directorio + ": " + e.getMessage());
+        }
+    }
+}
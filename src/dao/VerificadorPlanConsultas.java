@@ -0,0 +1,119 @@
+package dao;
+
+import util.ConexionPrestada;
+import util.DatabaseConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chequeo de regresion de planes de consulta.
+ *
+ * Ejecuta {@code EXPLAIN QUERY PLAN} sobre cada sentencia de los DAOs y falla si alguna
+ * recorre una tabla completa ({@code SCAN}) en lugar de buscar por indice ({@code SEARCH}).
+ * Las consultas que por diseno recorren toda la tabla (listados sin filtro) se registran
+ * con {@code permiteScan = true}.
+ *
+ * Uso: {@code java -cp ChatFinance.jar Main --verificar-planes} (codigo de salida 1 si hay regresiones).
+ */
+public final class VerificadorPlanConsultas {
+
+    private record Consulta(String nombre, String sql, boolean permiteScan) { }
+
+    private static final List<Consulta> CONSULTAS = List.of(
+        new Consulta("UsuarioDAO.buscarPorWhatsapp",            UsuarioDAO.SQL_BUSCAR_POR_WHATSAPP,          false),
+        new Consulta("UsuarioDAO.crearUsuario",                 UsuarioDAO.SQL_INSERTAR,                     false),
+
+        new Consulta("CuentaDAO.guardar",                       CuentaDAO.SQL_INSERTAR,                      false),
+        new Consulta("CuentaDAO.buscarPorId",                   CuentaDAO.SQL_BUSCAR_POR_ID,                 false),
+        new Consulta("CuentaDAO.listarTodos",                   CuentaDAO.SQL_SELECCIONAR,                   true),
+        new Consulta("CuentaDAO.listarPorUsuario",              CuentaDAO.SQL_LISTAR_POR_USUARIO,            false),
+        new Consulta("CuentaDAO.calcularPatrimonioTotal",       CuentaDAO.SQL_PATRIMONIO_TOTAL,              false),
+        new Consulta("CuentaDAO.actualizarSaldo",               CuentaDAO.SQL_ACTUALIZAR_SALDO,              false),
+
+        new Consulta("TransaccionDAO.guardar",                  TransaccionDAO.SQL_INSERTAR,                 false),
+        new Consulta("TransaccionDAO.buscarPorId",              TransaccionDAO.SQL_BUSCAR_POR_ID,            false),
+        new Consulta("TransaccionDAO.listarTodos",              TransaccionDAO.SQL_LISTAR_TODOS,             true),
+        new Consulta("TransaccionDAO.streamTodos",              TransaccionDAO.SQL_RECORRER_TODOS,           true),
+        new Consulta("TransaccionDAO.registrarLote",            TransaccionDAO.SQL_INSERTAR_LOTE,            false),
+        new Consulta("TransaccionDAO.registrarIngreso",         TransaccionDAO.SQL_INSERTAR_INGRESO,         false),
+        new Consulta("TransaccionDAO.registrarGasto",           TransaccionDAO.SQL_INSERTAR_GASTO,           false),
+        new Consulta("TransaccionDAO.realizarTransferencia",    TransaccionDAO.SQL_INSERTAR_TRANSFERENCIA,   false),
+        new Consulta("TransaccionDAO.sumarSaldo",               TransaccionDAO.SQL_SUMAR_SALDO,              false),
+        new Consulta("TransaccionDAO.restarSaldo",              TransaccionDAO.SQL_RESTAR_SALDO,             false),
+        new Consulta("TransaccionDAO.saldoCuenta",              TransaccionDAO.SQL_SALDO_CUENTA,             false),
+        new Consulta("TransaccionDAO.idsCuentasUsuario",        TransaccionDAO.SQL_IDS_CUENTAS_USUARIO,      false),
+        new Consulta("TransaccionDAO.listarMovimientosPaginados", TransaccionDAO.sqlHistorialPaginado(2),   false),
+        new Consulta("TransaccionDAO.obtenerResumenGastos",     TransaccionDAO.SQL_RESUMEN_GASTOS,           false),
+        new Consulta("TransaccionDAO.obtenerResumenIngresos",   TransaccionDAO.SQL_RESUMEN_INGRESOS,         false),
+        new Consulta("TransaccionDAO.acumularResumen",          TransaccionDAO.SQL_ACUMULAR_RESUMEN,         false),
+        new Consulta("MotorReportes.serie (movimientos)",      MotorReportes.sqlSerie(Granularidad.SEMANA, MotorReportes.Desglose.CATEGORIA, false), false),
+        new Consulta("MotorReportes.serie (por cuenta)",       MotorReportes.sqlSerie(Granularidad.DIA, MotorReportes.Desglose.CUENTA, false), false),
+        new Consulta("MotorReportes.serie (resumen)",          MotorReportes.sqlSerie(Granularidad.MES, MotorReportes.Desglose.CATEGORIA, true), false),
+        new Consulta("MantenimientoResumen.verificar",          MantenimientoResumen.SQL_DIFERENCIAS,        true)
+    );
+
+    private VerificadorPlanConsultas() { }
+
+    /**
+     * Imprime el plan de cada consulta registrada.
+     *
+     * @return Descripcion de cada consulta que hace SCAN sin estar permitida; vacia si todo usa indices
+     */
+    public static List<String> verificar() {
+        List<String> regresiones = new ArrayList<>();
+        System.out.println("Verificando planes de consulta (esquema v"
+                + DatabaseConnection.getInstance().getVersionEsquema() + ")...");
+
+        try (ConexionPrestada prestamo = DatabaseConnection.getInstance().prestarLectura()) {
+            for (Consulta consulta : CONSULTAS) {
+                List<String> plan = explicar(prestamo, consulta.sql());
+                boolean hayScan = plan.stream().anyMatch(VerificadorPlanConsultas::esScanCompleto);
+                boolean falla   = hayScan && !consulta.permiteScan();
+
+                System.out.printf("%s %s%n", falla ? "[FALLA]" : "[ OK  ]", consulta.nombre());
+                for (String paso : plan) System.out.println("          " + paso);
+
+                if (falla) regresiones.add(consulta.nombre() + " -> " + String.join(" | ", plan));
+            }
+        } catch (SQLException e) {
+            regresiones.add("No se pudo obtener el plan: " + e.getMessage());
+        }
+        return regresiones;
+    }
+
+    private static List<String> explicar(ConexionPrestada prestamo, String sql) throws SQLException {
+        List<String> pasos = new ArrayList<>();
+        PreparedStatement pstmt = prestamo.preparar("EXPLAIN QUERY PLAN " + sql);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) pasos.add(rs.getString("detail"));
+        }
+        return pasos;
+    }
+
+    /**
+     * {@code SCAN CONSTANT ROW} no lee ninguna tabla y {@code SCAN (subquery-N)} recorre el
+     * resultado ya acotado de una subconsulta; cualquier otro SCAN es un recorrido completo.
+     */
+    private static boolean esScanCompleto(String paso) {
+        return paso.startsWith("SCAN ")
+                && !paso.startsWith("SCAN CONSTANT ROW")
+                && !paso.startsWith("SCAN (subquery-");
+    }
+
+    public static void main(String[] args) {
+        List<String> regresiones = verificar();
+        DatabaseConnection.getInstance().cerrarConexion();
+
+        if (regresiones.isEmpty()) {
+            System.out.println("Todos los planes usan indices.");
+            return;
+        }
+        System.err.println(regresiones.size() + " consulta(s) recorren la tabla completa:");
+        regresiones.forEach(r -> System.err.println("  " + r));
+        System.exit(1);
+    }
+}
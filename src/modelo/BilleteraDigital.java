@@ -6,16 +6,16 @@ public class BilleteraDigital extends CuentaFinanciera {
     private String alias;
     private String proveedor;
 
-    public BilleteraDigital(Integer id, Integer usuarioId, String numeroCuenta, Double saldo,
+    public BilleteraDigital(Integer id, Integer usuarioId, String numeroCuenta, long saldoCentimos,
                             String alias, String proveedor) {
-        super(id, usuarioId, numeroCuenta, saldo);
+        super(id, usuarioId, numeroCuenta, saldoCentimos);
         this.alias = alias;
         this.proveedor = proveedor;
     }
 
-    public BilleteraDigital(Integer usuarioId, String numeroCuenta, Double saldo,
+    public BilleteraDigital(Integer usuarioId, String numeroCuenta, long saldoCentimos,
                             String alias, String proveedor) {
-        super(usuarioId, numeroCuenta, saldo);
+        super(usuarioId, numeroCuenta, saldoCentimos);
         this.alias = alias;
         this.proveedor = proveedor;
     }
@@ -25,6 +25,12 @@ public class BilleteraDigital extends CuentaFinanciera {
         return String.format("Billetera %s | %s | N. %s", alias, proveedor, getNumeroCuenta());
     }
 
+    @Override
+    public String obtenerNombreCorto() {
+        if (alias != null && !alias.isBlank()) return alias;
+        return proveedor != null ? proveedor : getNumeroCuenta();
+    }
+
     @Override
     public String getTipoCuenta() {
         return "BILLETERA";
@@ -36,6 +42,11 @@ public class BilleteraDigital extends CuentaFinanciera {
                 && alias != null && proveedor != null;
     }
 
+    @Override
+    public BilleteraDigital copiar() {
+        return new BilleteraDigital(getId(), getUsuarioId(), getNumeroCuenta(), getSaldoCentimos(), alias, proveedor);
+    }
+
     public String generarQR() {
         return "QR:" + proveedor + ":" + alias + ":" + getNumeroCuenta();
     }
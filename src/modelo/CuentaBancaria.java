@@ -6,16 +6,16 @@ public class CuentaBancaria extends CuentaFinanciera {
     private String banco;
     private String cci;
 
-    public CuentaBancaria(Integer id, Integer usuarioId, String numeroCuenta, Double saldo,
+    public CuentaBancaria(Integer id, Integer usuarioId, String numeroCuenta, long saldoCentimos,
                           String banco, String cci) {
-        super(id, usuarioId, numeroCuenta, saldo);
+        super(id, usuarioId, numeroCuenta, saldoCentimos);
         this.banco = banco;
         this.cci = cci;
     }
 
-    public CuentaBancaria(Integer usuarioId, String numeroCuenta, Double saldo,
+    public CuentaBancaria(Integer usuarioId, String numeroCuenta, long saldoCentimos,
                           String banco, String cci) {
-        super(usuarioId, numeroCuenta, saldo);
+        super(usuarioId, numeroCuenta, saldoCentimos);
         this.banco = banco;
         this.cci = cci;
     }
@@ -26,6 +26,11 @@ public class CuentaBancaria extends CuentaFinanciera {
         return String.format("Banco %s | Cuenta: %s | CCI: %s", banco, getNumeroCuenta(), cciResumido);
     }
 
+    @Override
+    public String obtenerNombreCorto() {
+        return banco != null && !banco.isBlank() ? banco : getNumeroCuenta();
+    }
+
     @Override
     public String getTipoCuenta() {
         return "BANCO";
@@ -36,6 +41,11 @@ public class CuentaBancaria extends CuentaFinanciera {
         return getNumeroCuenta() != null && !getNumeroCuenta().isEmpty() && banco != null;
     }
 
+    @Override
+    public CuentaBancaria copiar() {
+        return new CuentaBancaria(getId(), getUsuarioId(), getNumeroCuenta(), getSaldoCentimos(), banco, cci);
+    }
+
     public boolean validarInterbancario() {
         return cci != null && cci.length() == 20;
     }
@@ -9,19 +9,19 @@ public abstract class CuentaFinanciera {
     private Integer id;
     private Integer usuarioId;
     private String numeroCuenta;
-    private Double saldo;
+    private long saldoCentimos;
 
-    public CuentaFinanciera(Integer id, Integer usuarioId, String numeroCuenta, Double saldo) {
+    public CuentaFinanciera(Integer id, Integer usuarioId, String numeroCuenta, long saldoCentimos) {
         this.id = id;
         this.usuarioId = usuarioId;
         this.numeroCuenta = numeroCuenta;
-        this.saldo = saldo;
+        this.saldoCentimos = saldoCentimos;
     }
 
-    public CuentaFinanciera(Integer usuarioId, String numeroCuenta, Double saldo) {
+    public CuentaFinanciera(Integer usuarioId, String numeroCuenta, long saldoCentimos) {
         this.usuarioId = usuarioId;
         this.numeroCuenta = numeroCuenta;
-        this.saldo = saldo;
+        this.saldoCentimos = saldoCentimos;
     }
 
     /**
@@ -30,12 +30,18 @@ public abstract class CuentaFinanciera {
      */
     public abstract String obtenerDetalleImprimible();
 
+    /** Nombre con el que el usuario se refiere a la cuenta (alias o banco), sin numeros ni CCI. */
+    public abstract String obtenerNombreCorto();
+
     /** Retorna el discriminador de tipo usado en la tabla Single Table Inheritance. */
     public abstract String getTipoCuenta();
 
     /** Valida que los campos obligatorios del tipo de cuenta sean correctos. */
     public abstract boolean validarCuenta();
 
+    /** Copia independiente de la cuenta, del mismo tipo concreto. */
+    public abstract CuentaFinanciera copiar();
+
     // Getters y Setters
 
     public Integer getId() { return id; }
@@ -47,6 +53,7 @@ public abstract class CuentaFinanciera {
     public String getNumeroCuenta() { return numeroCuenta; }
     public void setNumeroCuenta(String numeroCuenta) { this.numeroCuenta = numeroCuenta; }
 
-    public Double getSaldo() { return saldo; }
-    public void setSaldo(Double saldo) { this.saldo = saldo; }
+    /** Saldo en centimos, ver {@link Montos}. */
+    public long getSaldoCentimos() { return saldoCentimos; }
+    public void setSaldoCentimos(long saldoCentimos) { this.saldoCentimos = saldoCentimos; }
 }
@@ -0,0 +1,49 @@
+package modelo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Pattern;
+
+/**
+ * Montos de dinero como {@code long} en centimos (S/ 12.34 = 1234).
+ *
+ * Todo saldo y monto del modelo, de los DAOs y de la BD se maneja en centimos enteros:
+ * las sumas son exactas y no hay boxing en las rutas de escritura ni de reportes. La
+ * conversion desde texto decimal pasa por {@link BigDecimal} para no arrastrar el error
+ * binario de {@code double}.
+ */
+public final class Montos {
+
+    private static final Pattern FORMATO = Pattern.compile("[+-]?(\\d+([.,]\\d{0,2})?|[.,]\\d{1,2})");
+
+    private Montos() { }
+
+    /**
+     * Convierte texto decimal en soles ("100", "100.5", "100,50") a centimos. Acepta un solo
+     * separador decimal, punto o coma, con hasta 2 decimales: "1,500" no se reinterpreta como
+     * mil quinientos ni como 1.50, se rechaza. Tampoco acepta exponentes ("1e3").
+     *
+     * @throws NumberFormatException si el texto no tiene ese formato o no cabe en un long
+     */
+    public static long parsear(String texto) {
+        if (texto == null) throw new NumberFormatException("Monto vacio");
+        String limpio = texto.trim();
+        if (!FORMATO.matcher(limpio).matches()) throw new NumberFormatException("Monto invalido: " + texto);
+        try {
+            return desdeDecimal(new BigDecimal(limpio.replace(',', '.')));
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Monto fuera de rango: " + texto);
+        }
+    }
+
+    public static long desdeDecimal(BigDecimal soles) {
+        return soles.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    /** Formato {@code -1234.56}, equivalente a {@code %.2f} pero sin pasar por double. */
+    public static String formatear(long centimos) {
+        long absoluto = Math.abs(centimos);
+        long decimales = absoluto % 100;
+        return (centimos < 0 ? "-" : "") + (absoluto / 100) + (decimales < 10 ? ".0" : ".") + decimales;
+    }
+}
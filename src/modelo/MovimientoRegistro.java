@@ -35,7 +35,7 @@ public class MovimientoRegistro {
     private Integer cuentaOrigenId;
     private Integer cuentaDestinoId;   // null para INGRESO y GASTO
     private Tipo tipo;
-    private Double monto;
+    private long montoCentimos;        // en centimos, ver Montos
     private LocalDateTime fecha;
     private String descripcion;
     private String categoria;          // FASE 4: clasificación analítica
@@ -46,13 +46,13 @@ public class MovimientoRegistro {
 
     /** Constructor completo — usado al recuperar registros de la BD */
     public MovimientoRegistro(Integer id, Integer cuentaOrigenId, Integer cuentaDestinoId,
-                               Tipo tipo, Double monto, LocalDateTime fecha,
+                               Tipo tipo, long montoCentimos, LocalDateTime fecha,
                                String descripcion, String categoria) {
         this.id              = id;
         this.cuentaOrigenId  = cuentaOrigenId;
         this.cuentaDestinoId = cuentaDestinoId;
         this.tipo            = tipo;
-        this.monto           = monto;
+        this.montoCentimos   = montoCentimos;
         this.fecha           = fecha;
         this.descripcion     = descripcion;
         this.categoria       = categoria;
@@ -60,11 +60,11 @@ public class MovimientoRegistro {
 
     /** Constructor para crear un nuevo registro (sin ID, fecha la asigna la BD) */
     public MovimientoRegistro(Integer cuentaOrigenId, Integer cuentaDestinoId,
-                               Tipo tipo, Double monto, String descripcion, String categoria) {
+                               Tipo tipo, long montoCentimos, String descripcion, String categoria) {
         this.cuentaOrigenId  = cuentaOrigenId;
         this.cuentaDestinoId = cuentaDestinoId;
         this.tipo            = tipo;
-        this.monto           = monto;
+        this.montoCentimos   = montoCentimos;
         this.descripcion     = descripcion;
         this.categoria       = categoria;
         this.fecha           = LocalDateTime.now();
@@ -86,8 +86,8 @@ public class MovimientoRegistro {
     public Tipo getTipo() { return tipo; }
     public void setTipo(Tipo tipo) { this.tipo = tipo; }
 
-    public Double getMonto() { return monto; }
-    public void setMonto(Double monto) { this.monto = monto; }
+    public long getMontoCentimos() { return montoCentimos; }
+    public void setMontoCentimos(long montoCentimos) { this.montoCentimos = montoCentimos; }
 
     public LocalDateTime getFecha() { return fecha; }
     public void setFecha(LocalDateTime fecha) { this.fecha = fecha; }
@@ -100,11 +100,11 @@ public class MovimientoRegistro {
 
     @Override
     public String toString() {
-        return String.format("[%s][%s] %s | S/ %.2f | %s",
+        return String.format("[%s][%s] %s | S/ %s | %s",
                 tipo,
                 categoria != null ? categoria : "-",
                 descripcion,
-                monto,
+                Montos.formatear(montoCentimos),
                 fecha);
     }
 }
@@ -6,33 +6,77 @@ import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatLanguageModel;
-import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.ollama.OllamaStreamingChatModel;
 import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Servicio de Inteligencia Artificial — Router de Intenciones.
  * Clasifica el texto libre del usuario en una de 4 intenciones y extrae
  * los parametros relevantes en un {@link IntencionOperacionDTO}.
  *
- * Requiere Ollama corriendo en http://localhost:11434 con el modelo "llama3.2".
+ * Requiere Ollama corriendo en http://localhost:11434 (o en {@code chatfinance.ollama.url}) con el
+ * modelo "llama3.2". Las llamadas pasan por el circuit breaker de {@link SaludOllama}: con Ollama
+ * caido fallan en el acto y devuelven null.
+ *
+ * Ademas de la llamada bloqueante ({@link #interpretarTexto}) ofrece una asincrona y
+ * cancelable ({@link #interpretarTextoAsync}) y una en streaming
+ * ({@link #interpretarTextoStreaming}) que informa la intencion antes de que termine la
+ * generacion. Las tres consultan primero {@link CacheIntenciones} y guardan ahi cada
+ * interpretacion valida.
+ *
+ * El prompt es un prefijo fijo ({@link #SYSTEM_PROMPT}) mas un mensaje corto con las cuentas y
+ * el texto, para que Ollama reutilice el prefijo ya evaluado; {@link PrecargaModelo} mantiene el
+ * modelo cargado. Cada texto va en su propia peticion, con solo las cuentas de su usuario; las
+ * sesiones concurrentes se atienden en paralelo con las ranuras de Ollama
+ * ({@code OLLAMA_NUM_PARALLEL}). Cada llamada registra tokens de prompt, de respuesta y tiempo
+ * al primer token (ver {@link #getEstadisticas()}).
  */
 public class AsistenteIAService {
 
-    private static final String URL_OLLAMA  = "http://localhost:11434";
+    private static final String URL_OLLAMA  = System.getProperty("chatfinance.ollama.url", "http://localhost:11434");
     private static final String MODELO      = "llama3.2";
     private static final int    TIMEOUT_SEG = 60;
 
-    private final ChatLanguageModel modeloChat;
-    private final Gson              gson;
+    /** Plazo de un mensaje del usuario: desde pedir la interpretacion hasta tener el DTO. */
+    public static final long PLAZO_MENSAJE_MS = 60_000;
+
+    // Metricas de todas las instancias (una por sesion en el modo servidor).
+    private static final LongAdder      LLAMADAS           = new LongAdder();
+    private static final LongAdder      TOKENS_PROMPT      = new LongAdder();
+    private static final LongAdder      TOKENS_RESPUESTA   = new LongAdder();
+    private static final LongAdder      TOTAL_NANOS        = new LongAdder();
+    private static final LongAdder      PRIMEROS_TOKENS    = new LongAdder();
+    private static final LongAdder      PRIMER_TOKEN_NANOS = new LongAdder();
+    private static final LongAccumulator MAX_PRIMER_TOKEN  = new LongAccumulator(Math::max, 0L);
+
+    private static final Gson GSON = new Gson();
+
+    private final StreamingChatLanguageModel modeloStreaming;
+    private final CacheIntenciones           cache = CacheIntenciones.getInstance();
+    private final SaludOllama                salud = SaludOllama.getInstance(URL_OLLAMA, MODELO);
 
-    private static final String SYSTEM_PROMPT_PLANTILLA =
+    /**
+     * Instrucciones fijas, identicas en todas las llamadas: Ollama reutiliza el KV cache de este
+     * prefijo y solo evalua el mensaje del usuario (cuentas + texto, ver {@link #construirMensajes}).
+     * No debe contener nada que dependa del usuario.
+     */
+    static final String SYSTEM_PROMPT =
         "Eres el cerebro de ChatFinance, una app de finanzas personales. " +
         "Analiza el texto del usuario y devuelve UNICAMENTE un JSON con estos campos: " +
-        "\"intencion\", \"tipoTransaccion\", \"monto\", \"categoria\", \"nombreCuenta\", \"tipoCuentaNueva\", \"descripcion\". " +
+        "\"intencion\", \"tipoTransaccion\", \"monto\", \"categoria\", \"nombreCuenta\", \"tipoCuentaNueva\", \"periodo\", \"descripcion\". " +
 
         "PASO 1 — Clasifica la intencion en exactamente una de estas 4 opciones (en mayusculas): " +
         "REGISTRAR_TRANSACCION, CREAR_CUENTA, VER_REPORTE, VER_SALDOS. " +
@@ -41,50 +85,158 @@ public class AsistenteIAService {
         "- REGISTRAR_TRANSACCION: tipoTransaccion (INGRESO|GASTO), monto, categoria, nombreCuenta, descripcion. " +
         "  Categorias GASTO: Alimentacion, Transporte, Servicios, Entretenimiento, Otros. " +
         "  Categorias INGRESO: Sueldo, Freelance, Otros. " +
-        "  Cuentas existentes del usuario: %s. Elige la que mas se parezca; si no se menciona, elige la primera. " +
+        "  nombreCuenta: una de las cuentas de la linea 'Cuentas:' del mensaje, escrita igual. Elige la que mas se parezca; si no se menciona, elige la primera. " +
         "- CREAR_CUENTA: nombreCuenta (nombre del banco o billetera), tipoCuentaNueva (BANCO|BILLETERA), monto (saldo inicial si se menciona). " +
-        "- VER_REPORTE: todos los parametros en null. " +
+        "- VER_REPORTE: periodo (DIA|SEMANA|MES|ANIO) si se menciona 'hoy', 'esta semana', 'del mes' o 'este anio'; si no, null. El resto en null. " +
         "- VER_SALDOS: todos los parametros en null. " +
 
+        "El mensaje llega como 'Cuentas: <cuentas del usuario separadas por coma>' y en la linea siguiente 'Texto: <texto del usuario>'. " +
         "Ejemplos: " +
-        "  'Gaste 20 en taxi con Yape' -> {\"intencion\":\"REGISTRAR_TRANSACCION\",\"tipoTransaccion\":\"GASTO\",\"monto\":20.0,\"categoria\":\"Transporte\",\"nombreCuenta\":\"Yape\",\"tipoCuentaNueva\":null,\"descripcion\":\"Taxi\"} " +
-        "  'Crea una cuenta BCP con 500 soles' -> {\"intencion\":\"CREAR_CUENTA\",\"tipoTransaccion\":null,\"monto\":500.0,\"categoria\":null,\"nombreCuenta\":\"BCP\",\"tipoCuentaNueva\":\"BANCO\",\"descripcion\":null} " +
-        "  'Muestrame mis gastos del mes' -> {\"intencion\":\"VER_REPORTE\",\"tipoTransaccion\":null,\"monto\":null,\"categoria\":null,\"nombreCuenta\":null,\"tipoCuentaNueva\":null,\"descripcion\":null} " +
-        "  'Cuanto tengo en mis cuentas' -> {\"intencion\":\"VER_SALDOS\",\"tipoTransaccion\":null,\"monto\":null,\"categoria\":null,\"nombreCuenta\":null,\"tipoCuentaNueva\":null,\"descripcion\":null} " +
+        "  'Gaste 20 en taxi con Yape' -> {\"intencion\":\"REGISTRAR_TRANSACCION\",\"tipoTransaccion\":\"GASTO\",\"monto\":20.0,\"categoria\":\"Transporte\",\"nombreCuenta\":\"Yape\",\"tipoCuentaNueva\":null,\"periodo\":null,\"descripcion\":\"Taxi\"} " +
+        "  'Crea una cuenta BCP con 500 soles' -> {\"intencion\":\"CREAR_CUENTA\",\"tipoTransaccion\":null,\"monto\":500.0,\"categoria\":null,\"nombreCuenta\":\"BCP\",\"tipoCuentaNueva\":\"BANCO\",\"periodo\":null,\"descripcion\":null} " +
+        "  'Muestrame mis gastos del mes' -> {\"intencion\":\"VER_REPORTE\",\"tipoTransaccion\":null,\"monto\":null,\"categoria\":null,\"nombreCuenta\":null,\"tipoCuentaNueva\":null,\"periodo\":\"MES\",\"descripcion\":null} " +
+        "  'Cuanto tengo en mis cuentas' -> {\"intencion\":\"VER_SALDOS\",\"tipoTransaccion\":null,\"monto\":null,\"categoria\":null,\"nombreCuenta\":null,\"tipoCuentaNueva\":null,\"periodo\":null,\"descripcion\":null} " +
 
         "No agregues texto fuera del JSON. No uses markdown. Solo el JSON puro.";
 
     public AsistenteIAService() {
-        this.modeloChat = OllamaChatModel.builder()
+        this.modeloStreaming = OllamaStreamingChatModel.builder()
                 .baseUrl(URL_OLLAMA)
                 .modelName(MODELO)
                 .format("json")
                 .temperature(0.0)
                 .timeout(Duration.ofSeconds(TIMEOUT_SEG))
                 .build();
-        this.gson = new Gson();
+        PrecargaModelo.iniciar(URL_OLLAMA, MODELO, TIMEOUT_SEG);
     }
 
     /**
      * Interpreta un texto libre del usuario y clasifica su intencion con los parametros relevantes.
      *
+     * Espera como mucho {@link #PLAZO_MENSAJE_MS}, el mismo plazo que el asistente da a la
+     * interpretacion en streaming; al vencer corta la generacion y devuelve null, y el llamador
+     * sigue con los menus.
+     *
      * @param textoUsuario            Texto libre escrito por el usuario.
      * @param listaCuentasDisponibles Nombres/alias de las cuentas del usuario, separados por coma.
      * @return {@link IntencionOperacionDTO} con la intencion y parametros extraidos, o null si falla.
      */
     public IntencionOperacionDTO interpretarTexto(String textoUsuario, String listaCuentasDisponibles) {
-        String systemPrompt = String.format(SYSTEM_PROMPT_PLANTILLA, listaCuentasDisponibles);
+        InterpretacionEnCurso enCurso = interpretarTextoStreaming(textoUsuario, listaCuentasDisponibles);
+        try {
+            return enCurso.resultado().get(PLAZO_MENSAJE_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            enCurso.cancelar();
+            System.err.println("Ollama no respondio en " + PLAZO_MENSAJE_MS / 1000 + " s; se cancela la interpretacion.");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            enCurso.cancelar();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
 
-        List<ChatMessage> mensajes = List.of(
-                SystemMessage.from(systemPrompt),
-                UserMessage.from(textoUsuario)
-        );
+    /**
+     * Igual que {@link #interpretarTexto}, sin bloquear al llamador.
+     *
+     * @return Futuro con el DTO, o con null si falla. Cancelarlo corta la generacion en Ollama.
+     */
+    public CompletableFuture<IntencionOperacionDTO> interpretarTextoAsync(String textoUsuario,
+                                                                          String listaCuentasDisponibles) {
+        return interpretarTextoStreaming(textoUsuario, listaCuentasDisponibles).resultado();
+    }
 
+    /**
+     * Interpreta el texto en streaming: la intencion se conoce en cuanto el modelo la escribe,
+     * y el llamador puede enrutar intenciones sin parametros (p. ej. VER_SALDOS) y cancelar el resto.
+     * Si el texto esta en cache, la interpretacion se devuelve ya terminada.
+     */
+    public InterpretacionEnCurso interpretarTextoStreaming(String textoUsuario, String listaCuentasDisponibles) {
+        InterpretacionEnCurso enCurso = new InterpretacionEnCurso();
+        IntencionOperacionDTO enCache = cache.buscar(textoUsuario, listaCuentasDisponibles);
+        if (enCache != null) {
+            enCurso.terminar(enCache);
+            return enCurso;
+        }
+        if (!salud.permitirLlamada()) {
+            enCurso.terminar(null);
+            return enCurso;
+        }
         try {
-            Response<AiMessage> respuesta = modeloChat.generate(mensajes);
-            String jsonRespuesta = extraerJsonLimpio(respuesta.content().text().trim());
+            modeloStreaming.generate(construirMensajes(textoUsuario, listaCuentasDisponibles),
+                    new ManejadorStreaming(enCurso, textoUsuario, listaCuentasDisponibles));
+        } catch (RuntimeException e) {
+            salud.registrarFallo(e);
+            informarErrorConexion(e);
+            enCurso.terminar(null);
+        }
+        return enCurso;
+    }
 
-            IntencionOperacionDTO dto = gson.fromJson(jsonRespuesta, IntencionOperacionDTO.class);
+    /** Recibe los tokens en el hilo del cliente HTTP y los vuelca en la interpretacion en curso. */
+    private final class ManejadorStreaming implements StreamingResponseHandler<AiMessage> {
+
+        private final InterpretacionEnCurso enCurso;
+        private final String textoUsuario;
+        private final String listaCuentas;
+        private final long   inicio = System.nanoTime();
+        private volatile boolean esperandoPrimerToken = true;
+
+        ManejadorStreaming(InterpretacionEnCurso enCurso, String textoUsuario, String listaCuentas) {
+            this.enCurso      = enCurso;
+            this.textoUsuario = textoUsuario;
+            this.listaCuentas = listaCuentas;
+        }
+
+        @Override
+        public void onNext(String fragmento) {
+            if (esperandoPrimerToken) {
+                esperandoPrimerToken = false;
+                salud.registrarExito();
+                registrarPrimerToken(System.nanoTime() - inicio);
+            }
+            // El cliente de Ollama cierra la respuesta si el manejador lanza una excepcion.
+            if (enCurso.estaCancelada()) throw new CancellationException("Interpretacion cancelada");
+            enCurso.agregarFragmento(fragmento);
+        }
+
+        @Override
+        public void onComplete(Response<AiMessage> respuesta) {
+            long duracion = System.nanoTime() - inicio;
+            if (esperandoPrimerToken) salud.registrarExito();
+            registrarLlamada(respuesta, duracion);
+            IntencionOperacionDTO dto = convertir(respuesta.content().text());
+            cache.poner(textoUsuario, listaCuentas, dto, duracion);
+            enCurso.terminar(dto);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            // Sin ningun token, Ollama no respondio (aunque el llamador ya haya cancelado por espera).
+            if (esperandoPrimerToken) salud.registrarFallo(error);
+            if (error instanceof CancellationException || enCurso.estaCancelada()) return;
+            informarErrorConexion(error);
+            enCurso.terminar(null);
+        }
+    }
+
+    /** Prefijo fijo ({@link #SYSTEM_PROMPT}) + sufijo corto por usuario: sus cuentas y el texto. */
+    private static List<ChatMessage> construirMensajes(String textoUsuario, String listaCuentasDisponibles) {
+        String cuentas = listaCuentasDisponibles == null || listaCuentasDisponibles.isBlank()
+                ? "(ninguna)" : listaCuentasDisponibles;
+        return List.of(
+                SystemMessage.from(SYSTEM_PROMPT),
+                UserMessage.from("Cuentas: " + cuentas + "\nTexto: " + textoUsuario)
+        );
+    }
+
+    /** Convierte la respuesta del modelo en DTO, o null si no es un JSON valido. */
+    private static IntencionOperacionDTO convertir(String textoRespuesta) {
+        try {
+            IntencionOperacionDTO dto = GSON.fromJson(extraerJsonLimpio(textoRespuesta.trim()), IntencionOperacionDTO.class);
+            if (dto == null) return null;
 
             // Normalizar a mayusculas (el setter ya lo hace, pero por si Gson saltea el setter)
             if (dto.getIntencion() != null)
@@ -99,30 +251,92 @@ public class AsistenteIAService {
         } catch (JsonSyntaxException e) {
             System.err.println("Error: La IA devolvio JSON invalido: " + e.getMessage());
             return null;
-        } catch (Exception e) {
-            System.err.println("Error al comunicarse con Ollama: " + e.getMessage());
-            System.err.println("Verifique que Ollama este ejecutandose: ollama run " + MODELO);
-            return null;
         }
     }
 
+    private static void informarErrorConexion(Throwable e) {
+        System.err.println("Error al comunicarse con Ollama: " + e.getMessage());
+        System.err.println("Verifique que Ollama este ejecutandose: ollama run " + MODELO);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private static void registrarLlamada(Response<AiMessage> respuesta, long nanos) {
+        LLAMADAS.increment();
+        TOTAL_NANOS.add(nanos);
+        TokenUsage uso = respuesta.tokenUsage();
+        if (uso == null) return;
+        if (uso.inputTokenCount() != null)  TOKENS_PROMPT.add(uso.inputTokenCount());
+        if (uso.outputTokenCount() != null) TOKENS_RESPUESTA.add(uso.outputTokenCount());
+    }
+
+    private static void registrarPrimerToken(long nanos) {
+        PRIMEROS_TOKENS.increment();
+        PRIMER_TOKEN_NANOS.add(nanos);
+        MAX_PRIMER_TOKEN.accumulate(nanos);
+    }
+
+    /**
+     * Instantanea de las llamadas a Ollama de todas las instancias. Ollama informa como tokens de
+     * prompt solo los que tuvo que evaluar: si reutilizo el prefijo, son los del mensaje del usuario.
+     *
+     * @param llamadas           Llamadas completas (las canceladas no cuentan tokens ni duracion)
+     * @param tokensPrompt       Tokens de prompt evaluados
+     * @param tokensRespuesta    Tokens generados
+     * @param totalNanos         Tiempo total de las llamadas completas
+     * @param primerosTokens     Llamadas en streaming que recibieron al menos un token
+     * @param primerTokenNanos   Tiempo total hasta el primer token
+     * @param maxPrimerTokenNanos Mayor tiempo hasta el primer token
+     */
+    public record Estadisticas(long llamadas, long tokensPrompt, long tokensRespuesta, long totalNanos,
+                               long primerosTokens, long primerTokenNanos, long maxPrimerTokenNanos) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Ollama{llamadas=%d, promptProm=%.0f tok, respuestaProm=%.0f tok, duracionProm=%.0f ms, " +
+                "primerTokenProm=%.0f ms, primerTokenMax=%.0f ms}",
+                llamadas, llamadas == 0 ? 0.0 : (double) tokensPrompt / llamadas,
+                llamadas == 0 ? 0.0 : (double) tokensRespuesta / llamadas,
+                llamadas == 0 ? 0.0 : totalNanos / 1e6 / llamadas,
+                primerosTokens == 0 ? 0.0 : primerTokenNanos / 1e6 / primerosTokens, maxPrimerTokenNanos / 1e6);
+        }
+    }
+
+    public static Estadisticas getEstadisticas() {
+        return new Estadisticas(LLAMADAS.sum(), TOKENS_PROMPT.sum(), TOKENS_RESPUESTA.sum(), TOTAL_NANOS.sum(),
+                PRIMEROS_TOKENS.sum(), PRIMER_TOKEN_NANOS.sum(), MAX_PRIMER_TOKEN.get());
+    }
+
     /**
-     * Verifica si Ollama esta disponible realizando una llamada de prueba minima.
+     * Verifica si Ollama esta disponible y tiene el modelo, con el sondeo liviano de
+     * {@link SaludOllama} (sin inferencia; el resultado se reutiliza unos segundos).
      */
     public boolean verificarConexion() {
-        try {
-            modeloChat.generate(List.of(UserMessage.from("ping")));
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return salud.disponible();
+    }
+
+    /** true si el circuito esta abierto: las interpretaciones fallan sin llamar a Ollama. */
+    public boolean circuitoAbierto() {
+        return salud.estaAbierto();
+    }
+
+    /** Motivo del ultimo fallo o sondeo negativo, para mostrar al usuario. */
+    public String getMotivoNoDisponible() {
+        return salud.getMotivo();
+    }
+
+    public static String getUrlOllama() {
+        return URL_OLLAMA;
     }
 
     /**
      * Extrae el primer bloque JSON de una cadena de texto.
      * Proteccion ante respuestas con markdown o texto adicional de la IA.
      */
-    private String extraerJsonLimpio(String texto) {
+    private static String extraerJsonLimpio(String texto) {
         int inicio = texto.indexOf('{');
         int fin    = texto.lastIndexOf('}');
         if (inicio != -1 && fin != -1 && fin > inicio) {
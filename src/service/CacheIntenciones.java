@@ -0,0 +1,259 @@
+package service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Cache de interpretaciones de la IA, delante de {@link AsistenteIAService}.
+ *
+ * El modelo corre con {@code temperature(0.0)}: el mismo texto con las mismas cuentas produce
+ * la misma respuesta, asi que una interpretacion valida se puede reutilizar. La clave es el
+ * texto normalizado (minusculas, sin tildes ni puntuacion, como en {@link ClasificadorReglas})
+ * mas un hash de la lista de cuentas que recibe el prompt; crear o renombrar una cuenta cambia
+ * la clave y deja las entradas viejas sin uso hasta que expiran.
+ *
+ * Desalojo LRU ({@code chatfinance.cache.intenciones.entradas}, 512 por defecto; 0 la desactiva)
+ * y expiracion por antiguedad ({@code chatfinance.cache.intenciones.ttlSeg}, 24 h). Con
+ * {@code chatfinance.cache.intenciones.archivo} se carga de ese archivo al crearse y se escribe
+ * en {@link #guardar()} al cerrar la aplicacion; sin la propiedad vive solo en memoria.
+ *
+ * Entrega siempre copias: cada acierto es un DTO nuevo.
+ */
+public final class CacheIntenciones {
+
+    private static final int    CAPACIDAD = Integer.getInteger("chatfinance.cache.intenciones.entradas", 512);
+    private static final long   TTL_MS    = TimeUnit.SECONDS.toMillis(Long.getLong("chatfinance.cache.intenciones.ttlSeg", 86_400L));
+    private static final String ARCHIVO   = System.getProperty("chatfinance.cache.intenciones.archivo");
+
+    // Puntos y comas que no son separadores decimales: "cuanto tengo." y "cuanto tengo" son la misma clave.
+    private static final Pattern PUNTUACION = Pattern.compile("(?:[.,](?!\\d)|\\s)+");
+
+    private static final CacheIntenciones INSTANCIA =
+            new CacheIntenciones(CAPACIDAD, TTL_MS, ARCHIVO != null && !ARCHIVO.isBlank() ? Path.of(ARCHIVO) : null);
+
+    /**
+     * Interpretacion guardada. El DTO se guarda como JSON: cada acierto deserializa una copia, y
+     * el mismo formato se escribe al archivo. La expiracion es de reloj de pared para sobrevivir
+     * reinicios.
+     */
+    private static final class Entrada {
+        String clave;
+        String json;
+        long   expiraMs;
+        long   generacionNanos;
+
+        Entrada(String clave, String json, long expiraMs, long generacionNanos) {
+            this.clave           = clave;
+            this.json            = json;
+            this.expiraMs        = expiraMs;
+            this.generacionNanos = generacionNanos;
+        }
+    }
+
+    private final int  capacidad;
+    private final long ttlMs;
+    private final Path archivo;
+    private final Gson gson = new Gson();
+    private final Map<String, Entrada> entradas;
+
+    private final LongAdder aciertos       = new LongAdder();
+    private final LongAdder fallos         = new LongAdder();
+    private final LongAdder expiradas      = new LongAdder();
+    private final LongAdder desalojos      = new LongAdder();
+    private final LongAdder nanosAhorrados = new LongAdder();
+
+    private CacheIntenciones(int capacidad, long ttlMs, Path archivo) {
+        this.capacidad = capacidad;
+        this.ttlMs     = ttlMs;
+        this.archivo   = archivo;
+        this.entradas  = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                if (size() <= CacheIntenciones.this.capacidad) return false;
+                desalojos.increment();
+                return true;
+            }
+        };
+        if (archivo != null && capacidad > 0) cargar();
+    }
+
+    public static CacheIntenciones getInstance() {
+        return INSTANCIA;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Lectura y escritura
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Copia de la interpretacion guardada para el texto y las cuentas, o null. */
+    public IntencionOperacionDTO buscar(String texto, String listaCuentas) {
+        if (capacidad <= 0) return null;
+        String clave = clave(texto, listaCuentas);
+        Entrada entrada;
+        synchronized (this) {
+            entrada = entradas.get(clave);
+            if (entrada != null && System.currentTimeMillis() > entrada.expiraMs) {
+                entradas.remove(clave);
+                expiradas.increment();
+                entrada = null;
+            }
+        }
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        nanosAhorrados.add(entrada.generacionNanos);
+        return gson.fromJson(entrada.json, IntencionOperacionDTO.class);
+    }
+
+    /**
+     * Guarda una interpretacion valida; las nulas o sin intencion reconocida no se guardan.
+     *
+     * @param generacionNanos Lo que tardo la IA en producirla; cada acierto lo suma como tiempo ahorrado
+     */
+    public void poner(String texto, String listaCuentas, IntencionOperacionDTO dto, long generacionNanos) {
+        if (capacidad <= 0 || dto == null || !dto.tieneIntencionValida()) return;
+        String clave = clave(texto, listaCuentas);
+        Entrada entrada = new Entrada(clave, gson.toJson(dto), System.currentTimeMillis() + ttlMs, generacionNanos);
+        synchronized (this) {
+            entradas.put(clave, entrada);
+        }
+    }
+
+    /** Descarta toda la cache (no borra el archivo hasta el proximo {@link #guardar()}). */
+    public synchronized void limpiar() {
+        entradas.clear();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Persistencia
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Escribe las entradas vigentes al archivo configurado, de la menos a la mas usada, para que
+     * al cargarlas se conserve el orden LRU. Escribe a un temporal y lo renombra: un corte a mitad
+     * de la escritura deja el archivo anterior intacto. Sin archivo configurado no hace nada.
+     */
+    public void guardar() {
+        if (archivo == null || capacidad <= 0) return;
+        List<Entrada> vigentes = new ArrayList<>();
+        long ahora = System.currentTimeMillis();
+        synchronized (this) {
+            for (Entrada entrada : entradas.values()) {
+                if (entrada.expiraMs > ahora) vigentes.add(entrada);
+            }
+        }
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            if (archivo.getParent() != null) Files.createDirectories(archivo.getParent());
+            try (Writer out = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                gson.toJson(vigentes, out);
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar la cache de intenciones en " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    private void cargar() {
+        if (!Files.exists(archivo)) return;
+        List<Entrada> guardadas;
+        try (Reader in = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            guardadas = gson.fromJson(in, new TypeToken<List<Entrada>>() { }.getType());
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Cache de intenciones ignorada, no se pudo leer " + archivo + ": " + e.getMessage());
+            return;
+        }
+        if (guardadas == null) return;
+
+        long ahora = System.currentTimeMillis();
+        synchronized (this) {
+            for (Entrada entrada : guardadas) {
+                if (entrada.clave != null && entrada.json != null && entrada.expiraMs > ahora) {
+                    entradas.put(entrada.clave, entrada);
+                }
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Clave
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Texto normalizado + SHA-256 (16 hex) de la lista de cuentas. */
+    static String clave(String texto, String listaCuentas) {
+        String normal = PUNTUACION.matcher(ClasificadorReglas.normalizar(texto)).replaceAll(" ").trim();
+        return normal + '#' + hashCuentas(listaCuentas);
+    }
+
+    private static String hashCuentas(String listaCuentas) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] digest = sha.digest((listaCuentas == null ? "" : listaCuentas).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Instantanea de las metricas de la cache.
+     *
+     * @param entradas       Interpretaciones en cache
+     * @param aciertos       Textos respondidos sin llamar a la IA
+     * @param fallos         Textos que fueron a la IA
+     * @param expiradas      Entradas descartadas por TTL al leerlas
+     * @param desalojos      Entradas descartadas por LRU
+     * @param nanosAhorrados Suma del tiempo de generacion original de cada acierto
+     */
+    public record Estadisticas(int entradas, long aciertos, long fallos, long expiradas,
+                               long desalojos, long nanosAhorrados) {
+
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0.0 : (double) aciertos / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "CacheIntenciones{entradas=%d, aciertos=%d, fallos=%d, tasa=%.1f%%, expiradas=%d, desalojos=%d, " +
+                "ahorrado=%.1f s}",
+                entradas, aciertos, fallos, tasaAciertos() * 100, expiradas, desalojos, nanosAhorrados / 1e9);
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        int cantidad;
+        synchronized (this) {
+            cantidad = entradas.size();
+        }
+        return new Estadisticas(cantidad, aciertos.sum(), fallos.sum(), expiradas.sum(),
+                desalojos.sum(), nanosAhorrados.sum());
+    }
+}
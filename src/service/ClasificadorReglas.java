@@ -0,0 +1,339 @@
+package service;
+
+import modelo.BilleteraDigital;
+import modelo.CuentaBancaria;
+import modelo.CuentaFinanciera;
+import modelo.Montos;
+import modelo.MovimientoRegistro;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Clasificador por reglas que se consulta antes del modelo de lenguaje.
+ *
+ * Resuelve sin IA las frases frecuentes y sin ambiguedad ("cuanto tengo", "mis gastos del mes",
+ * "gaste 20 en taxi con yape"): extrae un unico monto, la categoria por palabras clave y la
+ * cuenta por nombre. Ante cualquier duda (dos montos, "3 mil", categorias o cuentas en conflicto,
+ * negaciones, transferencias, creacion de cuentas) devuelve null y el texto va a
+ * {@link AsistenteIAService}: el clasificador solo responde cuando la respuesta del modelo seria
+ * la misma.
+ *
+ * Cuenta consultas, resueltas por intencion y derivadas a la IA; ver {@link #getEstadisticas()}.
+ * El corpus de referencia esta en {@code docs/pruebas-ejemplos.md} y se verifica con
+ * {@code Main --verificar-clasificador} ({@link VerificadorClasificador}).
+ */
+public final class ClasificadorReglas {
+
+    private static final ClasificadorReglas INSTANCIA = new ClasificadorReglas();
+
+    // Montos: "20", "20.50", "20,5", "S/ 20". "3,000" no califica (deja digitos sueltos) y se deriva.
+    private static final Pattern MONTO         = Pattern.compile("(?<![\\w.,])(\\d+(?:[.,]\\d{1,2})?)(?![\\w%]|[.,]\\d)");
+    private static final Pattern DIGITO        = Pattern.compile("\\d");
+    private static final Pattern MULTIPLICADOR = Pattern.compile("^\\s*(mil|millon|millones)\\b");
+
+    private static final Pattern TILDES        = Pattern.compile("\\p{M}+");
+    private static final Pattern SOLES         = Pattern.compile("\\bs/\\.?");
+    private static final Pattern SEPARADORES   = Pattern.compile("[^a-z0-9.,%]+");
+    private static final Pattern NO_PALABRA    = Pattern.compile("[^a-z0-9]+");
+
+    // ── Vocabulario (texto ya normalizado: minusculas, sin tildes) ────────────
+
+    private static final String[] VERBOS_GASTO   = { "gaste", "gastado", "pague", "compre", "comprado", "me costo" };
+    private static final String[] VERBOS_INGRESO = { "recibi", "recibido", "cobre", "cobrado", "me pagaron", "me depositaron",
+                                                     "me yapearon", "gane", "ganado", "me llego", "me cayo" };
+
+    /** Frases que el clasificador no interpreta: transferencias, alta de cuentas, negaciones, fechas relativas. */
+    private static final String[] DERIVAR = { "no", "transferi", "transfiere", "transferir", "transferencia", "pase", "pasa",
+                                              "mueve", "movi", "crea", "crear", "creame", "abre", "abrir", "nueva",
+                                              "pasado", "pasada", "anterior", "ultimo", "ultima", "ayer", "manana" };
+
+    private static final String[] SALDOS  = { "cuanto tengo", "cuanto dinero tengo", "cuanta plata tengo", "cuanto me queda",
+                                              "saldo", "saldos", "mis cuentas", "patrimonio" };
+    private static final String[] REPORTE = { "reporte", "reportes", "resumen", "mis gastos", "mis ingresos", "en que gaste",
+                                              "en que he gastado", "cuanto gaste", "cuanto he gastado", "estadisticas" };
+
+    private static final Map<String, String> PERIODOS = new LinkedHashMap<>();
+    static {
+        PERIODOS.put("hoy",    "DIA");
+        PERIODOS.put("semana", "SEMANA");
+        PERIODOS.put("mes",    "MES");
+        PERIODOS.put("ano",    "ANIO");
+        PERIODOS.put("anio",   "ANIO");
+    }
+
+    /** Palabra clave -> categoria. Las categorias deben existir en {@link MovimientoRegistro}. */
+    private static final Map<String, String> CATEGORIAS_GASTO   = new LinkedHashMap<>();
+    private static final Map<String, String> CATEGORIAS_INGRESO = new LinkedHashMap<>();
+    static {
+        asignar(CATEGORIAS_GASTO, "Alimentacion", "almuerzo", "desayuno", "cena", "comida", "menu", "restaurante",
+                "mercado", "supermercado", "pollo", "pizza", "cafe", "pan", "polleria", "chifa", "bodega", "fruta");
+        asignar(CATEGORIAS_GASTO, "Transporte", "taxi", "uber", "bus", "micro", "combi", "pasaje", "pasajes", "gasolina",
+                "combustible", "metro", "colectivo", "peaje", "estacionamiento");
+        asignar(CATEGORIAS_GASTO, "Servicios", "luz", "agua", "internet", "telefono", "celular", "recarga", "cable",
+                "gas", "alquiler");
+        asignar(CATEGORIAS_GASTO, "Entretenimiento", "cine", "netflix", "spotify", "juego", "juegos", "concierto",
+                "fiesta", "bar", "cerveza", "cervezas", "discoteca", "teatro");
+        asignar(CATEGORIAS_INGRESO, "Sueldo", "sueldo", "salario", "quincena", "planilla");
+        asignar(CATEGORIAS_INGRESO, "Freelance", "freelance", "proyecto", "cliente", "honorarios", "chamba");
+
+        verificarCategorias(CATEGORIAS_GASTO, MovimientoRegistro.CATEGORIAS_GASTO);
+        verificarCategorias(CATEGORIAS_INGRESO, MovimientoRegistro.CATEGORIAS_INGRESO);
+    }
+
+    /** Bancos y billeteras conocidos: si el texto nombra uno que el usuario no tiene, decide la IA. */
+    private static final String[] ENTIDADES = { "yape", "plin", "tunki", "lukita", "bcp", "interbank", "bbva",
+                                                "scotiabank", "banbif", "pichincha", "nacion" };
+
+    private final LongAdder consultas     = new LongAdder();
+    private final LongAdder saldos        = new LongAdder();
+    private final LongAdder reportes      = new LongAdder();
+    private final LongAdder transacciones = new LongAdder();
+
+    ClasificadorReglas() { }
+
+    public static ClasificadorReglas getInstance() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Clasifica el texto si alguna regla lo resuelve con certeza.
+     *
+     * @param texto   Texto libre del usuario
+     * @param cuentas Cuentas del usuario, en el orden de la lista que ve el modelo
+     * @return DTO equivalente al que devolveria la IA, o null si el texto debe ir a la IA
+     */
+    public IntencionOperacionDTO clasificar(String texto, List<CuentaFinanciera> cuentas) {
+        consultas.increment();
+        if (texto == null || texto.isBlank()) return null;
+
+        String normal   = normalizar(texto);
+        String palabras = " " + NO_PALABRA.matcher(normal).replaceAll(" ").trim() + " ";
+        if (contieneAlguna(palabras, DERIVAR)) return null;
+
+        IntencionOperacionDTO dto;
+        if (DIGITO.matcher(normal).find()) {
+            dto = transaccion(normal, palabras, cuentas);
+            if (dto != null) transacciones.increment();
+        } else {
+            dto = consulta(palabras);
+            if (dto != null) ("VER_SALDOS".equals(dto.getIntencion()) ? saldos : reportes).increment();
+        }
+        return dto;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Reglas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** VER_SALDOS o VER_REPORTE: textos sin montos. */
+    private static IntencionOperacionDTO consulta(String palabras) {
+        boolean pideSaldos  = contieneAlguna(palabras, SALDOS);
+        boolean pideReporte = contieneAlguna(palabras, REPORTE);
+
+        String periodo = null;
+        for (Map.Entry<String, String> p : PERIODOS.entrySet()) {
+            if (!contiene(palabras, p.getKey())) continue;
+            if (periodo != null && !periodo.equals(p.getValue())) return null;
+            periodo = p.getValue();
+        }
+
+        IntencionOperacionDTO dto = new IntencionOperacionDTO();
+        if (pideSaldos && !pideReporte && periodo == null) {
+            dto.setIntencion("VER_SALDOS");
+            return dto;
+        }
+        if (pideReporte && !pideSaldos) {
+            dto.setIntencion("VER_REPORTE");
+            dto.setPeriodo(periodo);
+            return dto;
+        }
+        return null;
+    }
+
+    /** REGISTRAR_TRANSACCION: un verbo de un solo tipo, un unico monto, una categoria y a lo sumo una cuenta. */
+    private static IntencionOperacionDTO transaccion(String normal, String palabras, List<CuentaFinanciera> cuentas) {
+        boolean gasto   = contieneAlguna(palabras, VERBOS_GASTO);
+        boolean ingreso = contieneAlguna(palabras, VERBOS_INGRESO);
+        if (gasto == ingreso || cuentas.isEmpty()) return null;
+
+        Long monto = extraerMonto(normal);
+        if (monto == null || monto <= 0) return null;
+
+        String[] categoria = buscarCategoria(palabras, gasto ? CATEGORIAS_GASTO : CATEGORIAS_INGRESO);
+        if (categoria == null) return null;
+
+        String cuenta = buscarCuenta(palabras, cuentas);
+        if (cuenta == null) return null;
+
+        IntencionOperacionDTO dto = new IntencionOperacionDTO();
+        dto.setIntencion("REGISTRAR_TRANSACCION");
+        dto.setTipoTransaccion(gasto ? "GASTO" : "INGRESO");
+        dto.setMontoCentimos(monto);
+        dto.setCategoria(categoria[0]);
+        dto.setNombreCuenta(cuenta);
+        dto.setDescripcion(Character.toUpperCase(categoria[1].charAt(0)) + categoria[1].substring(1));
+        return dto;
+    }
+
+    /** El unico monto del texto, o null si hay mas de uno, digitos sueltos o un multiplicador ("20 mil"). */
+    private static Long extraerMonto(String normal) {
+        Matcher m = MONTO.matcher(normal);
+        if (!m.find()) return null;
+        String literal = m.group(1);
+        if (MULTIPLICADOR.matcher(normal.substring(m.end())).find()) return null;
+
+        String resto = normal.substring(0, m.start()) + " " + normal.substring(m.end());
+        if (DIGITO.matcher(resto).find()) return null;
+        try {
+            return Montos.parsear(literal);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** {categoria, palabra clave encontrada primero}, o null si no hay ninguna o hay dos categorias. */
+    private static String[] buscarCategoria(String palabras, Map<String, String> mapa) {
+        String categoria = null;
+        String clave = null;
+        int posicion = Integer.MAX_VALUE;
+        for (Map.Entry<String, String> e : mapa.entrySet()) {
+            int i = palabras.indexOf(" " + e.getKey() + " ");
+            if (i < 0) continue;
+            if (categoria != null && !categoria.equals(e.getValue())) return null;
+            categoria = e.getValue();
+            if (i < posicion) {
+                posicion = i;
+                clave = e.getKey();
+            }
+        }
+        return categoria == null ? null : new String[] { categoria, clave };
+    }
+
+    /**
+     * Nombre de la cuenta mencionada. Si no se menciona ninguna, la primera (como indica el prompt
+     * de la IA); null si se mencionan dos o una entidad que el usuario no tiene.
+     */
+    private static String buscarCuenta(String palabras, List<CuentaFinanciera> cuentas) {
+        CuentaFinanciera encontrada = null;
+        String nombre = null;
+        for (CuentaFinanciera c : cuentas) {
+            for (String candidato : nombres(c)) {
+                String normal = NO_PALABRA.matcher(normalizar(candidato)).replaceAll(" ").trim();
+                if (normal.isEmpty()) continue;
+                if (!contiene(palabras, normal)) continue;
+                if (encontrada != null && encontrada != c) return null;
+                encontrada = c;
+                if (nombre == null) nombre = candidato;
+            }
+        }
+        if (encontrada != null) return nombre;
+
+        // "con el plin" cuando la cuenta se llama "Plin Personal": vale si una sola cuenta lleva la entidad.
+        for (String entidad : ENTIDADES) {
+            if (!contiene(palabras, entidad)) continue;
+            CuentaFinanciera duena = null;
+            for (CuentaFinanciera c : cuentas) {
+                for (String candidato : nombres(c)) {
+                    if (!contiene(" " + NO_PALABRA.matcher(normalizar(candidato)).replaceAll(" ").trim() + " ", entidad)) continue;
+                    if (duena != null && duena != c) return null;
+                    duena = c;
+                }
+            }
+            if (duena == null || (encontrada != null && encontrada != duena)) return null;
+            encontrada = duena;
+        }
+        return nombres(encontrada != null ? encontrada : cuentas.get(0)).get(0);
+    }
+
+    /** Nombres por los que el usuario se refiere a la cuenta; el primero es el que se informa. */
+    private static List<String> nombres(CuentaFinanciera cuenta) {
+        List<String> nombres = new ArrayList<>(2);
+        if (cuenta instanceof BilleteraDigital b) {
+            if (b.getAlias() != null)     nombres.add(b.getAlias());
+            if (b.getProveedor() != null) nombres.add(b.getProveedor());
+        } else if (cuenta instanceof CuentaBancaria cb && cb.getBanco() != null) {
+            nombres.add(cb.getBanco());
+        }
+        if (nombres.isEmpty()) nombres.add(cuenta.getNumeroCuenta());
+        return nombres;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Helpers
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Minusculas, sin tildes, "S/" fuera; conserva digitos, separadores decimales y '%'. */
+    static String normalizar(String texto) {
+        String sinTildes = TILDES.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        String sinSoles  = SOLES.matcher(sinTildes.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return SEPARADORES.matcher(sinSoles).replaceAll(" ").trim();
+    }
+
+    private static boolean contiene(String palabras, String frase) {
+        return palabras.contains(" " + frase + " ");
+    }
+
+    private static boolean contieneAlguna(String palabras, String[] frases) {
+        for (String frase : frases) if (contiene(palabras, frase)) return true;
+        return false;
+    }
+
+    private static void asignar(Map<String, String> mapa, String categoria, String... claves) {
+        for (String clave : claves) mapa.put(clave, categoria);
+    }
+
+    private static void verificarCategorias(Map<String, String> mapa, String[] validas) {
+        for (String categoria : mapa.values()) {
+            if (!Arrays.asList(validas).contains(categoria)) {
+                throw new IllegalStateException("Categoria desconocida en ClasificadorReglas: " + categoria);
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Instantanea de las metricas del clasificador.
+     *
+     * @param consultas     Textos recibidos
+     * @param saldos        Resueltos como VER_SALDOS
+     * @param reportes      Resueltos como VER_REPORTE
+     * @param transacciones Resueltos como REGISTRAR_TRANSACCION
+     */
+    public record Estadisticas(long consultas, long saldos, long reportes, long transacciones) {
+
+        public long resueltas() {
+            return saldos + reportes + transacciones;
+        }
+
+        public long derivadas() {
+            return consultas - resueltas();
+        }
+
+        public double tasaAcierto() {
+            return consultas == 0 ? 0.0 : (double) resueltas() / consultas;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "ClasificadorReglas{consultas=%d, resueltas=%d (%.1f%%: saldos=%d, reportes=%d, transacciones=%d), derivadasIA=%d}",
+                consultas, resueltas(), tasaAcierto() * 100, saldos, reportes, transacciones, derivadas());
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(consultas.sum(), saldos.sum(), reportes.sum(), transacciones.sum());
+    }
+}
@@ -1,5 +1,15 @@
 package service;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import modelo.Montos;
+
+import java.io.IOException;
+
 /**
  * DTO universal del Asistente IA.
  * Representa cualquier intencion que el usuario exprese en lenguaje natural.
@@ -23,8 +33,13 @@ public class IntencionOperacionDTO {
     /** "INGRESO" o "GASTO". Null si no aplica. */
     private String tipoTransaccion;
 
-    /** Monto en soles. Null si no aplica. */
-    private Double monto;
+    /**
+     * Monto en centimos. El modelo lo devuelve en soles en el campo JSON "monto"; el
+     * adaptador lo convierte leyendo el literal decimal, sin pasar por double. Null si no aplica.
+     */
+    @SerializedName("monto")
+    @JsonAdapter(AdaptadorMonto.class)
+    private Long montoCentimos;
 
     /** Categoria del movimiento. Null si no aplica. */
     private String categoria;
@@ -39,6 +54,14 @@ public class IntencionOperacionDTO {
     /** "BANCO" o "BILLETERA". Null si no aplica. */
     private String tipoCuentaNueva;
 
+    // ── Campo para VER_REPORTE ────────────────────────────────────────────────
+
+    /**
+     * Periodo actual a reportar: "DIA" | "SEMANA" | "MES" | "ANIO".
+     * Null para el reporte de todo el historial.
+     */
+    private String periodo;
+
     // ── Campo general ─────────────────────────────────────────────────────────
 
     /** Descripcion breve del movimiento o nota adicional. */
@@ -52,7 +75,7 @@ public class IntencionOperacionDTO {
     /** Verifica que los campos criticos para REGISTRAR_TRANSACCION esten presentes. */
     public boolean esTransaccionValida() {
         return tipoTransaccion != null && !tipoTransaccion.isBlank()
-                && monto != null && monto > 0
+                && montoCentimos != null && montoCentimos > 0
                 && nombreCuenta != null && !nombreCuenta.isBlank();
     }
 
@@ -84,8 +107,8 @@ public class IntencionOperacionDTO {
         this.tipoTransaccion = tipoTransaccion != null ? tipoTransaccion.toUpperCase().trim() : null;
     }
 
-    public Double getMonto() { return monto; }
-    public void setMonto(Double monto) { this.monto = monto; }
+    public Long getMontoCentimos() { return montoCentimos; }
+    public void setMontoCentimos(Long montoCentimos) { this.montoCentimos = montoCentimos; }
 
     public String getCategoria() { return categoria; }
     public void setCategoria(String categoria) { this.categoria = categoria; }
@@ -98,6 +121,11 @@ public class IntencionOperacionDTO {
         this.tipoCuentaNueva = tipoCuentaNueva != null ? tipoCuentaNueva.toUpperCase().trim() : null;
     }
 
+    public String getPeriodo() { return periodo; }
+    public void setPeriodo(String periodo) {
+        this.periodo = periodo != null ? periodo.toUpperCase().trim() : null;
+    }
+
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
 
@@ -113,9 +141,35 @@ public class IntencionOperacionDTO {
     public String toString() {
         return String.format(
             "RespuestaIADTO{intencion='%s', tipoTx='%s', monto=%s, categoria='%s', " +
-            "nombreCuenta='%s', tipoCuentaNueva='%s', descripcion='%s'}",
+            "nombreCuenta='%s', tipoCuentaNueva='%s', periodo='%s', descripcion='%s'}",
             intencion, tipoTransaccion,
-            monto != null ? String.format("%.2f", monto) : "null",
-            categoria, nombreCuenta, tipoCuentaNueva, descripcion);
+            montoCentimos != null ? Montos.formatear(montoCentimos) : "null",
+            categoria, nombreCuenta, tipoCuentaNueva, periodo, descripcion);
+    }
+
+    // ── Conversion JSON soles <-> centimos ────────────────────────────────────
+
+    /** Acepta numero o texto ("20", "20.5", "20,50"); cualquier otro valor se toma como null. */
+    static final class AdaptadorMonto extends TypeAdapter<Long> {
+
+        @Override
+        public void write(JsonWriter out, Long centimos) throws IOException {
+            if (centimos == null) out.nullValue();
+            else out.jsonValue(Montos.formatear(centimos));
+        }
+
+        @Override
+        public Long read(JsonReader in) throws IOException {
+            JsonToken token = in.peek();
+            if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+                in.skipValue();
+                return null;
+            }
+            try {
+                return Montos.parsear(in.nextString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,69 @@
+package service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Interpretacion de un texto que el modelo esta generando en streaming.
+ *
+ * {@link #intencion()} se completa en cuanto el JSON parcial trae el campo "intencion"
+ * completo, antes de que termine la generacion; {@link #resultado()} se completa con el DTO
+ * al terminar (o con null si la IA fallo o devolvio un JSON invalido, igual que
+ * {@link AsistenteIAService#interpretarTexto}). Si ya no se necesita el resto, {@link #cancelar()}
+ * (o cancelar cualquiera de los dos futuros) corta la respuesta de Ollama en el siguiente token.
+ */
+public final class InterpretacionEnCurso {
+
+    // El modelo responde con "intencion" como primer campo; basta con verlo cerrado.
+    private static final Pattern CAMPO_INTENCION = Pattern.compile("\"intencion\"\\s*:\\s*\"([A-Za-z_]+)\"");
+
+    private final CompletableFuture<String>                intencion = new CompletableFuture<>();
+    private final CompletableFuture<IntencionOperacionDTO> resultado = new CompletableFuture<>();
+    private final StringBuilder parcial = new StringBuilder();
+    private volatile int fragmentos;
+
+    /** Intencion en mayusculas, o null si la generacion termino o fallo sin traerla. */
+    public CompletableFuture<String> intencion() {
+        return intencion;
+    }
+
+    public CompletableFuture<IntencionOperacionDTO> resultado() {
+        return resultado;
+    }
+
+    /** Fragmentos (tokens) recibidos hasta ahora; sirve para mostrar progreso. */
+    public int getFragmentos() {
+        return fragmentos;
+    }
+
+    public void cancelar() {
+        intencion.cancel(true);
+        resultado.cancel(true);
+    }
+
+    public boolean estaCancelada() {
+        return intencion.isCancelled() || resultado.isCancelled();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Alimentado por el manejador de streaming (hilo del cliente HTTP)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    void agregarFragmento(String fragmento) {
+        fragmentos++;
+        if (intencion.isDone()) return;
+
+        parcial.append(fragmento);
+        Matcher m = CAMPO_INTENCION.matcher(parcial);
+        if (m.find()) {
+            intencion.complete(m.group(1).toUpperCase().trim());
+            parcial.setLength(0);
+        }
+    }
+
+    void terminar(IntencionOperacionDTO dto) {
+        intencion.complete(dto != null ? dto.getIntencion() : null);
+        resultado.complete(dto);
+    }
+}
@@ -0,0 +1,100 @@
+package service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import util.Hilos;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantiene el modelo cargado en Ollama y el prefijo del prompt evaluado.
+ *
+ * Ollama descarga el modelo tras {@code OLLAMA_KEEP_ALIVE} (5 min por defecto) sin peticiones,
+ * y cada peticion sin {@code keep_alive} vuelve a ese plazo; el cliente de langchain4j no envia
+ * {@code keep_alive}. Recargar el modelo y reevaluar el prompt de sistema en CPU cuesta varios
+ * segundos en el primer mensaje. Al crearse el primer {@link AsistenteIAService} se envia una
+ * peticion con solo {@link AsistenteIAService#SYSTEM_PROMPT}, {@code num_predict = 1} y
+ * {@code keep_alive}; se repite cada {@code chatfinance.ollama.refrescoSeg} mientras la app corre.
+ *
+ * Configuracion (propiedades del sistema):
+ *   chatfinance.ollama.precargar    false desactiva la precarga (por defecto true)
+ *   chatfinance.ollama.keepAlive    Duracion para Ollama: "30m", "1h", "-1" (siempre) (por defecto 30m)
+ *   chatfinance.ollama.refrescoSeg  Intervalo de refresco; 0 solo precarga al inicio (por defecto 240)
+ */
+final class PrecargaModelo {
+
+    private static final boolean PRECARGAR    = Boolean.parseBoolean(System.getProperty("chatfinance.ollama.precargar", "true"));
+    private static final String  KEEP_ALIVE   = System.getProperty("chatfinance.ollama.keepAlive", "30m");
+    private static final long    REFRESCO_SEG = Long.getLong("chatfinance.ollama.refrescoSeg", 240L);
+
+    private static PrecargaModelo instancia;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final HttpRequest peticion;
+    private final ScheduledExecutorService programador =
+            Executors.newSingleThreadScheduledExecutor(Hilos.fabrica("precarga-ollama"));
+    private volatile boolean falloInformado;
+
+    private PrecargaModelo(String urlBase, String modelo, int timeoutSeg) {
+        JsonObject sistema = new JsonObject();
+        sistema.addProperty("role", "system");
+        sistema.addProperty("content", AsistenteIAService.SYSTEM_PROMPT);
+        JsonArray mensajes = new JsonArray();
+        mensajes.add(sistema);
+
+        JsonObject opciones = new JsonObject();
+        opciones.addProperty("num_predict", 1);
+        opciones.addProperty("temperature", 0.0);
+
+        JsonObject cuerpo = new JsonObject();
+        cuerpo.addProperty("model", modelo);
+        cuerpo.add("messages", mensajes);
+        cuerpo.addProperty("stream", false);
+        cuerpo.addProperty("keep_alive", KEEP_ALIVE);
+        cuerpo.add("options", opciones);
+
+        this.peticion = HttpRequest.newBuilder(URI.create(urlBase + "/api/chat"))
+                .timeout(Duration.ofSeconds(timeoutSeg))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo.toString()))
+                .build();
+    }
+
+    /** Programa la precarga y el refresco; solo la primera llamada tiene efecto. */
+    static synchronized void iniciar(String urlBase, String modelo, int timeoutSeg) {
+        if (!PRECARGAR || instancia != null) return;
+        instancia = new PrecargaModelo(urlBase, modelo, timeoutSeg);
+        if (REFRESCO_SEG > 0) {
+            instancia.programador.scheduleWithFixedDelay(instancia::precalentar, 0, REFRESCO_SEG, TimeUnit.SECONDS);
+        } else {
+            instancia.programador.execute(instancia::precalentar);
+        }
+    }
+
+    private void precalentar() {
+        try {
+            HttpResponse<Void> respuesta = http.send(peticion, HttpResponse.BodyHandlers.discarding());
+            if (respuesta.statusCode() != 200) informarFallo("HTTP " + respuesta.statusCode());
+            else falloInformado = false;
+        } catch (IOException e) {
+            informarFallo(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Un solo aviso por racha de fallos: Ollama apagado no debe llenar la consola. */
+    private void informarFallo(String detalle) {
+        if (falloInformado) return;
+        falloInformado = true;
+        System.err.println("No se pudo precargar el modelo en Ollama: " + detalle);
+    }
+}
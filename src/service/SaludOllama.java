@@ -0,0 +1,267 @@
+package service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estado de Ollama para {@link AsistenteIAService}: sondeo liviano y circuit breaker.
+ *
+ * El sondeo pide {@code GET /api/tags} (lista de modelos instalados, sin inferencia) con un
+ * timeout corto y verifica que el modelo este instalado. El resultado se reutiliza durante
+ * {@code chatfinance.ollama.saludCacheSeg}.
+ *
+ * El circuito envuelve las llamadas de interpretacion:
+ *   CERRADO      Las llamadas pasan. Tras {@code chatfinance.ollama.circuito.fallos} fallos
+ *                seguidos se abre.
+ *   ABIERTO      Las llamadas se rechazan sin tocar la red durante
+ *                {@code chatfinance.ollama.circuito.abiertoSeg}. Al vencer ese plazo, la siguiente
+ *                llamada hace un sondeo: si Ollama responde pasa a SEMI_ABIERTO, si no sigue abierto.
+ *   SEMI_ABIERTO Deja pasar una sola llamada de prueba; si funciona se cierra, si falla se abre.
+ *
+ * El sondeo (hasta {@code saludTimeoutMs}) corre fuera del monitor: {@link #registrarExito()} se
+ * llama desde el hilo del cliente HTTP con cada token y no puede esperar a un sondeo lento. Hay
+ * un solo sondeo a la vez; mientras corre, los demas hilos usan el resultado anterior.
+ *
+ * Configuracion (propiedades del sistema):
+ *   chatfinance.ollama.saludTimeoutMs     Timeout del sondeo (por defecto 1500)
+ *   chatfinance.ollama.saludCacheSeg      Vigencia del ultimo sondeo (por defecto 15)
+ *   chatfinance.ollama.circuito.fallos    Fallos seguidos que abren el circuito (por defecto 3)
+ *   chatfinance.ollama.circuito.abiertoSeg Tiempo abierto antes de volver a probar (por defecto 30)
+ */
+public final class SaludOllama {
+
+    private static final int  TIMEOUT_MS    = Integer.getInteger("chatfinance.ollama.saludTimeoutMs", 1500);
+    private static final long CACHE_NANOS   = TimeUnit.SECONDS.toNanos(Long.getLong("chatfinance.ollama.saludCacheSeg", 15L));
+    private static final int  UMBRAL_FALLOS = Integer.getInteger("chatfinance.ollama.circuito.fallos", 3);
+    private static final long ABIERTO_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("chatfinance.ollama.circuito.abiertoSeg", 30L));
+
+    private static SaludOllama instancia;
+
+    public enum Estado { CERRADO, ABIERTO, SEMI_ABIERTO }
+
+    private final String urlBase;
+    private final String modelo;
+    private final HttpClient http;
+    private final HttpRequest sondeo;
+
+    // Estado del circuito y del ultimo sondeo, protegido por el monitor.
+    private Estado  estado = Estado.CERRADO;
+    private int     fallosSeguidos;
+    private long    abiertoHasta;
+    private boolean pruebaEnCurso;
+    private boolean sondeoEnCurso;
+    private boolean ultimoSondeoOk;
+    private long    sondeoVence;
+    private boolean haySondeo;
+    private String  motivo = "sin verificar";
+
+    private final LongAdder sondeos    = new LongAdder();
+    private final LongAdder aperturas  = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+
+    private SaludOllama(String urlBase, String modelo) {
+        this.urlBase = urlBase;
+        this.modelo  = modelo;
+        this.http    = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(TIMEOUT_MS)).build();
+        this.sondeo  = HttpRequest.newBuilder(URI.create(urlBase + "/api/tags"))
+                .timeout(Duration.ofMillis(TIMEOUT_MS))
+                .GET()
+                .build();
+    }
+
+    /** Instancia compartida para la URL y el modelo de la primera llamada. */
+    static synchronized SaludOllama getInstance(String urlBase, String modelo) {
+        if (instancia == null) instancia = new SaludOllama(urlBase, modelo);
+        return instancia;
+    }
+
+    /** La instancia en uso, o null si todavia no se creo ningun {@link AsistenteIAService}. */
+    public static synchronized SaludOllama actual() {
+        return instancia;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Sondeo
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** true si Ollama responde y tiene el modelo; reutiliza el ultimo sondeo mientras este vigente. */
+    public boolean disponible() {
+        synchronized (this) {
+            while (true) {
+                if (haySondeo && System.nanoTime() - sondeoVence < 0) return ultimoSondeoOk;
+                if (!sondeoEnCurso) break;
+                // Otro hilo esta sondeando: sirve el resultado anterior; sin ninguno, se espera el suyo.
+                if (haySondeo) return ultimoSondeoOk;
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            sondeoEnCurso = true;
+        }
+        return sondear();
+    }
+
+    /** Por que no esta disponible (o "ok"), segun el ultimo sondeo o fallo. */
+    public synchronized String getMotivo() {
+        return motivo;
+    }
+
+    /** GET /api/tags sin el monitor; quien llama ya marco {@code sondeoEnCurso}. */
+    private boolean sondear() {
+        sondeos.increment();
+        boolean ok = false;
+        String detalle = "sondeo interrumpido";
+        try {
+            HttpResponse<String> respuesta = http.send(sondeo, HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 200) {
+                detalle = "HTTP " + respuesta.statusCode() + " en " + urlBase + "/api/tags";
+            } else if (!tieneModelo(respuesta.body())) {
+                detalle = "el modelo " + modelo + " no esta instalado (ollama pull " + modelo + ")";
+            } else {
+                ok = true;
+                detalle = "ok";
+            }
+        } catch (IOException e) {
+            detalle = "sin respuesta de " + urlBase + " (" + e.getClass().getSimpleName() + ")";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                anotarSondeo(ok, detalle);
+                sondeoEnCurso = false;
+                notifyAll();
+            }
+        }
+        return ok;
+    }
+
+    /** {@code {"models":[{"name":"llama3.2:latest", ...}]}}: acepta el nombre con o sin etiqueta. */
+    private boolean tieneModelo(String cuerpo) {
+        try {
+            JsonElement modelos = JsonParser.parseString(cuerpo).getAsJsonObject().get("models");
+            if (modelos == null || !modelos.isJsonArray()) return false;
+            for (JsonElement elemento : modelos.getAsJsonArray()) {
+                JsonObject m = elemento.getAsJsonObject();
+                String nombre = m.has("name") ? m.get("name").getAsString() : m.get("model").getAsString();
+                if (nombre.equals(modelo) || nombre.startsWith(modelo + ":")) return true;
+            }
+            return false;
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException | NullPointerException e) {
+            return false;
+        }
+    }
+
+    private void anotarSondeo(boolean ok, String detalle) {
+        haySondeo      = true;
+        ultimoSondeoOk = ok;
+        sondeoVence    = System.nanoTime() + CACHE_NANOS;
+        motivo         = detalle;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Circuit breaker
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Decide si una llamada puede ir a Ollama. Quien recibe true debe informar el resultado con
+     * {@link #registrarExito()} o {@link #registrarFallo(Throwable)}.
+     */
+    public boolean permitirLlamada() {
+        synchronized (this) {
+            if (estado == Estado.CERRADO) return true;
+            if (estado != Estado.ABIERTO || System.nanoTime() - abiertoHasta < 0 || sondeoEnCurso) return admitirPrueba();
+            sondeoEnCurso = true;
+        }
+        boolean ok = sondear();
+        synchronized (this) {
+            if (estado == Estado.ABIERTO) {
+                if (ok) estado = Estado.SEMI_ABIERTO;
+                else    abiertoHasta = System.nanoTime() + ABIERTO_NANOS;
+            }
+            return admitirPrueba();
+        }
+    }
+
+    /** Con el monitor tomado: en SEMI_ABIERTO pasa una sola llamada de prueba, el resto se rechaza. */
+    private boolean admitirPrueba() {
+        if (estado == Estado.CERRADO) return true;
+        if (estado == Estado.SEMI_ABIERTO && !pruebaEnCurso) {
+            pruebaEnCurso = true;
+            return true;
+        }
+        rechazadas.increment();
+        return false;
+    }
+
+    /** true mientras el circuito rechaza llamadas sin probar (abierto y sin vencer). */
+    public synchronized boolean estaAbierto() {
+        return estado == Estado.ABIERTO && System.nanoTime() - abiertoHasta < 0;
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public synchronized void registrarExito() {
+        estado         = Estado.CERRADO;
+        fallosSeguidos = 0;
+        pruebaEnCurso  = false;
+        anotarSondeo(true, "ok");
+    }
+
+    public synchronized void registrarFallo(Throwable causa) {
+        fallosSeguidos++;
+        pruebaEnCurso = false;
+        // Solo el motivo: un timeout de inferencia no dice que Ollama este caido, eso lo decide el sondeo.
+        motivo = causa != null && causa.getMessage() != null ? causa.getMessage() : "error al llamar a Ollama";
+        if (estado == Estado.SEMI_ABIERTO || (estado == Estado.CERRADO && fallosSeguidos >= UMBRAL_FALLOS)) {
+            estado       = Estado.ABIERTO;
+            abiertoHasta = System.nanoTime() + ABIERTO_NANOS;
+            aperturas.increment();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Instantanea del estado de Ollama.
+     *
+     * @param sondeos    Peticiones a /api/tags
+     * @param aperturas  Veces que se abrio el circuito
+     * @param rechazadas Llamadas rechazadas sin tocar la red
+     */
+    public record Estadisticas(Estado estado, String motivo, long sondeos, long aperturas, long rechazadas) {
+
+        @Override
+        public String toString() {
+            return String.format("SaludOllama{estado=%s, sondeos=%d, aperturas=%d, rechazadas=%d, ultimo='%s'}",
+                    estado, sondeos, aperturas, rechazadas, motivo);
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        Estado e;
+        String m;
+        synchronized (this) {
+            e = estado;
+            m = motivo;
+        }
+        return new Estadisticas(e, m, sondeos.sum(), aperturas.sum(), rechazadas.sum());
+    }
+}
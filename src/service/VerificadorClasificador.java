@@ -0,0 +1,143 @@
+package service;
+
+import modelo.BilleteraDigital;
+import modelo.CuentaBancaria;
+import modelo.CuentaFinanciera;
+import modelo.Montos;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Chequeo de regresion del {@link ClasificadorReglas} contra el corpus de referencia.
+ *
+ * Lee la tabla de la seccion "Corpus del clasificador por reglas" de
+ * {@code docs/pruebas-ejemplos.md} (o del archivo indicado): cada fila es un texto y lo que el
+ * clasificador debe devolver, o "IA" si debe derivarlo al modelo. Las filas se evaluan con las
+ * cuentas de ejemplo de esa seccion (Yape, Plin y BCP, en ese orden). Un texto derivado a la IA
+ * que el clasificador resuelve cuenta como falla, igual que un campo distinto.
+ *
+ * Uso: {@code java -cp ChatFinance.jar Main --verificar-clasificador [archivo]} (codigo de salida 1 si hay fallas).
+ */
+public final class VerificadorClasificador {
+
+    private static final String CORPUS  = System.getProperty("chatfinance.clasificador.corpus", "docs/pruebas-ejemplos.md");
+    private static final String SECCION = "Corpus del clasificador por reglas";
+    private static final String NULO    = "—";
+    private static final String DERIVAR = "IA";
+
+    /** Fila del corpus; los campos ausentes ("—" en la tabla) son null. */
+    private record Caso(String texto, String intencion, String tipo, String monto, String categoria,
+                        String cuenta, String periodo) { }
+
+    private VerificadorClasificador() { }
+
+    /** Cuentas con las que se escribio el corpus. */
+    static List<CuentaFinanciera> cuentasDeEjemplo() {
+        return List.of(
+            new BilleteraDigital(1, "999111222", 0L, "Yape", "Yape"),
+            new BilleteraDigital(1, "999333444", 0L, "Plin", "Plin"),
+            new CuentaBancaria(1, "191-0000000-0-00", 0L, "BCP", null)
+        );
+    }
+
+    /**
+     * Clasifica cada caso del corpus e imprime el resultado.
+     *
+     * @return Descripcion de cada caso que no coincide; vacia si todos coinciden
+     */
+    public static List<String> verificar(Path corpus) throws IOException {
+        List<Caso> casos = leerCorpus(corpus);
+        if (casos.isEmpty()) throw new IOException("No se encontro la seccion \"" + SECCION + "\" en " + corpus);
+
+        ClasificadorReglas clasificador = new ClasificadorReglas();
+        List<CuentaFinanciera> cuentas = cuentasDeEjemplo();
+        List<String> fallas = new ArrayList<>();
+        long nanos = 0;
+
+        for (Caso caso : casos) {
+            long inicio = System.nanoTime();
+            IntencionOperacionDTO dto = clasificador.clasificar(caso.texto(), cuentas);
+            nanos += System.nanoTime() - inicio;
+
+            String obtenido = describir(dto);
+            String esperado = caso.intencion() == null ? DERIVAR
+                    : describir(caso.intencion(), caso.tipo(), caso.monto(), caso.categoria(), caso.cuenta(), caso.periodo());
+            boolean falla = !obtenido.equals(esperado);
+
+            System.out.printf("%s %-50s %s%n", falla ? "[FALLA]" : "[ OK  ]", caso.texto(), obtenido);
+            if (falla) fallas.add("\"" + caso.texto() + "\" -> esperado " + esperado + ", obtenido " + obtenido);
+        }
+
+        System.out.println(clasificador.getEstadisticas());
+        System.out.printf("%d casos, %.1f us por clasificacion%n", casos.size(), nanos / 1e3 / casos.size());
+        return fallas;
+    }
+
+    private static String describir(IntencionOperacionDTO dto) {
+        if (dto == null) return DERIVAR;
+        return describir(dto.getIntencion(), dto.getTipoTransaccion(),
+                dto.getMontoCentimos() != null ? Montos.formatear(dto.getMontoCentimos()) : null,
+                dto.getCategoria(), dto.getNombreCuenta(), dto.getPeriodo());
+    }
+
+    private static String describir(String intencion, String tipo, String monto, String categoria,
+                                    String cuenta, String periodo) {
+        StringBuilder sb = new StringBuilder(intencion);
+        for (String campo : new String[] { tipo, monto, categoria, cuenta, periodo }) {
+            sb.append(" | ").append(Objects.requireNonNullElse(campo, "-"));
+        }
+        return sb.toString();
+    }
+
+    /** Filas de la tabla de la seccion del corpus: {@code | `texto` | intencion | tipo | monto | categoria | cuenta | periodo |}. */
+    private static List<Caso> leerCorpus(Path corpus) throws IOException {
+        List<Caso> casos = new ArrayList<>();
+        boolean enSeccion = false;
+        for (String linea : Files.readAllLines(corpus, StandardCharsets.UTF_8)) {
+            if (linea.startsWith("## ")) {
+                enSeccion = linea.contains(SECCION);
+                continue;
+            }
+            if (!enSeccion || !linea.startsWith("| `")) continue;
+
+            String[] celdas = linea.split("\\|");
+            if (celdas.length < 8) throw new IOException("Fila del corpus incompleta: " + linea);
+            String texto = celdas[1].trim();
+            casos.add(new Caso(texto.substring(1, texto.length() - 1),
+                    celda(celdas[2]), celda(celdas[3]), celda(celdas[4]),
+                    celda(celdas[5]), celda(celdas[6]), celda(celdas[7])));
+        }
+        return casos;
+    }
+
+    private static String celda(String celda) {
+        String valor = celda.trim();
+        return valor.equals(NULO) || valor.equals(DERIVAR) ? null : valor;
+    }
+
+    public static void main(String[] args) {
+        Path corpus = Path.of(args.length > 1 ? args[1] : CORPUS);
+        List<String> fallas;
+        try {
+            fallas = verificar(corpus);
+        } catch (IOException e) {
+            System.err.println("No se pudo leer el corpus: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (fallas.isEmpty()) {
+            System.out.println("El clasificador coincide con todo el corpus.");
+            return;
+        }
+        System.err.println(fallas.size() + " caso(s) no coinciden:");
+        fallas.forEach(f -> System.err.println("  " + f));
+        System.exit(1);
+    }
+}
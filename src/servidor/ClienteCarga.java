@@ -0,0 +1,182 @@
+package servidor;
+
+import util.Hilos;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generador de carga para {@link ServidorSesiones}: abre N sesiones simultaneas que se registran,
+ * crean las cuentas de prueba y repiten rondas de ingreso, gasto, consulta de saldos y reporte.
+ *
+ * Cada sesion responde segun el prompt que recibe (el texto que termina en ": " o "..."), asi
+ * que no depende de la cantidad exacta de pantallas. Mide la latencia de cada ida y vuelta
+ * (desde enviar una linea hasta recibir el siguiente prompt) y reporta p50/p99/max y el
+ * rendimiento total.
+ *
+ * Uso: {@code ClienteCarga [puerto] [sesiones] [rondas]} (por defecto 5050, 32, 20).
+ */
+public class ClienteCarga {
+
+    /** Respuestas pendientes por menu; cuando se agotan la sesion sale. */
+    private static final class Guion {
+        final Deque<String> menuPrincipal   = new ArrayDeque<>();
+        final Deque<String> menuOperaciones = new ArrayDeque<>();
+
+        Guion(int rondas) {
+            menuPrincipal.add("99");
+            for (int i = 0; i < rondas; i++) {
+                menuPrincipal.add("3");                       // operaciones: ingreso, gasto, volver
+                menuPrincipal.add(i % 2 == 0 ? "1" : "4");    // saldos o reporte
+                menuOperaciones.add("1");
+                menuOperaciones.add("2");
+                menuOperaciones.add("0");
+            }
+            menuPrincipal.add("6");
+        }
+    }
+
+    /** Resultado de una sesion: latencias de cada ida y vuelta, en nanosegundos. */
+    private record Sesion(long[] latencias, int cantidad, boolean rechazada, String error) {}
+
+    public static void main(String[] args) {
+        int puerto   = args.length > 0 ? Integer.parseInt(args[0]) : 5050;
+        int sesiones = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int rondas   = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        // Numeros distintos en cada corrida para registrar usuarios nuevos.
+        long base = (System.currentTimeMillis() / 1000 % 100_000) * 1000;
+        AtomicInteger secuencia = new AtomicInteger();
+
+        ExecutorService hilos = Hilos.porTarea("carga");
+        List<Future<Sesion>> futuros = new ArrayList<>();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < sesiones; i++) {
+            futuros.add(hilos.submit(() -> {
+                int n = secuencia.getAndIncrement();
+                return correrSesion(puerto, String.format("9%08d", (base + n) % 100_000_000L), "Carga " + n, rondas);
+            }));
+        }
+
+        long[] todas = new long[0];
+        int total = 0;
+        int rechazadas = 0;
+        int fallidas = 0;
+        for (Future<Sesion> futuro : futuros) {
+            Sesion sesion;
+            try {
+                sesion = futuro.get();
+            } catch (InterruptedException | ExecutionException e) {
+                sesion = new Sesion(new long[0], 0, false, e.getMessage());
+            }
+            if (sesion.rechazada()) {
+                rechazadas++;
+                continue;
+            }
+            if (sesion.error() != null) {
+                fallidas++;
+                System.err.println("Sesion fallida: " + sesion.error());
+            }
+            todas = Arrays.copyOf(todas, total + sesion.cantidad());
+            System.arraycopy(sesion.latencias(), 0, todas, total, sesion.cantidad());
+            total += sesion.cantidad();
+        }
+        long duracion = System.nanoTime() - inicio;
+        hilos.shutdown();
+
+        Arrays.sort(todas, 0, total);
+        System.out.printf("Sesiones: %d (rechazadas %d, fallidas %d), idas y vueltas: %d en %.2f s -> %.0f/s%n",
+                sesiones, rechazadas, fallidas, total, duracion / 1e9, total / (duracion / 1e9));
+        if (total > 0) {
+            System.out.printf("Latencia: p50=%.3f ms  p99=%.3f ms  max=%.3f ms%n",
+                    percentil(todas, total, 0.50) / 1e6, percentil(todas, total, 0.99) / 1e6, todas[total - 1] / 1e6);
+        }
+    }
+
+    private static Sesion correrSesion(int puerto, String numero, String nombre, int rondas) {
+        Guion guion = new Guion(rondas);
+        long[] latencias = new long[64];
+        int cantidad = 0;
+
+        try (Socket socket = new Socket("127.0.0.1", puerto)) {
+            socket.setTcpNoDelay(true);
+            Reader entrada = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+            OutputStream salida = socket.getOutputStream();
+            StringBuilder pantalla = new StringBuilder();
+
+            while (true) {
+                long enviado = System.nanoTime();
+                if (!leerHastaPrompt(entrada, pantalla)) {
+                    boolean rechazada = pantalla.indexOf("Servidor lleno") >= 0;
+                    boolean completa  = guion.menuPrincipal.isEmpty();
+                    return new Sesion(latencias, cantidad, rechazada,
+                            rechazada || completa ? null : "conexion cerrada en: " + ultimaLinea(pantalla));
+                }
+                if (cantidad > 0 || pantalla.indexOf("Numero: ") < 0) {
+                    if (cantidad == latencias.length) latencias = Arrays.copyOf(latencias, cantidad * 2);
+                    latencias[cantidad++] = System.nanoTime() - enviado;
+                }
+
+                String respuesta = responder(pantalla.toString(), numero, nombre, guion);
+                if (respuesta == null) {
+                    return new Sesion(latencias, cantidad, false, "prompt inesperado: " + ultimaLinea(pantalla));
+                }
+                pantalla.setLength(0);
+                salida.write((respuesta + "\n").getBytes(StandardCharsets.UTF_8));
+                salida.flush();
+            }
+        } catch (IOException e) {
+            return new Sesion(latencias, cantidad, false, e.getMessage());
+        }
+    }
+
+    /** Lee hasta que la pantalla termina en un prompt; false si el servidor cerro la conexion. */
+    private static boolean leerHastaPrompt(Reader entrada, StringBuilder pantalla) throws IOException {
+        char[] buffer = new char[4096];
+        while (true) {
+            int n = entrada.read(buffer);
+            if (n < 0) return false;
+            pantalla.append(buffer, 0, n);
+            int largo = pantalla.length();
+            if (largo >= 2 && pantalla.charAt(largo - 2) == ':' && pantalla.charAt(largo - 1) == ' ') return true;
+            if (largo >= 3 && pantalla.substring(largo - 3).equals("...")) return true;
+        }
+    }
+
+    private static String responder(String pantalla, String numero, String nombre, Guion guion) {
+        if (pantalla.endsWith("...")) return "";
+        if (pantalla.endsWith("Numero: ")) return numero;
+        if (pantalla.endsWith("Nombre: ")) return nombre;
+        if (pantalla.endsWith("Seleccione una cuenta: ")) return "2";
+        if (pantalla.endsWith("Seleccione categoria: ")) return "1";
+        if (pantalla.endsWith("(S/): ")) return "1.50";
+        if (pantalla.endsWith("Descripcion breve: ")) return "carga";
+        if (pantalla.endsWith("Seleccione una opcion: ")) {
+            Deque<String> cola = pantalla.contains("OPERACIONES FINANCIERAS") ? guion.menuOperaciones : guion.menuPrincipal;
+            return cola.isEmpty() ? (cola == guion.menuOperaciones ? "0" : "6") : cola.poll();
+        }
+        return null;
+    }
+
+    private static String ultimaLinea(StringBuilder pantalla) {
+        String texto = pantalla.toString().strip();
+        return texto.substring(texto.lastIndexOf('\n') + 1);
+    }
+
+    private static long percentil(long[] ordenados, int cantidad, double p) {
+        return ordenados[Math.min(cantidad - 1, (int) Math.ceil(p * cantidad) - 1)];
+    }
+}
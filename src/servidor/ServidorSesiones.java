@@ -0,0 +1,276 @@
+package servidor;
+
+import controller.LoginController;
+import dao.CacheCuentas;
+import dao.ColaEscritura;
+import service.AsistenteIAService;
+import service.CacheIntenciones;
+import service.ClasificadorReglas;
+import service.SaludOllama;
+import util.DatabaseConnection;
+import util.Hilos;
+import util.Metricas;
+import view.ConsoleView;
+import view.EntradaCerradaException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Modo servidor: atiende sesiones de texto por linea sobre un socket local (p. ej. con
+ * {@code nc localhost 5050}). Cada conexion recibe su propia {@link ConsoleView} sobre los
+ * flujos del socket y corre el mismo flujo que la consola ({@link LoginController}) en su
+ * propio hilo; todas comparten los DAOs, la cache de cuentas y el pool de conexiones.
+ *
+ * Configuracion (propiedades del sistema):
+ *   chatfinance.servidor.puerto         Puerto TCP en la interfaz de loopback (por defecto 5050)
+ *   chatfinance.servidor.maxSesiones    Sesiones simultaneas; las demas se rechazan (por defecto 64)
+ *   chatfinance.servidor.inactividadSeg Cierra la sesion tras ese tiempo sin recibir una linea (por defecto 300)
+ *
+ * Al cerrar cada sesion registra sus metricas (lineas, tiempo de respuesta promedio y maximo);
+ * al detener el servidor, los totales.
+ */
+public class ServidorSesiones implements AutoCloseable {
+
+    private static final int PUERTO          = Integer.getInteger("chatfinance.servidor.puerto", 5050);
+    private static final int MAX_SESIONES    = Integer.getInteger("chatfinance.servidor.maxSesiones", 64);
+    private static final int INACTIVIDAD_SEG = Integer.getInteger("chatfinance.servidor.inactividadSeg", 300);
+
+    // Pausa tras un accept() fallido (p. ej. EMFILE): se duplica con cada error seguido.
+    private static final long PAUSA_ERROR_MS        = 10;
+    private static final long PAUSA_ERROR_MAXIMA_MS = 1_000;
+
+    /** Por que termino una sesion. */
+    public enum Cierre { SALIDA, DESCONEXION, INACTIVIDAD, ERROR }
+
+    /**
+     * Metricas de una sesion terminada.
+     *
+     * @param lineas             Lineas recibidas del cliente
+     * @param respuestaNanos     Tiempo total entre recibir una linea y pedir la siguiente
+     * @param maxRespuestaNanos  Mayor tiempo de respuesta individual
+     * @param esperaEntradaNanos Tiempo total esperando al cliente
+     */
+    public record MetricasSesion(int id, String remoto, Cierre cierre, long duracionNanos, long lineas,
+                                 long respuestaNanos, long maxRespuestaNanos, long esperaEntradaNanos) {
+
+        public double respuestaPromedioMs() {
+            return lineas == 0 ? 0.0 : respuestaNanos / 1_000_000.0 / lineas;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Sesion{id=%d, remoto=%s, cierre=%s, duracion=%.1f s, lineas=%d, respProm=%.3f ms, respMax=%.3f ms, " +
+                "esperandoCliente=%.1f s}",
+                id, remoto, cierre, duracionNanos / 1e9, lineas, respuestaPromedioMs(),
+                maxRespuestaNanos / 1e6, esperaEntradaNanos / 1e9);
+        }
+    }
+
+    private final int puerto;
+    private final int inactividadMs;
+    private final Semaphore cupos;
+    private final ExecutorService hilos = Hilos.porTarea("sesion");
+    private final Map<Integer, Socket> activas = new ConcurrentHashMap<>();
+    private final AtomicInteger siguienteId = new AtomicInteger();
+    private volatile ServerSocket servidor;
+    private volatile boolean detenido;
+
+    private final LongAdder aceptadas       = new LongAdder();
+    private final LongAdder rechazadas      = new LongAdder();
+    private final LongAdder porInactividad  = new LongAdder();
+    private final LongAdder conError        = new LongAdder();
+    private final LongAdder lineas          = new LongAdder();
+    private final LongAdder respuestaNanos  = new LongAdder();
+
+    public ServidorSesiones(int puerto, int maxSesiones, int inactividadSeg) {
+        this.puerto        = puerto;
+        this.inactividadMs = (int) TimeUnit.SECONDS.toMillis(inactividadSeg);
+        this.cupos         = new Semaphore(maxSesiones);
+    }
+
+    /** Abre el socket de escucha; con puerto 0 el sistema elige uno libre (ver {@link #getPuerto()}). */
+    public void iniciar() throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), MAX_SESIONES);
+        servidor = socket;
+    }
+
+    public int getPuerto() {
+        return servidor != null ? servidor.getLocalPort() : puerto;
+    }
+
+    /** Acepta conexiones hasta {@link #close()}. */
+    public void atender() {
+        int erroresSeguidos = 0;
+        while (!detenido) {
+            Socket socket;
+            try {
+                socket = servidor.accept();
+                erroresSeguidos = 0;
+            } catch (IOException e) {
+                if (detenido) continue;
+                // Un error que se repite (sin descriptores libres) no debe girar a toda velocidad.
+                erroresSeguidos++;
+                System.err.println("Error al aceptar conexion (" + erroresSeguidos + " seguidos): " + e.getMessage());
+                try {
+                    Thread.sleep(Math.min(PAUSA_ERROR_MAXIMA_MS, PAUSA_ERROR_MS << Math.min(erroresSeguidos - 1, 10)));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+
+            if (!cupos.tryAcquire()) {
+                rechazadas.increment();
+                rechazar(socket);
+                continue;
+            }
+            aceptadas.increment();
+            int id = siguienteId.incrementAndGet();
+            activas.put(id, socket);
+            hilos.execute(() -> {
+                try {
+                    atenderSesion(id, socket);
+                } finally {
+                    activas.remove(id);
+                    cupos.release();
+                }
+            });
+        }
+    }
+
+    private void atenderSesion(int id, Socket socket) {
+        long inicio = System.nanoTime();
+        String remoto = socket.getRemoteSocketAddress().toString();
+        Cierre cierre = Cierre.SALIDA;
+        ConsoleView vista = null;
+
+        try (socket) {
+            socket.setSoTimeout(inactividadMs);
+            socket.setTcpNoDelay(true);
+            PrintStream salida = new PrintStream(new BufferedOutputStream(socket.getOutputStream()),
+                    false, StandardCharsets.UTF_8);
+            vista = new ConsoleView(new BufferedInputStream(socket.getInputStream()), salida);
+
+            vista.mostrarMensaje("ChatFinance - sesion " + id);
+            new LoginController(vista).iniciar();
+
+        } catch (EntradaCerradaException e) {
+            if (e.porInactividad()) {
+                cierre = Cierre.INACTIVIDAD;
+                porInactividad.increment();
+            } else {
+                cierre = Cierre.DESCONEXION;
+            }
+        } catch (SocketException e) {
+            cierre = Cierre.DESCONEXION;
+        } catch (Exception e) {
+            cierre = Cierre.ERROR;
+            conError.increment();
+            System.err.println("Error en la sesion " + id + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        MetricasSesion metricas = (vista == null)
+                ? new MetricasSesion(id, remoto, cierre, System.nanoTime() - inicio, 0, 0, 0, 0)
+                : new MetricasSesion(id, remoto, cierre, System.nanoTime() - inicio, vista.getLineasLeidas(),
+                        vista.getNanosRespondiendo(), vista.getMaxNanosRespuesta(), vista.getNanosEsperandoEntrada());
+        lineas.add(metricas.lineas());
+        respuestaNanos.add(metricas.respuestaNanos());
+        System.out.println(metricas);
+    }
+
+    private static void rechazar(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(1000);
+            socket.getOutputStream().write("Servidor lleno. Intente mas tarde.\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ignorada) { }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas
+    // ─────────────────────────────────────────────────────────────────────────
+
+    public int getSesionesActivas() {
+        return activas.size();
+    }
+
+    public String resumen() {
+        long totalLineas = lineas.sum();
+        return String.format(
+            "Servidor{aceptadas=%d, rechazadas=%d, activas=%d, porInactividad=%d, conError=%d, lineas=%d, respProm=%.3f ms, hilosVirtuales=%s}",
+            aceptadas.sum(), rechazadas.sum(), activas.size(), porInactividad.sum(), conError.sum(), totalLineas,
+            totalLineas == 0 ? 0.0 : respuestaNanos.sum() / 1e6 / totalLineas, Hilos.hayHilosVirtuales());
+    }
+
+    /** Deja de aceptar conexiones y corta las sesiones abiertas. */
+    @Override
+    public void close() {
+        detenido = true;
+        try {
+            if (servidor != null) servidor.close();
+        } catch (IOException ignorada) { }
+        for (Socket socket : activas.values()) {
+            try {
+                socket.close();
+            } catch (IOException ignorada) { }
+        }
+        hilos.shutdown();
+        try {
+            hilos.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Uso: {@code ServidorSesiones [puerto]}. Se detiene con Ctrl+C. */
+    public static void main(String[] args) {
+        Metricas.activar();
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : PUERTO;
+        ServidorSesiones servidor = new ServidorSesiones(puerto, MAX_SESIONES, INACTIVIDAD_SEG);
+        try {
+            DatabaseConnection.getInstance();
+            servidor.iniciar();
+        } catch (IOException e) {
+            System.err.println("No se pudo abrir el puerto " + puerto + ": " + e.getMessage());
+            DatabaseConnection.getInstance().cerrarConexion();
+            System.exit(1);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.close();
+            System.out.println(servidor.resumen());
+            ColaEscritura.detener();
+            System.out.println(CacheCuentas.getInstance().getEstadisticas());
+            System.out.println(ClasificadorReglas.getInstance().getEstadisticas());
+            CacheIntenciones.getInstance().guardar();
+            System.out.println(CacheIntenciones.getInstance().getEstadisticas());
+            System.out.println(AsistenteIAService.getEstadisticas());
+            if (SaludOllama.actual() != null) System.out.println(SaludOllama.actual().getEstadisticas());
+            DatabaseConnection.getInstance().cerrarConexion();
+        }, "cierre-servidor"));
+
+        System.out.printf("ChatFinance escuchando en 127.0.0.1:%d (max %d sesiones, inactividad %d s)%n",
+                servidor.getPuerto(), MAX_SESIONES, INACTIVIDAD_SEG);
+        servidor.atender();
+    }
+}
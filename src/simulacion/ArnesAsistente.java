@@ -0,0 +1,329 @@
+package simulacion;
+
+import controller.AsistenteController;
+import controller.CuentaController;
+import dao.ColaEscritura;
+import dao.UsuarioDAO;
+import modelo.Usuario;
+import service.AsistenteIAService;
+import service.ClasificadorReglas;
+import service.SaludOllama;
+import util.DatabaseConnection;
+import util.Hilos;
+import util.Metricas;
+import view.ConsoleView;
+import view.EntradaCerradaException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Arnes de latencia del asistente contra {@link OllamaSimulado}: N sesiones simultaneas que
+ * recorren el codigo real ({@link AsistenteController} con su {@link ConsoleView}, las reglas,
+ * la cache, {@link AsistenteIAService} por HTTP y los DAOs) con mensajes de un guion fijo.
+ *
+ * Cada sesion registra un usuario, crea las cuentas de prueba y envia sus mensajes; las
+ * preguntas del controlador (confirmaciones, Enter, el menu de operaciones si la IA no esta
+ * disponible) se responden segun el prompt, como en {@code ClienteCarga}. Reporta p50/p99/p999
+ * por etapa:
+ *   MENSAJE         Desde enviar el texto hasta el siguiente "Tu: " (todo el camino)
+ *   REGLAS ... ENRUTADO  Las etapas de {@link AsistenteController.Etapa}
+ *   MODELO          Tiempo de servicio del servidor simulado en las respuestas que el cliente
+ *                   leyo completas (lo que tardaria el modelo)
+ * La diferencia entre INTERPRETACION y MODELO es el costo propio del camino hacia la IA; las
+ * interpretaciones cortadas en VER_SALDOS van aparte, en INTENCION.
+ *
+ * Cada paso del guion dice si lo resuelve ClasificadorReglas o llega al modelo. Si un mensaje
+ * toma el otro camino, o el simulador lo responde sin entrada en el guion, la sesion cuenta
+ * como fallida y el arnes termina con codigo 1: los numeros de esa corrida no son los del guion.
+ *
+ * Salvo que se indiquen, usa una base SQLite temporal, desactiva la cache de intenciones (los
+ * mensajes se repiten y todos serian aciertos) y la precarga del modelo.
+ *
+ * Uso: {@code java -cp ChatFinance.jar Main --arnes-asistente [sesiones] [mensajes]} (por defecto 8, 40),
+ * con la latencia y los fallos del simulador en las propiedades {@code chatfinance.simulacion.*}.
+ */
+public final class ArnesAsistente {
+
+    /**
+     * Mensaje del guion y lo que responde el modelo simulado cuando le llega; sin respuesta, lo
+     * resuelve ClasificadorReglas y no debe llegar al modelo.
+     */
+    private record Paso(String texto, String respuesta) {
+
+        boolean porReglas() {
+            return respuesta == null;
+        }
+    }
+
+    // Con las cuentas de prueba: "bcp" es la cuenta BCP y el proveedor de Yape, asi que va a la IA.
+    private static final List<Paso> GUION = List.of(
+        new Paso("cuanto tengo en total", null),
+        new Paso("me depositaron lo del proyecto freelance, 80 al yape", null),
+        new Paso("gaste 12.50 en taxi con bcp",
+            "{\"intencion\":\"REGISTRAR_TRANSACCION\",\"tipoTransaccion\":\"GASTO\",\"monto\":12.5," +
+            "\"categoria\":\"Transporte\",\"nombreCuenta\":\"BCP\",\"tipoCuentaNueva\":null,\"periodo\":null," +
+            "\"descripcion\":\"Taxi\"}"),
+        new Paso("ayer salimos a cenar y se fueron como 35 soles del bcp",
+            "{\"intencion\":\"REGISTRAR_TRANSACCION\",\"tipoTransaccion\":\"GASTO\",\"monto\":35.0," +
+            "\"categoria\":\"Alimentacion\",\"nombreCuenta\":\"BCP\",\"tipoCuentaNueva\":null,\"periodo\":null," +
+            "\"descripcion\":\"Cena\"}"),
+        new Paso("oye y como voy con la plata este mes",
+            "{\"intencion\":\"VER_REPORTE\",\"tipoTransaccion\":null,\"monto\":null,\"categoria\":null," +
+            "\"nombreCuenta\":null,\"tipoCuentaNueva\":null,\"periodo\":\"MES\",\"descripcion\":null}"),
+        new Paso("dime porfa como andan mis cuentitas", OllamaSimulado.RESPUESTA_SALDOS),
+        new Paso("pague la luz, fueron 9 soles con el plin", null)
+    );
+
+    private final Map<AsistenteController.Etapa, Muestras> etapas = new EnumMap<>(AsistenteController.Etapa.class);
+    private final Muestras mensajes = new Muestras();
+    private final OllamaSimulado simulado;
+
+    private ArnesAsistente(OllamaSimulado simulado) {
+        this.simulado = simulado;
+        for (AsistenteController.Etapa etapa : AsistenteController.Etapa.values()) etapas.put(etapa, new Muestras());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Sesion simulada
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Entrada y salida de la {@link ConsoleView} de una sesion. La vista vacia la salida antes de
+     * cada lectura, asi que al pedir bytes la pantalla ya termina en el prompt a responder.
+     */
+    private final class Sesion {
+
+        private final int numero;
+        private final StringBuilder pantalla = new StringBuilder();
+        private final List<Paso> pendientes = new ArrayList<>();
+        private byte[] linea = new byte[0];
+        private int posicion;
+        private long enviado;
+        private Paso actual;
+        private boolean alModelo;
+        private int derivaciones;
+        private String error;
+
+        Sesion(int numero, int cantidadMensajes) {
+            this.numero = numero;
+            for (int i = 0; i < cantidadMensajes; i++) pendientes.add(GUION.get((numero + i) % GUION.size()));
+        }
+
+        final OutputStream salida = new OutputStream() {
+            @Override
+            public void write(int b) {
+                pantalla.append((char) b);
+            }
+
+            @Override
+            public void write(byte[] b, int desde, int largo) {
+                pantalla.append(new String(b, desde, largo, StandardCharsets.UTF_8));
+            }
+        };
+
+        final InputStream entrada = new InputStream() {
+            @Override
+            public int read() {
+                byte[] uno = new byte[1];
+                return read(uno, 0, 1) < 0 ? -1 : uno[0];
+            }
+
+            @Override
+            public int read(byte[] destino, int desde, int largo) {
+                if (posicion == linea.length) {
+                    String respuesta = responder();
+                    if (respuesta == null) return -1;
+                    linea = (respuesta + "\n").getBytes(StandardCharsets.UTF_8);
+                    posicion = 0;
+                    pantalla.setLength(0);
+                }
+                int n = Math.min(largo, linea.length - posicion);
+                System.arraycopy(linea, posicion, destino, desde, n);
+                posicion += n;
+                return n;
+            }
+        };
+
+        /** Respuesta al prompt con que termina la pantalla; null termina la sesion. */
+        private String responder() {
+            String p = pantalla.toString();
+            if (p.endsWith("Tu: ")) {
+                long ahora = System.nanoTime();
+                if (enviado != 0) mensajes.agregar(ahora - enviado);
+                if (actual != null) verificar(actual);
+                if (pendientes.isEmpty()) return "salir";
+                actual = pendientes.remove(0);
+                alModelo = false;
+                enviado = System.nanoTime();
+                return actual.texto();
+            }
+            if (p.endsWith("(s/n): ")) return "s";
+            if (p.endsWith("...")) return "";
+            if (p.endsWith("Seleccione una opcion: ")) {
+                // Solo se deriva al menu lo que iba a la IA con Ollama no disponible.
+                derivaciones++;
+                alModelo = true;
+                return "0";
+            }
+            if (error == null) {
+                String texto = p.strip();
+                error = "prompt inesperado: " + texto.substring(texto.lastIndexOf('\n') + 1);
+            }
+            return null;
+        }
+
+        /** Anota el primer desvio del guion; la sesion sigue para no cambiar la carga del resto. */
+        private void verificar(Paso paso) {
+            String desvio = null;
+            if (paso.porReglas() && alModelo) desvio = "debia resolverlo ClasificadorReglas y llego al modelo";
+            else if (!paso.porReglas() && !alModelo) desvio = "debia llegar al modelo y lo resolvio ClasificadorReglas";
+            else if (simulado.respondioSinGuion(paso.texto())) desvio = "el simulador lo respondio sin entrada en el guion";
+            if (desvio != null && error == null) error = "\"" + paso.texto() + "\": " + desvio;
+        }
+
+        void correr() {
+            ConsoleView vista = new ConsoleView(entrada, new PrintStream(salida, false, StandardCharsets.UTF_8));
+            try {
+                Usuario usuario = new UsuarioDAO().crearUsuario(new Usuario(String.format("9%08d", numero), "Arnes " + numero));
+                if (usuario == null) {
+                    error = "no se pudo crear el usuario";
+                    return;
+                }
+                new CuentaController(vista).crearCuentasDePrueba(usuario);
+
+                AsistenteController asistente = new AsistenteController(vista);
+                asistente.setMedidor((etapa, nanos) -> {
+                    etapas.get(etapa).agregar(nanos);
+                    if (etapa == AsistenteController.Etapa.INTENCION || etapa == AsistenteController.Etapa.INTERPRETACION)
+                        alModelo = true;
+                });
+                asistente.iniciarAsistente(usuario);
+            } catch (EntradaCerradaException e) {
+                if (error == null) error = e.getMessage();
+            } finally {
+                vista.cerrar();
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Corrida
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** @return true si ninguna sesion fallo */
+    private boolean correr(int cantidadSesiones, int cantidadMensajes) {
+        ExecutorService hilos = Hilos.porTarea("arnes");
+        List<Sesion> sesiones = new ArrayList<>();
+        List<Future<?>> futuros = new ArrayList<>();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < cantidadSesiones; i++) {
+            Sesion sesion = new Sesion(i, cantidadMensajes);
+            sesiones.add(sesion);
+            futuros.add(hilos.submit(sesion::correr));
+        }
+
+        int fallidas = 0;
+        int derivaciones = 0;
+        for (int i = 0; i < futuros.size(); i++) {
+            Sesion sesion = sesiones.get(i);
+            try {
+                futuros.get(i).get();
+            } catch (InterruptedException | ExecutionException e) {
+                if (sesion.error == null) sesion.error = String.valueOf(e.getCause());
+            }
+            derivaciones += sesion.derivaciones;
+            if (sesion.error != null) {
+                fallidas++;
+                System.err.println("Sesion " + sesion.numero + " fallida: " + sesion.error);
+            }
+        }
+        long duracion = System.nanoTime() - inicio;
+        hilos.shutdown();
+
+        System.out.printf(Locale.ROOT, "%nSesiones: %d (fallidas %d), mensajes: %d en %.2f s -> %.1f/s, derivados al menu: %d%n",
+                cantidadSesiones, fallidas, mensajes.cantidad(), duracion / 1e9, mensajes.cantidad() / (duracion / 1e9),
+                derivaciones);
+        System.out.println(Muestras.cabecera());
+        System.out.println(mensajes.resumen("MENSAJE"));
+        etapas.forEach((etapa, muestras) -> System.out.println(muestras.resumen(etapa.name())));
+        System.out.println(simulado.getServicio().resumen("MODELO"));
+        System.out.printf(Locale.ROOT, "Costo propio de la interpretacion (promedio INTERPRETACION - MODELO): %.3f ms%n",
+                etapas.get(AsistenteController.Etapa.INTERPRETACION).promedioMs() - simulado.getServicio().promedioMs());
+        return fallidas == 0;
+    }
+
+    public static void main(String[] args) {
+        Metricas.activar();
+        int cantidadSesiones = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int cantidadMensajes = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        // Deben fijarse antes del primer uso de DatabaseConnection, AsistenteIAService y la cache.
+        Path directorio = null;
+        boolean ok = false;
+        try {
+            if (System.getProperty("chatfinance.db.url") == null) {
+                directorio = Files.createTempDirectory("chatfinance-arnes");
+                System.setProperty("chatfinance.db.url", "jdbc:sqlite:" + directorio.resolve("finanzas.db"));
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo crear la base temporal: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (System.getProperty("chatfinance.cache.intenciones.entradas") == null)
+            System.setProperty("chatfinance.cache.intenciones.entradas", "0");
+        if (System.getProperty("chatfinance.ollama.precargar") == null)
+            System.setProperty("chatfinance.ollama.precargar", "false");
+
+        List<OllamaSimulado.Respuesta> guion = new ArrayList<>();
+        for (Paso paso : GUION) {
+            if (paso.respuesta() != null) guion.add(new OllamaSimulado.Respuesta(paso.texto(), paso.respuesta()));
+        }
+        OllamaSimulado.Configuracion configuracion = OllamaSimulado.Configuracion.desdePropiedades().conGuion(guion);
+
+        try (OllamaSimulado simulado = new OllamaSimulado(0, configuracion)) {
+            System.setProperty("chatfinance.ollama.url", simulado.getUrl());
+            System.out.printf("Ollama simulado en %s (%s)%n", simulado.getUrl(), configuracion);
+            System.out.printf("%d sesiones x %d mensajes...%n", cantidadSesiones, cantidadMensajes);
+            DatabaseConnection.getInstance();
+
+            ok = new ArnesAsistente(simulado).correr(cantidadSesiones, cantidadMensajes);
+
+            System.out.println(simulado.resumen());
+            System.out.println(ClasificadorReglas.getInstance().getEstadisticas());
+            System.out.println(AsistenteIAService.getEstadisticas());
+            if (SaludOllama.actual() != null) System.out.println(SaludOllama.actual().getEstadisticas());
+        } catch (IOException e) {
+            System.err.println("No se pudo iniciar el Ollama simulado: " + e.getMessage());
+        } finally {
+            ColaEscritura.detener();
+            DatabaseConnection.getInstance().cerrarConexion();
+            if (directorio != null) borrar(directorio);
+        }
+        if (!ok) System.exit(1);
+    }
+
+    private static void borrar(Path directorio) {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path p : archivos.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar " + directorio + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package simulacion;
+
+import java.util.Arrays;
+
+/** Latencias en nanosegundos de una etapa, de varios hilos; al final se ordenan para sacar percentiles. */
+final class Muestras {
+
+    private long[] valores = new long[256];
+    private int cantidad;
+
+    synchronized void agregar(long nanos) {
+        if (cantidad == valores.length) valores = Arrays.copyOf(valores, cantidad * 2);
+        valores[cantidad++] = nanos;
+    }
+
+    synchronized int cantidad() {
+        return cantidad;
+    }
+
+    synchronized double promedioMs() {
+        if (cantidad == 0) return 0.0;
+        long total = 0;
+        for (int i = 0; i < cantidad; i++) total += valores[i];
+        return total / 1e6 / cantidad;
+    }
+
+    /** {@code etapa  n  p50  p99  p999  max}, en milisegundos. */
+    synchronized String resumen(String etapa) {
+        if (cantidad == 0) return String.format("%-16s %7d %10s %10s %10s %10s", etapa, 0, "-", "-", "-", "-");
+        long[] ordenados = Arrays.copyOf(valores, cantidad);
+        Arrays.sort(ordenados);
+        return String.format("%-16s %7d %10.3f %10.3f %10.3f %10.3f", etapa, cantidad,
+                percentil(ordenados, 0.50) / 1e6, percentil(ordenados, 0.99) / 1e6,
+                percentil(ordenados, 0.999) / 1e6, ordenados[cantidad - 1] / 1e6);
+    }
+
+    static String cabecera() {
+        return String.format("%-16s %7s %10s %10s %10s %10s", "Etapa (ms)", "n", "p50", "p99", "p999", "max");
+    }
+
+    private static long percentil(long[] ordenados, double p) {
+        return ordenados[Math.min(ordenados.length - 1, (int) Math.ceil(p * ordenados.length) - 1)];
+    }
+}
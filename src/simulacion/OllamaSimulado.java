@@ -0,0 +1,433 @@
+package simulacion;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import util.Hilos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor HTTP que imita la API de Ollama que usa la aplicacion, para probar y medir el
+ * asistente sin un modelo real:
+ *   GET  /api/tags  Lista con el modelo llama3.2 (lo que consulta {@code SaludOllama})
+ *   POST /api/chat  Respuesta JSON del "modelo", completa o en streaming (NDJSON)
+ *
+ * La respuesta sale del guion: la primera entrada cuyo fragmento aparece en la linea
+ * {@code Texto:} del mensaje del usuario. Un texto sin entrada recibe HTTP 500, salvo que se
+ * configure una respuesta por defecto, y queda anotado (ver {@link #respondioSinGuion}): una
+ * prueba no debe medir respuestas inventadas sin enterarse. El
+ * tiempo hasta el primer token sigue la distribucion configurada y luego cada fragmento de
+ * 4 caracteres tarda {@code tokenMs}. Como Ollama con {@code OLLAMA_NUM_PARALLEL}, atiende
+ * {@code ranuras} peticiones a la vez y el resto espera su turno. Se pueden inyectar errores
+ * HTTP 500 y cortes de la conexion a mitad de la respuesta.
+ *
+ * Configuracion (propiedades del sistema, ver {@link Configuracion#desdePropiedades()}):
+ *   chatfinance.simulacion.distribucion  FIJA, UNIFORME o LOGNORMAL (por defecto LOGNORMAL)
+ *   chatfinance.simulacion.latenciaMs    Mediana del tiempo al primer token (por defecto 250)
+ *   chatfinance.simulacion.dispersion    UNIFORME: +- fraccion de la mediana; LOGNORMAL: sigma (por defecto 0.5)
+ *   chatfinance.simulacion.tokenMs       Pausa entre fragmentos (por defecto 10)
+ *   chatfinance.simulacion.ranuras       Peticiones generando a la vez; 0 sin limite (por defecto 1)
+ *   chatfinance.simulacion.tasaFallos    Probabilidad de responder HTTP 500 (por defecto 0)
+ *   chatfinance.simulacion.tasaCortes    Probabilidad de cortar la conexion a mitad (por defecto 0)
+ *   chatfinance.simulacion.guion         Archivo con lineas {@code fragmento => json}; '#' comenta
+ *   chatfinance.simulacion.respuesta     JSON para los textos sin entrada en el guion (por defecto ninguno)
+ *
+ * Uso: {@code java -cp ChatFinance.jar Main --ollama-simulado [puerto]} y la aplicacion con
+ * {@code -Dchatfinance.ollama.url=http://127.0.0.1:<puerto>}.
+ */
+public class OllamaSimulado implements AutoCloseable {
+
+    private static final String MODELO = "llama3.2:latest";
+    private static final int    CARACTERES_POR_TOKEN = 4;
+
+    static final String RESPUESTA_SALDOS =
+        "{\"intencion\":\"VER_SALDOS\",\"tipoTransaccion\":null,\"monto\":null,\"categoria\":null," +
+        "\"nombreCuenta\":null,\"tipoCuentaNueva\":null,\"periodo\":null,\"descripcion\":null}";
+
+    public enum Distribucion { FIJA, UNIFORME, LOGNORMAL }
+
+    /** Respuesta del guion para los textos que contienen {@code fragmento} (sin distinguir mayusculas). */
+    public record Respuesta(String fragmento, String json) {
+
+        public Respuesta {
+            fragmento = fragmento.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Comportamiento del servidor.
+     *
+     * @param latenciaMs Mediana del tiempo hasta el primer token
+     * @param dispersion UNIFORME: la latencia varia +- esta fraccion; LOGNORMAL: sigma del logaritmo
+     * @param tokenMs    Pausa entre fragmentos de la respuesta
+     * @param ranuras    Peticiones que generan a la vez (0: sin limite); las demas esperan en orden
+     * @param tasaFallos Probabilidad de responder HTTP 500 sin generar
+     * @param tasaCortes Probabilidad de cerrar la conexion a mitad de la respuesta
+     * @param respuestaPorDefecto JSON para los textos que no estan en el guion, o null (HTTP 500)
+     */
+    public record Configuracion(Distribucion distribucion, double latenciaMs, double dispersion, double tokenMs,
+                                int ranuras, double tasaFallos, double tasaCortes, String respuestaPorDefecto,
+                                List<Respuesta> guion) {
+
+        public static Configuracion desdePropiedades() {
+            String archivo = System.getProperty("chatfinance.simulacion.guion");
+            return new Configuracion(
+                Distribucion.valueOf(System.getProperty("chatfinance.simulacion.distribucion", "LOGNORMAL").toUpperCase(Locale.ROOT)),
+                doble("chatfinance.simulacion.latenciaMs", 250),
+                doble("chatfinance.simulacion.dispersion", 0.5),
+                doble("chatfinance.simulacion.tokenMs", 10),
+                Integer.getInteger("chatfinance.simulacion.ranuras", 1),
+                doble("chatfinance.simulacion.tasaFallos", 0),
+                doble("chatfinance.simulacion.tasaCortes", 0),
+                System.getProperty("chatfinance.simulacion.respuesta"),
+                archivo != null && !archivo.isBlank() ? leerGuion(Path.of(archivo)) : List.of());
+        }
+
+        /** La misma configuracion con otro guion. */
+        public Configuracion conGuion(List<Respuesta> otroGuion) {
+            return new Configuracion(distribucion, latenciaMs, dispersion, tokenMs, ranuras, tasaFallos, tasaCortes,
+                    respuestaPorDefecto, List.copyOf(otroGuion));
+        }
+
+        private static double doble(String propiedad, double porDefecto) {
+            String valor = System.getProperty(propiedad);
+            return valor == null || valor.isBlank() ? porDefecto : Double.parseDouble(valor);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                "%s latencia=%.0f ms dispersion=%.2f token=%.1f ms ranuras=%d fallos=%.1f%% cortes=%.1f%% guion=%d sinGuion=%s",
+                distribucion, latenciaMs, dispersion, tokenMs, ranuras, tasaFallos * 100, tasaCortes * 100, guion.size(),
+                respuestaPorDefecto != null ? "por defecto" : "HTTP 500");
+        }
+    }
+
+    private final Configuracion configuracion;
+    private final HttpServer servidor;
+    private final ExecutorService hilos = Hilos.porTarea("ollama-simulado");
+    private final Semaphore ranuras;
+
+    private final LongAdder peticionesChat = new LongAdder();
+    private final LongAdder sondeos        = new LongAdder();
+    private final LongAdder fallos         = new LongAdder();
+    private final LongAdder cortes         = new LongAdder();
+    private final LongAdder canceladas     = new LongAdder();
+    private final Set<String> sinGuion     = ConcurrentHashMap.newKeySet();
+    private final Muestras  servicio       = new Muestras();
+
+    /** Abre el servidor en la interfaz de loopback; con puerto 0 el sistema elige uno libre. */
+    public OllamaSimulado(int puerto, Configuracion configuracion) throws IOException {
+        this.configuracion = configuracion;
+        this.ranuras = configuracion.ranuras() > 0 ? new Semaphore(configuracion.ranuras(), true) : null;
+        this.servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 128);
+        servidor.createContext("/api/tags", this::atenderTags);
+        servidor.createContext("/api/chat", this::atenderChat);
+        servidor.setExecutor(hilos);
+        servidor.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /** URL base para {@code chatfinance.ollama.url}. */
+    public String getUrl() {
+        return "http://127.0.0.1:" + getPuerto();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Endpoints
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private void atenderTags(HttpExchange intercambio) throws IOException {
+        sondeos.increment();
+        responder(intercambio, 200, "{\"models\":[{\"name\":\"" + MODELO + "\",\"model\":\"" + MODELO + "\"}]}");
+    }
+
+    /** Una respuesta en curso: el tiempo de servicio va hasta el ultimo fragmento escrito. */
+    private static final class Envio {
+        final long inicio = System.nanoTime();
+        long ultimo = inicio;
+
+        void escribir(OutputStream salida, JsonObject linea) throws IOException {
+            escribirLinea(salida, linea);
+            ultimo = System.nanoTime();
+        }
+    }
+
+    private void atenderChat(HttpExchange intercambio) throws IOException {
+        Envio envio = new Envio();
+        peticionesChat.increment();
+
+        JsonObject peticion;
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            peticion = JsonParser.parseString(new String(entrada.readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            responder(intercambio, 400, "{\"error\":\"cuerpo invalido\"}");
+            return;
+        }
+
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        if (azar.nextDouble() < configuracion.tasaFallos()) {
+            fallos.increment();
+            responder(intercambio, 500, "{\"error\":\"fallo simulado\"}");
+            servicio.agregar(System.nanoTime() - envio.inicio);
+            return;
+        }
+
+        String mensaje    = mensajeUsuario(peticion);
+        String respuesta  = elegirRespuesta(mensaje);
+        if (respuesta == null) {
+            responder(intercambio, 500, "{\"error\":\"texto sin guion\"}");
+            return;
+        }
+        List<String> tokens = fragmentar(respuesta);
+        boolean streaming = !peticion.has("stream") || peticion.get("stream").getAsBoolean();
+        // Un corte cierra la conexion tras la mitad de los fragmentos, sin respuesta final.
+        int corteEn = azar.nextDouble() < configuracion.tasaCortes() ? tokens.size() / 2 : -1;
+
+        if (!tomarRanura()) {
+            responder(intercambio, 503, "{\"error\":\"servidor detenido\"}");
+            return;
+        }
+        try {
+            pausar(latenciaPrimerToken(azar));
+            if (streaming) transmitir(intercambio, tokens, mensaje, corteEn, envio);
+            else           responderCompleta(intercambio, respuesta, tokens, mensaje, corteEn, envio);
+        } catch (IOException e) {
+            if (corteEn >= 0) {
+                // Sin close(): la excepcion hace que el servidor cierre el socket y el cliente ve
+                // la respuesta truncada, no un final de stream prolijo.
+                servicio.agregar(envio.ultimo - envio.inicio);
+                cortes.increment();
+                throw e;
+            }
+            // El cliente cerro la conexion (interpretacion cancelada).
+            canceladas.increment();
+            intercambio.close();
+            return;
+        } finally {
+            if (ranuras != null) ranuras.release();
+        }
+        servicio.agregar(envio.ultimo - envio.inicio);
+        intercambio.close();
+    }
+
+    private void transmitir(HttpExchange intercambio, List<String> tokens, String mensaje, int corteEn,
+                            Envio envio) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        intercambio.sendResponseHeaders(200, 0);
+        OutputStream salida = intercambio.getResponseBody();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i == corteEn) throw new IOException("corte simulado");
+            if (i > 0) pausar(configuracion.tokenMs());
+            envio.escribir(salida, fragmento(tokens.get(i), false));
+        }
+        JsonObject fin = fragmento("", true);
+        fin.addProperty("prompt_eval_count", tokensDe(mensaje));
+        fin.addProperty("eval_count", tokens.size());
+        envio.escribir(salida, fin);
+    }
+
+    private void responderCompleta(HttpExchange intercambio, String respuesta, List<String> tokens, String mensaje,
+                                   int corteEn, Envio envio) throws IOException {
+        pausar(configuracion.tokenMs() * Math.max(0, tokens.size() - 1));
+        if (corteEn >= 0) throw new IOException("corte simulado");
+        JsonObject cuerpo = fragmento(respuesta, true);
+        cuerpo.addProperty("prompt_eval_count", tokensDe(mensaje));
+        cuerpo.addProperty("eval_count", tokens.size());
+        responder(intercambio, 200, cuerpo.toString());
+        envio.ultimo = System.nanoTime();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Helpers
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Contenido del ultimo mensaje del usuario ("" en la precarga, que solo envia el prompt de sistema). */
+    private static String mensajeUsuario(JsonObject peticion) {
+        JsonElement mensajes = peticion.get("messages");
+        if (mensajes == null || !mensajes.isJsonArray()) return "";
+        JsonArray lista = mensajes.getAsJsonArray();
+        for (int i = lista.size() - 1; i >= 0; i--) {
+            JsonObject m = lista.get(i).getAsJsonObject();
+            if ("user".equals(m.get("role").getAsString())) return m.get("content").getAsString();
+        }
+        return "";
+    }
+
+    /** false si se interrumpio esperando turno (el servidor se esta deteniendo). */
+    private boolean tomarRanura() {
+        if (ranuras == null) return true;
+        try {
+            ranuras.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** null si el texto no esta en el guion y no hay respuesta por defecto. */
+    private String elegirRespuesta(String mensaje) {
+        // La precarga no trae texto y no lee la respuesta.
+        if (mensaje.isBlank()) return RESPUESTA_SALDOS;
+        int texto = mensaje.indexOf("Texto: ");
+        return respuestaPara(texto >= 0 ? mensaje.substring(texto + 7) : mensaje);
+    }
+
+    private String respuestaPara(String texto) {
+        String buscado = texto.toLowerCase(Locale.ROOT);
+        for (Respuesta r : configuracion.guion()) {
+            if (buscado.contains(r.fragmento())) return r.json();
+        }
+        sinGuion.add(texto.strip());
+        return configuracion.respuestaPorDefecto();
+    }
+
+    private static List<String> fragmentar(String respuesta) {
+        List<String> tokens = new ArrayList<>(respuesta.length() / CARACTERES_POR_TOKEN + 1);
+        for (int i = 0; i < respuesta.length(); i += CARACTERES_POR_TOKEN) {
+            tokens.add(respuesta.substring(i, Math.min(respuesta.length(), i + CARACTERES_POR_TOKEN)));
+        }
+        return tokens;
+    }
+
+    private static int tokensDe(String texto) {
+        return Math.max(1, texto.length() / CARACTERES_POR_TOKEN);
+    }
+
+    private double latenciaPrimerToken(ThreadLocalRandom azar) {
+        double mediana = configuracion.latenciaMs();
+        double d = configuracion.dispersion();
+        return switch (configuracion.distribucion()) {
+            case FIJA      -> mediana;
+            case UNIFORME  -> mediana * (1 + d * (2 * azar.nextDouble() - 1));
+            case LOGNORMAL -> mediana * Math.exp(d * azar.nextGaussian());
+        };
+    }
+
+    private static JsonObject fragmento(String contenido, boolean terminado) {
+        JsonObject mensaje = new JsonObject();
+        mensaje.addProperty("role", "assistant");
+        mensaje.addProperty("content", contenido);
+        JsonObject linea = new JsonObject();
+        linea.addProperty("model", MODELO);
+        linea.add("message", mensaje);
+        linea.addProperty("done", terminado);
+        return linea;
+    }
+
+    private static void escribirLinea(OutputStream salida, JsonObject linea) throws IOException {
+        salida.write((linea + "\n").getBytes(StandardCharsets.UTF_8));
+        salida.flush();
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, String cuerpo) throws IOException {
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    private static void pausar(double ms) {
+        if (ms <= 0) return;
+        try {
+            TimeUnit.MICROSECONDS.sleep((long) (ms * 1000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Lineas {@code fragmento => json}; las vacias y las que empiezan con '#' se ignoran. */
+    static List<Respuesta> leerGuion(Path archivo) {
+        List<Respuesta> guion = new ArrayList<>();
+        try {
+            for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+                String limpia = linea.strip();
+                int flecha = limpia.indexOf("=>");
+                if (limpia.isEmpty() || limpia.startsWith("#") || flecha < 0) continue;
+                guion.add(new Respuesta(limpia.substring(0, flecha).strip(), limpia.substring(flecha + 2).strip()));
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo leer el guion " + archivo + ": " + e.getMessage());
+        }
+        return guion;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Metricas y cierre
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Tiempo de servicio de cada peticion de chat hasta el ultimo fragmento escrito: el "tiempo de
+     * modelo" que ve la aplicacion. Las canceladas por el cliente no cuentan: el servidor sigue
+     * escribiendo hasta notar el cierre, despues de que el cliente dejo de esperar.
+     */
+    Muestras getServicio() {
+        return servicio;
+    }
+
+    /** true si el texto llego al servidor y no tenia entrada en el guion. */
+    public boolean respondioSinGuion(String texto) {
+        return sinGuion.contains(texto.strip());
+    }
+
+    public String resumen() {
+        return String.format(Locale.ROOT,
+            "OllamaSimulado{chat=%d, sondeos=%d, fallosInyectados=%d, cortesInyectados=%d, canceladasPorCliente=%d, " +
+            "textosSinGuion=%d, servicioProm=%.1f ms}",
+            peticionesChat.sum(), sondeos.sum(), fallos.sum(), cortes.sum(), canceladas.sum(), sinGuion.size(),
+            servicio.promedioMs());
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        hilos.shutdownNow();
+    }
+
+    /** Uso: {@code OllamaSimulado [puerto]} (por defecto 11434). Se detiene con Ctrl+C. */
+    public static void main(String[] args) {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : 11434;
+        Configuracion configuracion = Configuracion.desdePropiedades();
+        OllamaSimulado simulado;
+        try {
+            simulado = new OllamaSimulado(puerto, configuracion);
+        } catch (IOException e) {
+            System.err.println("No se pudo abrir el puerto " + puerto + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            simulado.close();
+            System.out.println(simulado.resumen());
+        }, "cierre-ollama-simulado"));
+        System.out.printf("Ollama simulado en %s (%s)%n", simulado.getUrl(), configuracion);
+    }
+}
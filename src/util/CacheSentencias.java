@@ -0,0 +1,80 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU de {@link PreparedStatement} asociada a una unica conexion fisica.
+ *
+ * La clave es el texto SQL mas el modo de llaves generadas, de modo que una misma
+ * sentencia pedida con y sin {@code RETURN_GENERATED_KEYS} ocupa entradas distintas.
+ * Al desalojar una entrada se cierra su sentencia. No es thread-safe: solo la usa
+ * el hilo que tiene prestada la conexion duena.
+ */
+final class CacheSentencias {
+
+    private record Clave(String sql, boolean llavesGeneradas) { }
+
+    private final Connection conexion;
+    private final Map<Clave, PreparedStatement> sentencias;
+
+    private static final LongAdder ACIERTOS   = new LongAdder();
+    private static final LongAdder FALLOS     = new LongAdder();
+    private static final LongAdder DESALOJOS  = new LongAdder();
+
+    CacheSentencias(Connection conexion, int capacidad) {
+        this.conexion   = conexion;
+        this.sentencias = new LinkedHashMap<>(capacidad * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, PreparedStatement> eldest) {
+                if (size() <= capacidad) return false;
+                DESALOJOS.increment();
+                cerrarSilencioso(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Retorna la sentencia compilada para {@code sql}, preparandola solo si no estaba en cache
+     * o si el driver la cerro. Los parametros previos se limpian antes de entregarla.
+     */
+    PreparedStatement obtener(String sql, boolean llavesGeneradas) throws SQLException {
+        Clave clave = new Clave(sql, llavesGeneradas);
+        PreparedStatement pstmt = sentencias.get(clave);
+
+        if (pstmt != null && !pstmt.isClosed()) {
+            ACIERTOS.increment();
+            pstmt.clearParameters();
+            return pstmt;
+        }
+
+        FALLOS.increment();
+        pstmt = llavesGeneradas
+                ? conexion.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : conexion.prepareStatement(sql);
+        sentencias.put(clave, pstmt);
+        return pstmt;
+    }
+
+    /** Cierra todas las sentencias cacheadas. */
+    void cerrar() {
+        sentencias.values().forEach(CacheSentencias::cerrarSilencioso);
+        sentencias.clear();
+    }
+
+    static long getAciertos()  { return ACIERTOS.sum(); }
+    static long getFallos()    { return FALLOS.sum(); }
+    static long getDesalojos() { return DESALOJOS.sum(); }
+
+    private static void cerrarSilencioso(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException ignorada) { }
+    }
+}
@@ -0,0 +1,100 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Conexion fisica del pool de {@link DatabaseConnection}, prestada a un unico usuario a la vez.
+ *
+ * Se usa con try-with-resources: {@link #close()} NO cierra el handle JDBC,
+ * lo devuelve al pool para que la siguiente operacion lo reutilice.
+ *
+ * Cada conexion tiene su propia cache de sentencias preparadas ({@link #preparar(String)}).
+ * Las sentencias cacheadas pertenecen a la conexion: el DAO cierra sus ResultSet,
+ * pero nunca la sentencia.
+ *
+ * El prestamo queda confinado al hilo que lo pidio: usarlo o devolverlo desde otro hilo, o
+ * despues de devolverlo, lanza IllegalStateException. Asi una sentencia de un hilo no puede
+ * caer dentro de la transaccion de otro ni ser revertida por el.
+ */
+public final class ConexionPrestada implements AutoCloseable {
+
+    private final Connection conexion;
+    private final boolean    escritura;
+    private final DatabaseConnection pool;
+    private final CacheSentencias    sentencias;
+
+    private long   inicioPrestamo;
+    private Thread dueno;
+
+    ConexionPrestada(Connection conexion, boolean escritura, DatabaseConnection pool, int capacidadCache) {
+        this.conexion   = conexion;
+        this.escritura  = escritura;
+        this.pool       = pool;
+        this.sentencias = new CacheSentencias(conexion, capacidadCache);
+    }
+
+    /** Handle JDBC subyacente. No debe cerrarse ni conservarse despues de {@link #close()}. */
+    public Connection conexion() {
+        verificarDueno();
+        return conexion;
+    }
+
+    /** Sentencia preparada y cacheada para {@code sql}. No debe cerrarse. */
+    public PreparedStatement preparar(String sql) throws SQLException {
+        verificarDueno();
+        return sentencias.obtener(sql, false);
+    }
+
+    /** Igual que {@link #preparar(String)}, pero con {@code RETURN_GENERATED_KEYS} si se solicita. */
+    public PreparedStatement preparar(String sql, boolean llavesGeneradas) throws SQLException {
+        verificarDueno();
+        return sentencias.obtener(sql, llavesGeneradas);
+    }
+
+    public boolean esEscritura() {
+        return escritura;
+    }
+
+    /** El dueno se publica al hilo que recibe el prestamo a traves del candado o la cola del pool. */
+    void marcarPrestamo() {
+        this.inicioPrestamo = System.nanoTime();
+        this.dueno          = Thread.currentThread();
+    }
+
+    void verificarDueno() {
+        if (dueno != Thread.currentThread()) {
+            throw new IllegalStateException(dueno == null
+                    ? "Conexion usada despues de devolverla al pool"
+                    : "Conexion prestada al hilo " + dueno.getName() + ", usada desde " + Thread.currentThread().getName());
+        }
+    }
+
+    /** Handle sin verificar el dueno, para el propio pool (inicializacion y devolucion). */
+    Connection fisica() {
+        return conexion;
+    }
+
+    long getInicioPrestamo() {
+        return inicioPrestamo;
+    }
+
+    /** Devuelve la conexion al pool sin cerrar el handle fisico. */
+    @Override
+    public void close() {
+        verificarDueno();
+        dueno = null;
+        pool.devolver(this);
+    }
+
+    /** Cierra el handle fisico. Solo lo invoca el pool al apagarse. */
+    void cerrarFisica() {
+        sentencias.cerrar();
+        try {
+            conexion.close();
+        } catch (Exception e) {
+            System.err.println("Error al cerrar conexion fisica: " + e.getMessage());
+        }
+    }
+}
@@ -5,22 +5,133 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Singleton que gestiona la conexion JDBC a SQLite.
- * Una sola instancia de {@link Connection} es reutilizada durante toda la sesion.
+ * Singleton que provee conexiones JDBC a SQLite mediante un pool acotado.
+ *
+ * Las lecturas se reparten entre un pool de conexiones de solo lectura; las escrituras
+ * usan una unica conexion escritora (SQLite admite un solo escritor a la vez).
+ * Los DAOs piden prestada una {@link ConexionPrestada} y la devuelven al cerrarla;
+ * el handle fisico permanece abierto durante toda la vida de la aplicacion.
+ *
+ * Configuracion (propiedades del sistema):
+ *   chatfinance.db.url        URL JDBC (por defecto jdbc:sqlite:finanzas.db)
+ *   chatfinance.db.lectores   Maximo de conexiones de lectura (por defecto 4)
+ *   chatfinance.db.esperaMs   Espera maxima por una conexion libre (por defecto 5000)
+ *   chatfinance.db.sentencias Sentencias preparadas cacheadas por conexion (por defecto 32)
+ *   chatfinance.db.perfil     Perfil de PRAGMA, ver {@link PerfilAlmacenamiento} (por defecto rendimiento)
  */
 public class DatabaseConnection {
 
     private static DatabaseConnection instance;
-    private Connection connection;
-    private static final String DB_URL = "jdbc:sqlite:finanzas.db";
+
+    private static final String DB_URL        = System.getProperty("chatfinance.db.url", "jdbc:sqlite:finanzas.db");
+    private static final int    MAX_LECTORES  = Integer.getInteger("chatfinance.db.lectores", 4);
+    private static final long   ESPERA_MAX_MS = Long.getLong("chatfinance.db.esperaMs", 5000L);
+    private static final int    CACHE_SENTENCIAS = Integer.getInteger("chatfinance.db.sentencias", 32);
+
+    private final BlockingQueue<ConexionPrestada> lectorasLibres = new ArrayBlockingQueue<>(MAX_LECTORES);
+    private final List<ConexionPrestada>          todasLasLectoras = new CopyOnWriteArrayList<>();
+    private final ReentrantLock                   candadoEscritura = new ReentrantLock(true);
+    private final PerfilAlmacenamiento            perfil = PerfilAlmacenamiento.desdeConfiguracion();
+    private ConexionPrestada escritora;
+
+    /**
+     * Migraciones versionadas con {@code PRAGMA user_version}. La entrada i lleva el esquema
+     * de la version i a la i+1; cada una se aplica una sola vez y en su propia transaccion.
+     * Solo se agregan entradas al final, nunca se editan las ya publicadas.
+     */
+    private static final String[][] MIGRACIONES = {
+        // v1: indices para historial por cuenta y reportes por tipo/categoria
+        {
+            "CREATE INDEX IF NOT EXISTS idx_cuentas_usuario ON cuentas(usuario_id)",
+            "CREATE INDEX IF NOT EXISTS idx_transacciones_origen_fecha ON transacciones(cuenta_origen_id, fecha)",
+            "CREATE INDEX IF NOT EXISTS idx_transacciones_destino_fecha ON transacciones(cuenta_destino_id, fecha)",
+            "CREATE INDEX IF NOT EXISTS idx_transacciones_tipo_categoria ON transacciones(tipo, categoria)"
+        },
+        // v2: saldo y monto como INTEGER en centimos (antes REAL en soles). SQLite no cambia el
+        // tipo de una columna, asi que se reconstruyen ambas tablas y sus indices.
+        {
+            "CREATE TABLE cuentas_v2 (" +
+            "    id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "    usuario_id INTEGER NOT NULL," +
+            "    numero_cuenta TEXT NOT NULL," +
+            "    saldo_centimos INTEGER NOT NULL DEFAULT 0," +
+            "    tipo_cuenta TEXT NOT NULL CHECK(tipo_cuenta IN ('BILLETERA', 'BANCO'))," +
+            "    alias TEXT, proveedor TEXT, banco TEXT, cci TEXT," +
+            "    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "    FOREIGN KEY (usuario_id) REFERENCES usuarios(id)" +
+            ")",
+            "INSERT INTO cuentas_v2 " +
+            "SELECT id, usuario_id, numero_cuenta, CAST(ROUND(saldo * 100) AS INTEGER), tipo_cuenta, " +
+            "       alias, proveedor, banco, cci, fecha_creacion FROM cuentas",
+            "DROP TABLE cuentas",
+            "ALTER TABLE cuentas_v2 RENAME TO cuentas",
+            "CREATE INDEX idx_cuentas_usuario ON cuentas(usuario_id)",
+
+            "CREATE TABLE transacciones_v2 (" +
+            "    id                 INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "    cuenta_origen_id   INTEGER NOT NULL," +
+            "    cuenta_destino_id  INTEGER," +
+            "    tipo               TEXT NOT NULL CHECK(tipo IN ('INGRESO', 'GASTO', 'TRANSFERENCIA'))," +
+            "    monto_centimos     INTEGER NOT NULL CHECK(monto_centimos > 0)," +
+            "    descripcion        TEXT," +
+            "    fecha              TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "    categoria          TEXT," +
+            "    FOREIGN KEY (cuenta_origen_id)  REFERENCES cuentas(id)," +
+            "    FOREIGN KEY (cuenta_destino_id) REFERENCES cuentas(id)" +
+            ")",
+            "INSERT INTO transacciones_v2 " +
+            "SELECT id, cuenta_origen_id, cuenta_destino_id, tipo, CAST(ROUND(monto * 100) AS INTEGER), " +
+            "       descripcion, fecha, categoria FROM transacciones",
+            "DROP TABLE transacciones",
+            "ALTER TABLE transacciones_v2 RENAME TO transacciones",
+            "CREATE INDEX idx_transacciones_origen_fecha ON transacciones(cuenta_origen_id, fecha)",
+            "CREATE INDEX idx_transacciones_destino_fecha ON transacciones(cuenta_destino_id, fecha)",
+            "CREATE INDEX idx_transacciones_tipo_categoria ON transacciones(tipo, categoria)"
+        },
+        // v3: resumen mensual por usuario/tipo/categoria para los reportes, poblado con el historial
+        {
+            "CREATE TABLE resumen_categorias (" +
+            "    usuario_id     INTEGER NOT NULL," +
+            "    tipo           TEXT NOT NULL CHECK(tipo IN ('INGRESO', 'GASTO'))," +
+            "    categoria      TEXT NOT NULL," +
+            "    mes            TEXT NOT NULL," +
+            "    total_centimos INTEGER NOT NULL," +
+            "    cantidad       INTEGER NOT NULL," +
+            "    PRIMARY KEY (usuario_id, tipo, categoria, mes)" +
+            ") WITHOUT ROWID",
+            "INSERT INTO resumen_categorias (usuario_id, tipo, categoria, mes, total_centimos, cantidad) " +
+            "SELECT c.usuario_id, t.tipo, COALESCE(t.categoria, 'Sin categoria'), " +
+            "       strftime('%Y-%m', t.fecha), SUM(t.monto_centimos), COUNT(*) " +
+            "FROM transacciones t JOIN cuentas c ON c.id = t.cuenta_origen_id " +
+            "WHERE t.tipo IN ('INGRESO', 'GASTO') " +
+            "GROUP BY 1, 2, 3, 4"
+        }
+    };
+
+    // Metricas del pool
+    private final AtomicInteger conexionesLectura = new AtomicInteger();
+    private final AtomicInteger prestamosActivos  = new AtomicInteger();
+    private final AtomicLong    totalPrestamos    = new AtomicLong();
+    private final AtomicLong    esperaTotalNanos  = new AtomicLong();
+    private final AtomicLong    esperaMaximaNanos = new AtomicLong();
+    private final AtomicLong    timeouts          = new AtomicLong();
 
     private DatabaseConnection() {
         try {
             Class.forName("org.sqlite.JDBC");
-            this.connection = DriverManager.getConnection(DB_URL);
+            this.escritora = new ConexionPrestada(abrirConexion(false), true, this, CACHE_SENTENCIAS);
             System.out.println("Conexion a base de datos establecida.");
+            if (Metricas.activas()) System.out.println(perfil.reporteEfectivo(escritora.fisica()));
             inicializarTablas();
         } catch (ClassNotFoundException e) {
             System.err.println("Error: Driver de SQLite no encontrado.");
@@ -37,18 +148,155 @@ public class DatabaseConnection {
         return instance;
     }
 
-    public Connection getConnection() {
+    // ─────────────────────────────────────────────────────────────────────────
+    // Prestamo y devolucion de conexiones
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Presta una conexion de solo lectura. Si todas estan ocupadas y el pool aun no
+     * alcanza su tamano maximo, abre una nueva; si no, espera hasta {@code chatfinance.db.esperaMs}.
+     *
+     * @throws SQLException si no hay conexion libre dentro del tiempo de espera
+     */
+    public ConexionPrestada prestarLectura() throws SQLException {
+        long inicio = System.nanoTime();
+        ConexionPrestada prestamo = lectorasLibres.poll();
+
+        if (prestamo == null) prestamo = crearLectoraSiHayCupo();
+
+        if (prestamo == null) {
+            try {
+                prestamo = lectorasLibres.poll(ESPERA_MAX_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrumpido esperando una conexion de lectura", e);
+            }
+            if (prestamo == null) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timeout esperando una conexion de lectura (" + ESPERA_MAX_MS + " ms)");
+            }
+        }
+        registrarPrestamo(prestamo, System.nanoTime() - inicio);
+        return prestamo;
+    }
+
+    /**
+     * Presta la conexion escritora en exclusiva. Solo un hilo puede tenerla a la vez;
+     * el resto espera en orden de llegada hasta {@code chatfinance.db.esperaMs}.
+     *
+     * Los DAOs no la piden directamente sino a traves de {@link #transaccion()}.
+     *
+     * @throws SQLException si la escritora sigue ocupada tras el tiempo de espera
+     */
+    ConexionPrestada prestarEscritura() throws SQLException {
+        long inicio = System.nanoTime();
+        // El candado es reentrante: sin esta comprobacion el mismo hilo recibiria dos veces la
+        // escritora y al devolver la interna revertiria la transaccion de la externa.
+        if (candadoEscritura.isHeldByCurrentThread()) {
+            throw new SQLException("El hilo " + Thread.currentThread().getName() + " ya tiene la conexion de escritura");
+        }
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(DB_URL);
+            if (!candadoEscritura.tryLock(ESPERA_MAX_MS, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timeout esperando la conexion de escritura (" + ESPERA_MAX_MS + " ms)");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando la conexion de escritura", e);
+        }
+        registrarPrestamo(escritora, System.nanoTime() - inicio);
+        return escritora;
+    }
+
+    /**
+     * Abre una transaccion de escritura confinada al hilo actual. Es la forma de escribir de los
+     * DAOs; ver {@link UnidadDeTrabajo}.
+     *
+     * @throws SQLException si la escritora sigue ocupada tras el tiempo de espera o si el hilo
+     *                      ya tiene una transaccion abierta
+     */
+    public UnidadDeTrabajo transaccion() throws SQLException {
+        return new UnidadDeTrabajo(prestarEscritura());
+    }
+
+    /** Invocado por {@link ConexionPrestada#close()}. Nunca cierra el handle fisico. */
+    void devolver(ConexionPrestada prestamo) {
+        prestamosActivos.decrementAndGet();
+        if (prestamo.esEscritura()) {
+            restaurarAutoCommit(prestamo.fisica());
+            candadoEscritura.unlock();
+        } else if (!lectorasLibres.offer(prestamo)) {
+            prestamo.cerrarFisica();
+        }
+    }
+
+    private ConexionPrestada crearLectoraSiHayCupo() throws SQLException {
+        while (true) {
+            int actuales = conexionesLectura.get();
+            if (actuales >= MAX_LECTORES) return null;
+            if (conexionesLectura.compareAndSet(actuales, actuales + 1)) break;
+        }
+        try {
+            ConexionPrestada nueva = new ConexionPrestada(abrirConexion(true), false, this, CACHE_SENTENCIAS);
+            todasLasLectoras.add(nueva);
+            return nueva;
         } catch (SQLException e) {
-            System.err.println("Error al obtener la conexion.");
-            e.printStackTrace();
+            conexionesLectura.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /** Abre un handle fisico y aplica el perfil de almacenamiento y los PRAGMA propios de su rol. */
+    private Connection abrirConexion(boolean soloLectura) throws SQLException {
+        Connection conn = DriverManager.getConnection(DB_URL);
+        perfil.aplicar(conn);
+        if (soloLectura) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
         }
-        return connection;
+        return conn;
+    }
+
+    public PerfilAlmacenamiento getPerfil() {
+        return perfil;
+    }
+
+    /** Deja la escritora lista para el siguiente prestamo aunque el anterior no cerrara su transaccion. */
+    private void restaurarAutoCommit(Connection conn) {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al restaurar la conexion de escritura: " + e.getMessage());
+        }
+    }
+
+    private void registrarPrestamo(ConexionPrestada prestamo, long esperaNanos) {
+        prestamo.marcarPrestamo();
+        prestamosActivos.incrementAndGet();
+        totalPrestamos.incrementAndGet();
+        esperaTotalNanos.addAndGet(esperaNanos);
+        esperaMaximaNanos.accumulateAndGet(esperaNanos, Math::max);
+    }
+
+    /** Retorna una instantanea de las metricas del pool. */
+    public EstadisticasPool getEstadisticas() {
+        return new EstadisticasPool(conexionesLectura.get(), prestamosActivos.get(), totalPrestamos.get(),
+                esperaTotalNanos.get(), esperaMaximaNanos.get(), timeouts.get(),
+                CacheSentencias.getAciertos(), CacheSentencias.getFallos(), CacheSentencias.getDesalojos());
     }
 
+    // ─────────────────────────────────────────────────────────────────────────
+    // Esquema
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Crea el esquema base (v0) si la BD es nueva y aplica las migraciones pendientes,
+     * que lo llevan a la version actual.
+     */
     private void inicializarTablas() {
         String sqlUsuarios =
             "CREATE TABLE IF NOT EXISTS usuarios (" +
@@ -86,7 +334,7 @@ public class DatabaseConnection {
             "    FOREIGN KEY (cuenta_destino_id) REFERENCES cuentas(id)" +
             ")";
 
-        try (Statement stmt = connection.createStatement()) {
+        try (Statement stmt = escritora.fisica().createStatement()) {
             stmt.execute(sqlUsuarios);
 
             if (necesitaMigracion()) {
@@ -102,6 +350,8 @@ public class DatabaseConnection {
                 System.out.println("Migracion aplicada: columna 'categoria' añadida.");
             }
 
+            aplicarMigracionesVersionadas(stmt);
+
             System.out.println("Tablas verificadas/creadas correctamente.");
 
         } catch (SQLException e) {
@@ -110,8 +360,44 @@ public class DatabaseConnection {
         }
     }
 
+    private void aplicarMigracionesVersionadas(Statement stmt) throws SQLException {
+        Connection conn = escritora.fisica();
+        int version = leerVersionEsquema(stmt);
+
+        for (int v = version; v < MIGRACIONES.length; v++) {
+            conn.setAutoCommit(false);
+            try {
+                for (String sql : MIGRACIONES[v]) stmt.execute(sql);
+                stmt.execute("PRAGMA user_version = " + (v + 1));
+                conn.commit();
+                System.out.println("Migracion aplicada: esquema v" + (v + 1) + ".");
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private int leerVersionEsquema(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /** Version del esquema segun {@code PRAGMA user_version}. */
+    public int getVersionEsquema() {
+        try (ConexionPrestada prestamo = prestarLectura();
+             Statement stmt = prestamo.conexion().createStatement()) {
+            return leerVersionEsquema(stmt);
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
     private boolean necesitaMigracion() {
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = escritora.fisica().createStatement();
              ResultSet rs = stmt.executeQuery(
                      "SELECT sql FROM sqlite_master WHERE type='table' AND name='cuentas'")) {
             if (rs.next()) {
@@ -150,7 +436,7 @@ public class DatabaseConnection {
     }
 
     private boolean columnaExiste(String tabla, String columna) {
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = escritora.fisica().createStatement();
              ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + tabla + ")")) {
             while (rs.next()) {
                 if (columna.equalsIgnoreCase(rs.getString("name"))) return true;
@@ -161,15 +447,15 @@ public class DatabaseConnection {
         return false;
     }
 
+    /** Cierra todas las conexiones fisicas del pool. Se invoca una sola vez al apagar la aplicacion. */
     public void cerrarConexion() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Conexion a base de datos cerrada.");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al cerrar la conexion.");
-            e.printStackTrace();
+        Metricas.imprimir(getEstadisticas());
+        for (ConexionPrestada lectora : todasLasLectoras) lectora.cerrarFisica();
+        todasLasLectoras.clear();
+        lectorasLibres.clear();
+        if (escritora != null) {
+            escritora.cerrarFisica();
+            System.out.println("Conexion a base de datos cerrada.");
         }
     }
 }
@@ -0,0 +1,44 @@
+package util;
+
+/**
+ * Instantanea inmutable de las metricas del pool de conexiones.
+ *
+ * @param conexionesLectura   Conexiones de lectura fisicas abiertas
+ * @param prestamosActivos    Prestamos (lectura + escritura) aun no devueltos
+ * @param totalPrestamos      Prestamos concedidos desde el arranque
+ * @param esperaTotalNanos    Tiempo acumulado esperando una conexion libre
+ * @param esperaMaximaNanos   Mayor espera individual observada
+ * @param timeouts            Prestamos que fallaron por superar la espera maxima
+ * @param aciertosSentencias  Sentencias servidas desde la cache sin recompilar
+ * @param fallosSentencias    Sentencias que tuvieron que prepararse
+ * @param desalojosSentencias Sentencias cerradas por desalojo LRU
+ */
+public record EstadisticasPool(int  conexionesLectura,
+                               int  prestamosActivos,
+                               long totalPrestamos,
+                               long esperaTotalNanos,
+                               long esperaMaximaNanos,
+                               long timeouts,
+                               long aciertosSentencias,
+                               long fallosSentencias,
+                               long desalojosSentencias) {
+
+    public double esperaPromedioMs() {
+        return totalPrestamos == 0 ? 0.0 : esperaTotalNanos / 1_000_000.0 / totalPrestamos;
+    }
+
+    public double tasaAciertosSentencias() {
+        long total = aciertosSentencias + fallosSentencias;
+        return total == 0 ? 0.0 : (double) aciertosSentencias / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "Pool{lectoras=%d, activos=%d, prestamos=%d, esperaProm=%.3f ms, esperaMax=%.3f ms, timeouts=%d, " +
+            "sentencias{aciertos=%d, fallos=%d, desalojos=%d, tasa=%.1f%%}}",
+            conexionesLectura, prestamosActivos, totalPrestamos,
+            esperaPromedioMs(), esperaMaximaNanos / 1_000_000.0, timeouts,
+            aciertosSentencias, fallosSentencias, desalojosSentencias, tasaAciertosSentencias() * 100);
+    }
+}
@@ -0,0 +1,50 @@
+package util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutores para tareas que pasan casi todo su tiempo bloqueadas en E/S (sesiones remotas,
+ * llamadas a Ollama).
+ *
+ * En Java 21+ usa un hilo virtual por tarea; el proyecto compila con Java 17, asi que el
+ * metodo se busca por reflexion y, si no existe, se usa un pool sin limite de hilos de
+ * plataforma daemon con nombre. Quien lo use debe acotar la concurrencia por su cuenta.
+ */
+public final class Hilos {
+
+    private Hilos() {}
+
+    /** Un hilo (virtual si la JVM lo admite) por tarea enviada. */
+    public static ExecutorService porTarea(String prefijo) {
+        try {
+            Method virtuales = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtuales.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(fabrica(prefijo));
+        }
+    }
+
+    /** true si {@link #porTarea} entrega hilos virtuales en esta JVM. */
+    public static boolean hayHilosVirtuales() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /** Hilos daemon llamados {@code prefijo-1}, {@code prefijo-2}... */
+    public static ThreadFactory fabrica(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + "-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
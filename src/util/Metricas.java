@@ -0,0 +1,29 @@
+package util;
+
+/**
+ * Salida de diagnostico: PRAGMA efectivos al arrancar y estadisticas internas (pool, caches,
+ * colas, Ollama) al salir.
+ *
+ * En la sesion interactiva no se muestra salvo con {@code -Dchatfinance.metricas=true}: la
+ * consola es del usuario. El servidor y el arnes la activan con {@link #activar()}, porque ahi
+ * esos numeros son el resultado que se busca.
+ */
+public final class Metricas {
+
+    private static volatile boolean activas = Boolean.getBoolean("chatfinance.metricas");
+
+    private Metricas() {}
+
+    public static boolean activas() {
+        return activas;
+    }
+
+    public static void activar() {
+        activas = true;
+    }
+
+    /** Imprime las estadisticas solo si la salida de diagnostico esta activa. */
+    public static void imprimir(Object estadisticas) {
+        if (activas) System.out.println(estadisticas);
+    }
+}
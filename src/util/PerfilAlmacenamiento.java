@@ -0,0 +1,101 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perfil de almacenamiento de SQLite aplicado a cada conexion al abrirse.
+ *
+ * Ambos perfiles usan journal WAL, para que las lecturas de reportes no se bloqueen
+ * detras de las escrituras de movimientos. Se diferencian en cuanto priorizan la
+ * durabilidad frente al rendimiento:
+ *   DURABLE     synchronous=FULL: cada commit sobrevive a un corte de energia.
+ *   RENDIMIENTO synchronous=NORMAL: un solo fsync por checkpoint; ante un corte de energia
+ *               pueden perderse los ultimos commits, pero la base nunca queda corrupta.
+ *
+ * Se elige con {@code -Dchatfinance.db.perfil=durable|rendimiento} (por defecto rendimiento).
+ * Cada PRAGMA puede sobrescribirse individualmente, p. ej. {@code -Dchatfinance.db.pragma.cache_size=-65536}.
+ */
+public enum PerfilAlmacenamiento {
+
+    DURABLE    ("FULL",   -8_000,  0L,           "DEFAULT", 5_000),
+    RENDIMIENTO("NORMAL", -32_000, 268_435_456L, "MEMORY",  5_000);
+
+    private static final String PREFIJO_PRAGMA = "chatfinance.db.pragma.";
+
+    private final Map<String, String> pragmas = new LinkedHashMap<>();
+
+    PerfilAlmacenamiento(String synchronous, int cacheSizeKib, long mmapSize, String tempStore, int busyTimeoutMs) {
+        pragmas.put("journal_mode", "WAL");
+        pragmas.put("synchronous",  synchronous);
+        pragmas.put("cache_size",   String.valueOf(cacheSizeKib));
+        pragmas.put("mmap_size",    String.valueOf(mmapSize));
+        pragmas.put("temp_store",   tempStore);
+        pragmas.put("busy_timeout", String.valueOf(busyTimeoutMs));
+    }
+
+    /** Perfil seleccionado por la propiedad {@code chatfinance.db.perfil}. */
+    public static PerfilAlmacenamiento desdeConfiguracion() {
+        String nombre = System.getProperty("chatfinance.db.perfil", RENDIMIENTO.name());
+        try {
+            return valueOf(nombre.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Perfil de almacenamiento desconocido '" + nombre + "'. Se usa RENDIMIENTO.");
+            return RENDIMIENTO;
+        }
+    }
+
+    /** Valores configurados del perfil, con las sobrescrituras por propiedad ya aplicadas. */
+    public Map<String, String> getPragmas() {
+        Map<String, String> efectivos = new LinkedHashMap<>();
+        pragmas.forEach((pragma, valor) ->
+                efectivos.put(pragma, System.getProperty(PREFIJO_PRAGMA + pragma, valor)));
+        return efectivos;
+    }
+
+    /** Ejecuta los PRAGMA del perfil sobre una conexion recien abierta. */
+    public void aplicar(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> pragma : getPragmas().entrySet()) {
+                stmt.execute("PRAGMA " + pragma.getKey() + " = " + pragma.getValue());
+            }
+        }
+    }
+
+    /**
+     * Lee de vuelta los valores que SQLite realmente aplico (puede ignorar valores invalidos
+     * o no soportados, como mmap en algunas plataformas) y los formatea para el log de arranque.
+     */
+    public String reporteEfectivo(Connection conn) {
+        StringBuilder sb = new StringBuilder("Perfil de almacenamiento: ").append(name());
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : pragmas.keySet()) {
+                try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+                    sb.append("\n  ").append(String.format("%-13s", pragma)).append("= ")
+                      .append(rs.next() ? nombreLegible(pragma, rs.getString(1)) : "?");
+                }
+            }
+        } catch (SQLException e) {
+            sb.append("\n  (no se pudieron leer los PRAGMA: ").append(e.getMessage()).append(')');
+        }
+        return sb.toString();
+    }
+
+    /** SQLite reporta synchronous y temp_store como enteros; se traducen a su nombre. */
+    private static String nombreLegible(String pragma, String valor) {
+        String[] nombres = switch (pragma) {
+            case "synchronous" -> new String[]{"OFF", "NORMAL", "FULL", "EXTRA"};
+            case "temp_store"  -> new String[]{"DEFAULT", "FILE", "MEMORY"};
+            default            -> null;
+        };
+        try {
+            int indice = Integer.parseInt(valor);
+            if (nombres != null && indice >= 0 && indice < nombres.length) return nombres[indice];
+        } catch (NumberFormatException ignorada) { }
+        return valor;
+    }
+}
@@ -0,0 +1,98 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transaccion de escritura con dueno: presta la conexion escritora en exclusiva, abre la
+ * transaccion al crearse y la cierra al salir del try-with-resources.
+ *
+ * <pre>
+ * try (UnidadDeTrabajo unidad = DatabaseConnection.getInstance().transaccion()) {
+ *     ... unidad.preparar(sql) ...
+ *     unidad.alConfirmar(() -&gt; cache.actualizar(...));
+ *     unidad.confirmar();
+ * }   // sin confirmar(): ROLLBACK
+ * </pre>
+ *
+ * Solo el hilo que la creo puede usarla (ver {@link ConexionPrestada}); otro hilo recibe
+ * IllegalStateException en lugar de escribir dentro de una transaccion ajena. Un hilo no
+ * puede abrir una segunda unidad mientras tiene una abierta.
+ *
+ * Las lecturas no necesitan unidad: {@link DatabaseConnection#prestarLectura()} presta una
+ * conexion de solo lectura en autocommit, sin BEGIN/COMMIT ni el candado del escritor.
+ */
+public final class UnidadDeTrabajo implements AutoCloseable {
+
+    private final ConexionPrestada prestamo;
+    private final List<Runnable> alConfirmar = new ArrayList<>(2);
+    private boolean confirmada;
+
+    UnidadDeTrabajo(ConexionPrestada prestamo) throws SQLException {
+        this.prestamo = prestamo;
+        try {
+            prestamo.conexion().setAutoCommit(false);
+        } catch (SQLException e) {
+            prestamo.close();
+            throw e;
+        }
+    }
+
+    /** Sentencia preparada y cacheada en la conexion escritora. No debe cerrarse. */
+    public PreparedStatement preparar(String sql) throws SQLException {
+        return prestamo.preparar(sql);
+    }
+
+    public PreparedStatement preparar(String sql, boolean llavesGeneradas) throws SQLException {
+        return prestamo.preparar(sql, llavesGeneradas);
+    }
+
+    /** La conexion prestada, para los ayudantes de los DAOs que reciben una {@link ConexionPrestada}. */
+    public ConexionPrestada prestamo() {
+        return prestamo;
+    }
+
+    /** Marca un punto al que se puede volver sin deshacer el resto de la transaccion. */
+    public Savepoint marcar() throws SQLException {
+        return prestamo.conexion().setSavepoint();
+    }
+
+    /** Deshace lo hecho desde {@code punto} y lo libera. */
+    public void deshacerHasta(Savepoint punto) throws SQLException {
+        Connection conn = prestamo.conexion();
+        conn.rollback(punto);
+        conn.releaseSavepoint(punto);
+    }
+
+    public void liberar(Savepoint punto) throws SQLException {
+        prestamo.conexion().releaseSavepoint(punto);
+    }
+
+    /**
+     * Accion que corre justo despues del commit, con la escritora aun prestada (p. ej. publicar
+     * saldos en la cache en el orden de los commits). No corre si la unidad se revierte.
+     */
+    public void alConfirmar(Runnable accion) {
+        prestamo.verificarDueno();
+        alConfirmar.add(accion);
+    }
+
+    /** COMMIT y acciones de {@link #alConfirmar}. Despues solo queda cerrar la unidad. */
+    public void confirmar() throws SQLException {
+        if (confirmada) throw new IllegalStateException("La unidad de trabajo ya fue confirmada");
+        Connection conn = prestamo.conexion();
+        conn.commit();
+        confirmada = true;
+        for (Runnable accion : alConfirmar) accion.run();
+    }
+
+    /** Revierte si no se confirmo y devuelve la conexion al pool. */
+    @Override
+    public void close() {
+        prestamo.close();
+    }
+}
@@ -1,41 +1,110 @@
 package view;
 
+import dao.ReporteTemporal;
+import dao.ResumenCategorias;
 import modelo.CuentaFinanciera;
+import modelo.Montos;
 import modelo.MovimientoRegistro;
 
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
-/** Vista de consola. Centraliza toda la entrada/salida del usuario. */
+/**
+ * Vista de consola. Centraliza toda la entrada/salida del usuario.
+ *
+ * Por defecto usa la consola del proceso; el modo servidor crea una vista por sesion sobre
+ * los flujos de su socket. Cuenta las lineas leidas, el tiempo esperando al usuario y el
+ * tiempo de respuesta (desde que llega una linea hasta que se pide la siguiente).
+ */
 public class ConsoleView {
 
-    private final Scanner scanner;
+    private final Scanner     scanner;
+    private final PrintStream salida;
+    private final PrintStream errores;
+
+    private long lineasLeidas;
+    private long nanosEsperandoEntrada;
+    private long nanosRespondiendo;
+    private long maxNanosRespuesta;
+    private long ultimaLinea;
 
     public ConsoleView() {
         this.scanner = new Scanner(System.in);
+        this.salida  = System.out;
+        this.errores = System.err;
+    }
+
+    /** Vista sobre un flujo arbitrario (p. ej. un socket); los errores van a la misma salida. */
+    public ConsoleView(InputStream entrada, PrintStream salida) {
+        this.scanner = new Scanner(entrada, StandardCharsets.UTF_8);
+        this.salida  = salida;
+        this.errores = salida;
     }
 
+    /**
+     * Lee la siguiente linea.
+     *
+     * @throws EntradaCerradaException si la entrada termino (el cliente cerro o vencio la espera)
+     */
     public String leerLinea() {
-        return scanner.nextLine().trim();
+        return siguienteLinea().trim();
     }
 
     public int leerEntero() {
         while (true) {
             try {
-                return Integer.parseInt(scanner.nextLine().trim());
+                return Integer.parseInt(siguienteLinea().trim());
             } catch (NumberFormatException e) {
                 mostrarError("Por favor, ingrese un numero valido.");
             }
         }
     }
 
+    private String siguienteLinea() {
+        salida.flush();
+        long inicio = System.nanoTime();
+        if (ultimaLinea != 0) {
+            long respuesta = inicio - ultimaLinea;
+            nanosRespondiendo += respuesta;
+            maxNanosRespuesta = Math.max(maxNanosRespuesta, respuesta);
+        }
+        try {
+            String linea = scanner.nextLine();
+            ultimaLinea = System.nanoTime();
+            nanosEsperandoEntrada += ultimaLinea - inicio;
+            lineasLeidas++;
+            return linea;
+        } catch (NoSuchElementException | IllegalStateException e) {
+            nanosEsperandoEntrada += System.nanoTime() - inicio;
+            ultimaLinea = 0;
+            throw new EntradaCerradaException(scanner.ioException());
+        }
+    }
+
+    /** Texto sin salto de linea, para preguntas cuya respuesta se escribe en la misma linea. */
+    public void mostrarPregunta(String texto) {
+        salida.print(texto);
+    }
+
+    public void mostrarFormato(String formato, Object... args) {
+        salida.printf(formato, args);
+    }
+
+    public long getLineasLeidas()          { return lineasLeidas; }
+    public long getNanosEsperandoEntrada() { return nanosEsperandoEntrada; }
+    public long getNanosRespondiendo()     { return nanosRespondiendo; }
+    public long getMaxNanosRespuesta()     { return maxNanosRespuesta; }
+
     public String solicitarNumeroWhatsApp() {
         mostrarMensaje("\n" + "=".repeat(50));
         mostrarMensaje("INGRESE SU NUMERO DE WHATSAPP");
         mostrarMensaje("=".repeat(50));
-        System.out.print("Numero: ");
+        salida.print("Numero: ");
         return leerLinea();
     }
 
@@ -44,7 +113,7 @@ public class ConsoleView {
         mostrarMensaje("REGISTRO DE NUEVO USUARIO");
         mostrarMensaje("-".repeat(50));
         mostrarMensaje("Numero no reconocido. Ingrese su nombre para registrarse.");
-        System.out.print("Nombre: ");
+        salida.print("Nombre: ");
         return leerLinea();
     }
 
@@ -72,15 +141,15 @@ public class ConsoleView {
         mostrarMensaje("6. Salir");
         mostrarMensaje("\nTip: Opcion 99 para datos de prueba");
         mostrarMensaje("-".repeat(50));
-        System.out.print("Seleccione una opcion: ");
+        salida.print("Seleccione una opcion: ");
     }
 
     public void mostrarMensaje(String mensaje) {
-        System.out.println(mensaje);
+        salida.println(mensaje);
     }
 
     public void mostrarError(String error) {
-        System.err.println("ERROR: " + error);
+        errores.println("ERROR: " + error);
     }
 
     public void mostrarDespedida() {
@@ -97,7 +166,7 @@ public class ConsoleView {
         mostrarMensaje("2. Cuenta Bancaria");
         mostrarMensaje("0. Cancelar");
         mostrarMensaje("-".repeat(50));
-        System.out.print("Seleccione una opcion: ");
+        salida.print("Seleccione una opcion: ");
         return leerEntero();
     }
 
@@ -106,13 +175,13 @@ public class ConsoleView {
         mostrarMensaje("NUEVA BILLETERA DIGITAL");
         mostrarMensaje("-".repeat(50));
 
-        System.out.print("Alias (ej: Yape Personal): ");
+        salida.print("Alias (ej: Yape Personal): ");
         String alias = leerLinea();
 
-        System.out.print("Proveedor (ej: BCP, Interbank): ");
+        salida.print("Proveedor (ej: BCP, Interbank): ");
         String proveedor = leerLinea();
 
-        System.out.print("Numero de celular asociado: ");
+        salida.print("Numero de celular asociado: ");
         String numeroCuenta = leerLinea();
 
         String saldo = solicitarSaldoInicial();
@@ -124,13 +193,13 @@ public class ConsoleView {
         mostrarMensaje("NUEVA CUENTA BANCARIA");
         mostrarMensaje("-".repeat(50));
 
-        System.out.print("Nombre del Banco (ej: BCP, Interbank): ");
+        salida.print("Nombre del Banco (ej: BCP, Interbank): ");
         String banco = leerLinea();
 
-        System.out.print("Numero de cuenta: ");
+        salida.print("Numero de cuenta: ");
         String numeroCuenta = leerLinea();
 
-        System.out.print("CCI (20 digitos, opcional - Enter para omitir): ");
+        salida.print("CCI (20 digitos, opcional - Enter para omitir): ");
         String cci = leerLinea();
         if (cci.isEmpty()) cci = null;
 
@@ -138,14 +207,15 @@ public class ConsoleView {
         return new String[]{banco, cci, numeroCuenta, saldo};
     }
 
+    /** Retorna el texto ingresado ya validado; el controlador lo convierte con {@link Montos#parsear}. */
     private String solicitarSaldoInicial() {
         while (true) {
-            System.out.print("Saldo inicial (S/): ");
+            salida.print("Saldo inicial (S/): ");
             try {
                 String input = leerLinea();
-                double saldo = Double.parseDouble(input);
+                long saldo = Montos.parsear(input);
                 if (saldo < 0) { mostrarError("El saldo no puede ser negativo."); continue; }
-                return String.valueOf(saldo);
+                return input;
             } catch (NumberFormatException e) {
                 mostrarError("Ingrese un numero valido (ej: 100.50)");
             }
@@ -166,8 +236,8 @@ public class ConsoleView {
     }
 
     public void esperarEnter() {
-        System.out.print("\nPresione Enter para continuar...");
-        scanner.nextLine();
+        salida.print("\nPresione Enter para continuar...");
+        siguienteLinea();
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -184,7 +254,7 @@ public class ConsoleView {
         mostrarMensaje("4. Ver Ultimos Movimientos");
         mostrarMensaje("0. Volver al Menu Principal");
         mostrarMensaje("-".repeat(50));
-        System.out.print("Seleccione una opcion: ");
+        salida.print("Seleccione una opcion: ");
     }
 
     public void mostrarCabecera(String titulo) {
@@ -203,22 +273,24 @@ public class ConsoleView {
 
         int i = 1;
         for (CuentaFinanciera c : cuentas) {
-            System.out.printf("%d. %s  |  S/ %.2f%n", i++, c.obtenerDetalleImprimible(), c.getSaldo());
+            salida.printf("%d. %s  |  S/ %s%n", i++, c.obtenerDetalleImprimible(),
+                    Montos.formatear(c.getSaldoCentimos()));
         }
         mostrarMensaje("0. Cancelar");
         mostrarMensaje("-".repeat(50));
-        System.out.print("Seleccione una cuenta: ");
+        salida.print("Seleccione una cuenta: ");
 
         int opcion = leerEntero();
         if (opcion <= 0 || opcion > cuentas.size()) return -1;
         return opcion - 1;
     }
 
-    public double solicitarMonto(String etiqueta) {
+    /** Solicita un monto en soles y lo retorna en centimos. */
+    public long solicitarMonto(String etiqueta) {
         while (true) {
-            System.out.print(etiqueta + " (S/): ");
+            salida.print(etiqueta + " (S/): ");
             try {
-                double monto = Double.parseDouble(leerLinea());
+                long monto = Montos.parsear(leerLinea());
                 if (monto > 0) return monto;
                 mostrarError("El monto debe ser mayor a cero.");
             } catch (NumberFormatException e) {
@@ -228,7 +300,7 @@ public class ConsoleView {
     }
 
     public String solicitarDescripcion(String etiqueta) {
-        System.out.print(etiqueta + ": ");
+        salida.print(etiqueta + ": ");
         return leerLinea();
     }
 
@@ -259,8 +331,8 @@ public class ConsoleView {
             String categoria  = (m.getCategoria()   != null) ? m.getCategoria()   : "-";
             String descripcion= (m.getDescripcion() != null) ? m.getDescripcion() : "-";
 
-            System.out.printf("%-13s %-15s %s%-9.2f %-22s %-20s%n",
-                    fecha, tipo, signo, m.getMonto(), categoria, descripcion);
+            salida.printf("%-13s %-15s %s%-9s %-22s %-20s%n",
+                    fecha, tipo, signo, Montos.formatear(m.getMontoCentimos()), categoria, descripcion);
         }
         mostrarMensaje("-".repeat(82));
     }
@@ -276,9 +348,9 @@ public class ConsoleView {
     public String seleccionarCategoria(String[] categorias, String titulo) {
         mostrarMensaje("\n-- " + titulo + " --");
         for (int i = 0; i < categorias.length; i++) {
-            System.out.printf("%d. %s%n", i + 1, categorias[i]);
+            salida.printf("%d. %s%n", i + 1, categorias[i]);
         }
-        System.out.print("Seleccione categoria: ");
+        salida.print("Seleccione categoria: ");
 
         try {
             int opcion = leerEntero();
@@ -290,62 +362,82 @@ public class ConsoleView {
 
     /**
      * Imprime el reporte analitico con barras de progreso ASCII proporcionales
-     * y el balance neto ingreso - gasto.
+     * y el balance neto ingreso - gasto. Los totales ya vienen sumados en centimos.
      *
-     * @param gastos    Map categoria -> total gastado (instanciado como HashMap en el DAO)
-     * @param ingresos  Map categoria -> total ingresado
+     * @param gastos    Totales de gasto por categoria
+     * @param ingresos  Totales de ingreso por categoria
      */
-    public void mostrarReporteAnalitico(Map<String, Double> gastos, Map<String, Double> ingresos) {
+    public void mostrarReporteAnalitico(ResumenCategorias gastos, ResumenCategorias ingresos) {
+        mostrarReporteAnalitico("REPORTE ANALITICO DE FINANZAS PERSONALES", gastos, ingresos);
+    }
+
+    /** Igual que {@link #mostrarReporteAnalitico(ResumenCategorias, ResumenCategorias)} con otro titulo. */
+    public void mostrarReporteAnalitico(String titulo, ResumenCategorias gastos, ResumenCategorias ingresos) {
         mostrarMensaje("\n" + "=".repeat(60));
-        mostrarMensaje("REPORTE ANALITICO DE FINANZAS PERSONALES");
+        mostrarMensaje(titulo);
         mostrarMensaje("=".repeat(60));
 
         mostrarMensaje("\nRESUMEN DE GASTOS POR CATEGORIA");
         mostrarMensaje("-".repeat(60));
-        if (gastos.isEmpty()) {
+        if (gastos.estaVacio()) {
             mostrarMensaje("  Sin gastos registrados.");
         } else {
-            double totalGastos = gastos.values().stream().mapToDouble(Double::doubleValue).sum();
-            for (Map.Entry<String, Double> entrada : gastos.entrySet()) {
-                double pct    = (totalGastos > 0) ? (entrada.getValue() / totalGastos * 100) : 0;
-                int    barLen = (int) (pct / 5);
-                String barra  = "#".repeat(barLen) + ".".repeat(20 - barLen);
-                System.out.printf("  %-22s S/ %8.2f  %5.1f%%  [%s]%n",
-                        entrada.getKey(), entrada.getValue(), pct, barra);
-            }
-            mostrarMensaje("-".repeat(60));
-            System.out.printf("  %-22s S/ %8.2f%n", "TOTAL GASTADO", totalGastos);
+            imprimirCategorias(gastos, "TOTAL GASTADO");
         }
 
         mostrarMensaje("\nRESUMEN DE INGRESOS POR CATEGORIA");
         mostrarMensaje("-".repeat(60));
-        if (ingresos.isEmpty()) {
+        if (ingresos.estaVacio()) {
             mostrarMensaje("  Sin ingresos registrados.");
         } else {
-            double totalIngresos = ingresos.values().stream().mapToDouble(Double::doubleValue).sum();
-            for (Map.Entry<String, Double> entrada : ingresos.entrySet()) {
-                double pct    = (totalIngresos > 0) ? (entrada.getValue() / totalIngresos * 100) : 0;
-                int    barLen = (int) (pct / 5);
-                String barra  = "#".repeat(barLen) + ".".repeat(20 - barLen);
-                System.out.printf("  %-22s S/ %8.2f  %5.1f%%  [%s]%n",
-                        entrada.getKey(), entrada.getValue(), pct, barra);
-            }
-            mostrarMensaje("-".repeat(60));
-            System.out.printf("  %-22s S/ %8.2f%n", "TOTAL INGRESADO", totalIngresos);
+            imprimirCategorias(ingresos, "TOTAL INGRESADO");
         }
 
-        if (!gastos.isEmpty() || !ingresos.isEmpty()) {
-            double totalG  = gastos.values().stream().mapToDouble(Double::doubleValue).sum();
-            double totalI  = ingresos.values().stream().mapToDouble(Double::doubleValue).sum();
-            double balance = totalI - totalG;
+        if (!gastos.estaVacio() || !ingresos.estaVacio()) {
+            long balance = ingresos.getTotalCentimos() - gastos.getTotalCentimos();
             mostrarMensaje("\n" + "=".repeat(60));
-            System.out.printf("  %-22s S/ %8.2f%n",
-                    balance >= 0 ? "BALANCE NETO (positivo)" : "BALANCE NETO (negativo)", balance);
+            salida.printf("  %-22s S/ %8s%n",
+                    balance >= 0 ? "BALANCE NETO (positivo)" : "BALANCE NETO (negativo)", Montos.formatear(balance));
             mostrarMensaje("=".repeat(60));
         }
     }
 
+    /**
+     * Imprime el total de cada periodo de la serie con una barra proporcional al mayor.
+     */
+    public void mostrarEvolucion(String titulo, ReporteTemporal reporte) {
+        mostrarMensaje("\n" + titulo + " (" + reporte.getGranularidad() + ")");
+        mostrarMensaje("-".repeat(60));
+
+        String[] periodos = reporte.getPeriodos();
+        long[]   totales  = reporte.getTotalPorPeriodo();
+        long     maximo   = 0;
+        for (long t : totales) maximo = Math.max(maximo, t);
+
+        for (int p = 0; p < periodos.length; p++) {
+            int    barLen = (maximo > 0) ? (int) (totales[p] * 20 / maximo) : 0;
+            String barra  = "#".repeat(barLen) + ".".repeat(20 - barLen);
+            salida.printf("  %-22s S/ %8s  [%s]%n", periodos[p], Montos.formatear(totales[p]), barra);
+        }
+        mostrarMensaje("-".repeat(60));
+    }
+
+    private void imprimirCategorias(ResumenCategorias resumen, String etiquetaTotal) {
+        long total = resumen.getTotalCentimos();
+        for (int i = 0; i < resumen.getCantidad(); i++) {
+            long   monto  = resumen.getTotalCentimos(i);
+            double pct    = (total > 0) ? (monto * 100.0 / total) : 0;
+            int    barLen = (int) (pct / 5);
+            String barra  = "#".repeat(barLen) + ".".repeat(20 - barLen);
+            salida.printf("  %-22s S/ %8s  %5.1f%%  [%s]%n",
+                    resumen.getCategoria(i), Montos.formatear(monto), pct, barra);
+        }
+        mostrarMensaje("-".repeat(60));
+        salida.printf("  %-22s S/ %8s%n", etiquetaTotal, Montos.formatear(total));
+    }
+
     public void cerrar() {
+        salida.flush();
         if (scanner != null) scanner.close();
     }
 }
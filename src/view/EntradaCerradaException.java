@@ -0,0 +1,22 @@
+package view;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+/**
+ * La entrada de la vista termino: el usuario cerro la consola o el cliente remoto se desconecto
+ * o dejo vencer el tiempo de inactividad. Corta la sesion desde cualquier punto de los menus.
+ */
+public class EntradaCerradaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EntradaCerradaException(IOException causa) {
+        super(causa == null ? "Fin de la entrada" : "Entrada interrumpida: " + causa.getMessage(), causa);
+    }
+
+    /** true si la sesion se corto por inactividad (vencio el timeout de lectura del socket). */
+    public boolean porInactividad() {
+        return getCause() instanceof SocketTimeoutException;
+    }
+}